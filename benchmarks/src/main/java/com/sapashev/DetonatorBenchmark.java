@@ -0,0 +1,93 @@
+package com.sapashev;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+
+/**
+ * Measures the explosion pass of the Detonator on the board 1024x1024 with 10% of monsters and 5% of blocks.
+ * CHAIN - bombs are planted on the lattice with step of two cells and the blast reaches four cells, so the chain
+ * passes over the lattice point occupied by monster or block, and the single bomb, which fuse burns out first,
+ * sets off almost all bombs of the lattice by the chain reaction.
+ * SCATTERED - bombs are planted to the random free cells at once and all of them explode at the same tick.
+ * Bombs are consumed by the explosion, so the world is rebuilt before each single shot.
+ * Secondary counter reports quantity of exploded bombs.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetonatorBenchmark {
+    private static final int SIZE = 1024;
+    private static final int FUSE = 8;
+    private static final int RADIUS = 4;
+    private static final int STEP = 2;
+
+    @Param({"1000", "10000"})
+    public int bombs;
+
+    @Param({"CHAIN", "SCATTERED"})
+    public String layout;
+
+    private Detonator detonator;
+    private int planted;
+    private long tick;
+
+    /**
+     * Bombs exploded by the pass.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Explosions {
+        public long exploded;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp () {
+        World world = new World(SIZE, 0.1, 0.05, DegreeType.CHEBYSHEV, BoardType.COMPACT);
+        detonator = new Detonator(world.board, world.freecell, world.freeCells, new TimingWheel(world.board, 10),
+                null, world.events, null, FUSE, RADIUS);
+        if(layout.equals("CHAIN")){
+            plantLattice(world.board);
+        } else {
+            for (int i = 0; i < bombs; i++){
+                detonator.plant(world.freeCells.getRandomCell());
+            }
+            tick = FUSE;
+        }
+        planted = detonator.getBombs().size();
+    }
+
+    /**
+     * Plants the first bomb of the lattice, waits until it's fuse almost burns out and plants the rest of the lattice,
+     * so only the first bomb is due at the measured tick.
+     * @param board - board of the world.
+     */
+    private void plantLattice (Board board) {
+        int side = (int) Math.ceil(Math.sqrt(bombs));
+        int origin = (SIZE - side * STEP) / 2;
+        boolean first = true;
+        for (int i = 0; i < side * side && i < bombs; i++){
+            int cell = board.index(origin + i / side * STEP, origin + i % side * STEP);
+            if(detonator.plant(cell) && first){
+                first = false;
+                for (long t = 1; t < FUSE; t++){
+                    detonator.explode(t);
+                }
+            }
+        }
+        tick = FUSE;
+    }
+
+    @Benchmark
+    public void explode (Explosions explosions) {
+        detonator.explode(tick);
+        explosions.exploded += planted - detonator.getBombs().size();
+    }
+}
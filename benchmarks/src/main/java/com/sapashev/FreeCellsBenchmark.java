@@ -0,0 +1,74 @@
+package com.sapashev;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+
+/**
+ * Measures the update of the index of free cells after the move, made by several threads at once,
+ * as monsters of the parallel and agents modes do. Run with -t 1,2,4,8 to get the scaling curve.
+ * Each thread moves it's own monster back and forth between two cells of it's own row, so threads
+ * share the index only. Secondary benchmark reads the index once per 1000 moves, which applies the moves
+ * marked since the previous read.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FreeCellsBenchmark {
+    private static final int SIZE = 1024;
+    private final AtomicInteger rows = new AtomicInteger();
+    private World world;
+
+    @State(Scope.Thread)
+    public static class Walker {
+        private final Monster monster = new Monster(1);
+        private final Random random = new Random();
+        private int first;
+        private int second;
+        private int moves;
+
+        @Setup(Level.Trial)
+        public void setUp (FreeCellsBenchmark benchmark) {
+            int row = benchmark.rows.getAndIncrement() * 4 % SIZE;
+            first = benchmark.world.board.index(row, random.nextInt(SIZE - 1));
+            second = first + 1;
+            benchmark.world.put(first, monster);
+            benchmark.world.put(second, benchmark.world.freecell);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp () {
+        world = new World(SIZE, 0.01, 0.05, DegreeType.CHEBYSHEV);
+    }
+
+    @Benchmark
+    public void move (Walker walker) {
+        step(walker);
+    }
+
+    @Benchmark
+    public void moveAndRead (Walker walker) {
+        step(walker);
+        if(++walker.moves % 1000 == 0){
+            world.freeCells.size();
+        }
+    }
+
+    private void step (Walker walker) {
+        world.put(walker.second, walker.monster);
+        world.put(walker.first, world.freecell);
+        world.freeCells.move(walker.first, walker.second);
+        int cell = walker.first;
+        walker.first = walker.second;
+        walker.second = cell;
+    }
+}
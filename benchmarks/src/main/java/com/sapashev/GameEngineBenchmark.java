@@ -0,0 +1,63 @@
+package com.sapashev;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.board.BoardType;
+
+/**
+ * Measures full tick of the embedded engine (GameEngine.step: player phase, then monster phase) stepped
+ * in the benchmark thread without scheduler, i.e. how many ticks per second batch jobs could drive.
+ * Engine is rebuilt before each iteration, because monsters gather around the player with time.
+ * With trackChanges the listener reads each changed cell, so the cost of deltas is included.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameEngineBenchmark {
+    @Param({"32", "128", "512"})
+    public int size;
+
+    @Param({"0.01", "0.1"})
+    public double density;
+
+    @Param({"CELLS", "COMPACT"})
+    public BoardType boardType;
+
+    @Param({"false", "true"})
+    public boolean trackChanges;
+
+    private GameEngine engine;
+    private long changed;
+
+    @Setup(Level.Iteration)
+    public void setUp () {
+        int cells = size * size;
+        engine = new GameEngine(new GameConfig(size, size, Math.max(1, (int) (cells * density)), 1, Math.max(1, cells / 20))
+                .setBoardType(boardType)
+                .setTrackChanges(trackChanges)
+                .setSeed(42L));
+        if(trackChanges){
+            engine.addDeltaListener(delta -> {
+                for (int i = 0; i < delta.size(); i++){
+                    changed += delta.getCell(i);
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown () {
+        engine.close();
+    }
+
+    @Benchmark
+    public long step () {
+        engine.step();
+        return engine.getTick();
+    }
+}
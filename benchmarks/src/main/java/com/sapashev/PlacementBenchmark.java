@@ -0,0 +1,52 @@
+package com.sapashev;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+
+/**
+ * Measures placement of the entities: building of the free cells index, placement of the single entity
+ * (selection of the random free cell and it's occupation) and release of the cell.
+ * CELLS board uses index which keeps every free cell, CHUNKED board - index which picks random cells until free one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlacementBenchmark {
+    @Param({"64", "512", "2048"})
+    public int size;
+
+    @Param({"0.01", "0.1"})
+    public double density;
+
+    @Param({"CELLS", "CHUNKED"})
+    public BoardType boardType;
+
+    private final Monster monster = new Monster(1);
+    private World world;
+
+    @Setup(Level.Trial)
+    public void setUp () {
+        world = new World(size, density, density / 2, DegreeType.CHEBYSHEV, boardType);
+    }
+
+    @Benchmark
+    public FreeCells buildIndex () {
+        return boardType.createFreeCells(world.board, new Random(42));
+    }
+
+    @Benchmark
+    public int placeEntity () {
+        int cell = world.freeCells.occupyRandomCell(world.freecell, monster);
+        world.put(cell, world.freecell);
+        world.freeCells.release(cell);
+        return cell;
+    }
+}
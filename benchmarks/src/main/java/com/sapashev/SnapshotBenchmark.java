@@ -0,0 +1,72 @@
+package com.sapashev;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+
+/**
+ * Measures checkpoint of the game: save of the whole game to the snapshot, restore of the engine from it
+ * and, for comparison, creation of the same engine anew (random placement and search of the heat map).
+ * Game has flow field heat map, so degrees of all cells are saved as well.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+    @Param({"512", "2048"})
+    public int size;
+
+    @Param({"CELLS", "COMPACT"})
+    public BoardType boardType;
+
+    private GameConfig config;
+    private GameEngine engine;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp () throws IOException {
+        int cells = size * size;
+        config = new GameConfig(size, size, cells / 100, 1, cells / 50)
+                .setDegreeType(DegreeType.FLOW_FIELD)
+                .setBoardType(boardType)
+                .setSeed(42L);
+        engine = new GameEngine(config);
+        engine.step(10);
+        file = Files.createTempFile("snapshot", ".bin");
+        engine.save(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown () throws IOException {
+        engine.close();
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public void save () throws IOException {
+        engine.save(file);
+    }
+
+    @Benchmark
+    public GameEngine restore () throws IOException {
+        try (GameEngine restored = GameEngine.restore(file)) {
+            return restored;
+        }
+    }
+
+    @Benchmark
+    public GameEngine create () {
+        try (GameEngine created = new GameEngine(config)) {
+            return created;
+        }
+    }
+}
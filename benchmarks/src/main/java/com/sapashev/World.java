@@ -0,0 +1,93 @@
+package com.sapashev;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeField;
+import com.sapashev.degree.DegreeType;
+import com.sapashev.events.Backpressure;
+import com.sapashev.events.EventRing;
+import com.sapashev.metrics.EngineMetrics;
+import com.sapashev.threads.ThreadMonster;
+
+/**
+ * Board with blocks, monsters and player prepared for benchmarks.
+ * Entities are placed by shuffling all cells of the board once with fixed seed,
+ * so the same parameters always produce the same world.
+ * Ring of game events has no readers, so events are published, but never consumed.
+ * Metrics are recorded, but not registered over JMX.
+ */
+public class World {
+    public final Actor freecell = new Freecell();
+    public final Board board;
+    public final List<Monster> monsters;
+    public final Player player = new Player();
+    public final DegreeField degree;
+    public final FreeCells freeCells;
+    public final EventRing events = new EventRing(1 << 16, Backpressure.DROP);
+    public final EngineMetrics metrics = new EngineMetrics(ThreadMonster.TICK_PERIOD);
+
+    /**
+     * @param size - quantity of rows and columns of the board.
+     * @param monsterDensity - part of the cells occupied by monsters.
+     * @param blockDensity - part of the cells occupied by blocks.
+     * @param degreeType - kind of the heat map.
+     */
+    public World (int size, double monsterDensity, double blockDensity, DegreeType degreeType){
+        this(size, monsterDensity, blockDensity, degreeType, BoardType.CELLS);
+    }
+
+    /**
+     * @param size - quantity of rows and columns of the board.
+     * @param monsterDensity - part of the cells occupied by monsters.
+     * @param blockDensity - part of the cells occupied by blocks.
+     * @param degreeType - kind of the heat map.
+     * @param boardType - kind of the board.
+     */
+    public World (int size, double monsterDensity, double blockDensity, DegreeType degreeType, BoardType boardType){
+        this.board = boardType.create(size, size, freecell);
+        this.freeCells = boardType.createFreeCells(board, new Random(42));
+        List<Integer> cells = new ArrayList<>(size * size);
+        for (int cell = 0; cell < size * size; cell++){
+            cells.add(cell);
+        }
+        Collections.shuffle(cells, new Random(42));
+        int next = 0;
+        List<Block> blocks = GameEngine.createBlocks((int) (size * size * blockDensity));
+        for (Block block : blocks){
+            block.setHostCell(cells.get(next++));
+            place(block.getHostCell(), block);
+        }
+        this.monsters = GameEngine.createMonsters(Math.max(1, (int) (size * size * monsterDensity)));
+        for (Monster monster : monsters){
+            monster.setHostCell(cells.get(next++));
+            place(monster.getHostCell(), monster);
+        }
+        player.setHostCell(cells.get(next));
+        place(player.getHostCell(), player);
+        this.degree = degreeType.create(board, player.getHostCell());
+    }
+
+    /**
+     * Puts actor to the free cell and removes the cell from the index of free cells.
+     * @param cell - index of the cell.
+     * @param actor - new actor of the cell.
+     */
+    private void place (int cell, Actor actor){
+        put(cell, actor);
+        freeCells.occupy(cell);
+    }
+
+    /**
+     * Puts actor to the cell whoever occupies it.
+     * @param cell - index of the cell.
+     * @param actor - new actor of the cell.
+     */
+    public void put (int cell, Actor actor){
+        board.compareAndSet(cell, board.getActor(cell), actor);
+    }
+}
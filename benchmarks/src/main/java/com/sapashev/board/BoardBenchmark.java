@@ -0,0 +1,34 @@
+package com.sapashev.board;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.Actor;
+import com.sapashev.Freecell;
+
+/**
+ * Measures build time of the empty board of each kind.
+ * Heap footprint is measured by BoardFootprint, because gc profiler reports only allocation rate.
+ * Chunks of the CHUNKED board are not created until actors are put on it, so it is built in constant time.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class BoardBenchmark {
+    @Param({"512", "2048", "4000"})
+    public int size;
+
+    @Param({"CELLS", "COMPACT", "CHUNKED"})
+    public BoardType boardType;
+
+    private final Actor freecell = new Freecell();
+
+    @Benchmark
+    public Board build () {
+        return boardType.create(size, size, freecell);
+    }
+}
@@ -0,0 +1,58 @@
+package com.sapashev.board;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Random;
+
+import com.sapashev.Actor;
+import com.sapashev.FreeCells;
+import com.sapashev.Freecell;
+import com.sapashev.Monster;
+
+/**
+ * Measures heap retained by the board of each kind together with it's index of free cells, and time to build them
+ * and to put MONSTERS monsters to the random cells.
+ * Retained heap is the difference of the used heap after full gc with the board and before it was built.
+ * Usage: java -Xmx4g -cp target/benchmarks.jar com.sapashev.board.BoardFootprint [size...]
+ */
+public class BoardFootprint {
+    private static final int MONSTERS = 10000;
+
+    public static void main (String[] args) {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[]{1000, 4000, 10000};
+        for (int i = 0; i < args.length; i++){
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        Actor freecell = new Freecell();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int size : sizes){
+            for (BoardType type : BoardType.values()){
+                long before = usedAfterGc(memory);
+                long start = System.nanoTime();
+                Board board;
+                FreeCells freeCells;
+                try {
+                    board = type.create(size, size, freecell);
+                    freeCells = type.createFreeCells(board, new Random(42));
+                    for (int id = 1; id <= MONSTERS; id++){
+                        freeCells.occupyRandomCell(freecell, new Monster(id));
+                    }
+                } catch (OutOfMemoryError e) {
+                    System.out.println(String.format("%s %sx%s: out of memory", type, size, size));
+                    continue;
+                }
+                long time = System.nanoTime() - start;
+                long retained = usedAfterGc(memory) - before;
+                System.out.println(String.format("%s %sx%s: %s MB, %.2f bytes per cell, built in %s ms, %s free cells",
+                        type, size, size, retained >> 20, (double) retained / board.size(), time / 1000000,
+                        freeCells.size()));
+            }
+        }
+    }
+
+    private static long usedAfterGc (MemoryMXBean memory) {
+        System.gc();
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
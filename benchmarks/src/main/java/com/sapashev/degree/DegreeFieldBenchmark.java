@@ -0,0 +1,51 @@
+package com.sapashev.degree;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.World;
+
+/**
+ * Measures cost of the player move for each kind of the heat map across board sizes:
+ * full rebuild of the field and update after the step to the adjacent cell.
+ * Player steps back and forth between two adjacent cells, so each update is a real move.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DegreeFieldBenchmark {
+    @Param({"64", "512", "2048"})
+    public int size;
+
+    @Param({"CHEBYSHEV", "FLOW_FIELD"})
+    public DegreeType type;
+
+    private World world;
+    private int[] steps;
+    private int step;
+
+    @Setup(Level.Trial)
+    public void setUp () {
+        world = new World(size, 0.01, 0.05, type);
+        int host = world.player.getHostCell();
+        int next = (host + 1) % size != 0 ? host + 1 : host - 1;
+        world.put(next, world.freecell);
+        steps = new int[]{host, next};
+    }
+
+    @Benchmark
+    public DegreeField build () {
+        return type.create(world.board, steps[0]);
+    }
+
+    @Benchmark
+    public DegreeField step () {
+        step ^= 1;
+        world.degree.update(steps[step]);
+        return world.degree;
+    }
+}
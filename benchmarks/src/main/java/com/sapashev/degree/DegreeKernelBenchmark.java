@@ -0,0 +1,90 @@
+package com.sapashev.degree;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares scalar and vector kernels of the heat map across board sizes: full fill of Chebyshev degrees,
+ * merge of the second player into the filled field, and choice of the nearby cells on the field with 5% of blocks:
+ * argmin for the batch of monsters (1% of the cells) and the field of chosen cells for the whole board
+ * followed by lookup of the same batch.
+ * Forked JVM is started with --add-modules jdk.incubator.vector, without it VECTOR runs are skipped.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class DegreeKernelBenchmark {
+    @Param({"64", "512", "2048"})
+    public int size;
+
+    @Param({"SCALAR", "VECTOR"})
+    public String kernelType;
+
+    private DegreeKernel kernel;
+    private int[] field;
+    private int[] blocked;
+    private int[] hosts;
+    private int[] targets;
+    private int[] nearest;
+    private int player;
+    private int second;
+
+    @Setup(Level.Trial)
+    public void setUp () {
+        kernel = kernelType.equals("VECTOR") ? DegreeKernels.vector() : DegreeKernels.scalar();
+        if(kernel == null){
+            throw new IllegalStateException("Vector kernel is not available in this JVM");
+        }
+        Random random = new Random(42);
+        int cells = size * size;
+        field = new int[cells];
+        player = random.nextInt(cells);
+        second = random.nextInt(cells);
+        blocked = new int[cells];
+        DegreeKernels.scalar().fillChebyshev(blocked, size, player);
+        for (int cell = 0; cell < cells; cell++){
+            if(random.nextInt(20) == 0){
+                blocked[cell] = Integer.MAX_VALUE;
+            }
+        }
+        hosts = new int[Math.max(cells / 100, 1)];
+        for (int i = 0; i < hosts.length; i++){
+            hosts[i] = random.nextInt(cells);
+        }
+        targets = new int[hosts.length];
+        nearest = new int[cells];
+    }
+
+    @Benchmark
+    public int[] fill () {
+        kernel.fillChebyshev(field, size, player);
+        return field;
+    }
+
+    @Benchmark
+    public int[] fillAndMerge () {
+        kernel.fillChebyshev(field, size, player);
+        kernel.mergeChebyshev(field, size, second);
+        return field;
+    }
+
+    @Benchmark
+    public int[] argmin () {
+        kernel.argminNearby(blocked, size, hosts, targets, hosts.length);
+        return targets;
+    }
+
+    @Benchmark
+    public int[] nearest () {
+        kernel.fillNearest(blocked, size, nearest);
+        for (int i = 0; i < hosts.length; i++){
+            targets[i] = nearest[hosts[i]];
+        }
+        return targets;
+    }
+}
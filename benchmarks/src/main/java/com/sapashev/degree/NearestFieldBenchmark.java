@@ -0,0 +1,116 @@
+package com.sapashev.degree;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.Block;
+import com.sapashev.Freecell;
+import com.sapashev.Type;
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+
+/**
+ * Measures heat map of the nearest player across board sizes and quantities of players:
+ * build of the field by the single search from all players, incremental update after the step of one player,
+ * and, for comparison, the same step with a flow field per player, where the nearest degree of each cell
+ * is the minimum over the fields of all players. Board has 5% of blocks.
+ * Each step moves the next player back and forth between two adjacent cells, so each update is a real move.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class NearestFieldBenchmark {
+    @Param({"512", "1024"})
+    public int size;
+
+    @Param({"2", "16", "64"})
+    public int players;
+
+    private Board board;
+    private int[] cells;
+    private int[] others;
+    private NearestFlowFieldDegree nearest;
+    private FlowFieldDegree[] fields;
+    private int[] minimum;
+    private int player;
+
+    @Setup(Level.Trial)
+    public void setUp () {
+        Random random = new Random(42);
+        Freecell freecell = new Freecell();
+        board = BoardType.COMPACT.create(size, size, freecell);
+        Block block = new Block();
+        for (int i = 0; i < board.size() / 20; i++){
+            board.compareAndSet(random.nextInt(board.size()), freecell, block);
+        }
+        cells = new int[players];
+        others = new int[players];
+        for (int i = 0; i < players; i++){
+            int cell;
+            int other;
+            do {
+                cell = random.nextInt(board.size());
+                other = (cell + 1) % size != 0 ? cell + 1 : cell - 1;
+            } while (!isFree(cell) || !isFree(other));
+            cells[i] = cell;
+            others[i] = other;
+        }
+        nearest = new NearestFlowFieldDegree(board, cells);
+        fields = new FlowFieldDegree[players];
+        for (int i = 0; i < players; i++){
+            fields[i] = new FlowFieldDegree(board, cells[i]);
+        }
+        minimum = new int[board.size()];
+    }
+
+    @Benchmark
+    public DegreeField build () {
+        return new NearestFlowFieldDegree(board, cells);
+    }
+
+    @Benchmark
+    public DegreeField step () {
+        player = (player + 1) % players;
+        swap(player);
+        nearest.update(player, cells[player]);
+        return nearest;
+    }
+
+    @Benchmark
+    public int[] stepPerPlayer () {
+        player = (player + 1) % players;
+        swap(player);
+        fields[player].update(cells[player]);
+        for (int cell = 0; cell < minimum.length; cell++){
+            int degree = Integer.MAX_VALUE;
+            for (FlowFieldDegree field : fields){
+                degree = Math.min(degree, field.getDegree(cell));
+            }
+            minimum[cell] = degree;
+        }
+        return minimum;
+    }
+
+    private void swap (int player) {
+        int cell = cells[player];
+        cells[player] = others[player];
+        others[player] = cell;
+    }
+
+    private boolean isFree (int cell) {
+        if(board.getActor(cell).getType() != Type.FREECELL){
+            return false;
+        }
+        for (int i = 0; i < cells.length; i++){
+            if(cells[i] == cell || others[i] == cell){
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package com.sapashev.events;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures publishing of the game events by the simulation thread while another thread drains them,
+ * for both kinds of backpressure.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class EventRingBenchmark {
+    @Param({"DROP", "WAIT"})
+    public Backpressure backpressure;
+
+    private EventRing ring;
+    private EventReader reader;
+    private long tick;
+    private long consumed;
+    private final EventSink sink = (entity, from, to, tick, outcome) -> consumed += to;
+
+    @Setup(Level.Iteration)
+    public void setUp () {
+        ring = new EventRing(1 << 16, backpressure);
+        reader = ring.newReader();
+    }
+
+    @Benchmark
+    @Group("ring")
+    public boolean publish () {
+        return ring.publish(1, 2, 3, tick++, Outcome.MOVED);
+    }
+
+    @Benchmark
+    @Group("ring")
+    public int drain () {
+        return reader.drain(sink, 1024);
+    }
+}
@@ -0,0 +1,70 @@
+package com.sapashev.replay;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.GameConfig;
+import com.sapashev.GameEngine;
+import com.sapashev.events.EventDrainer;
+
+/**
+ * Measures playback of the journal: replay of the whole game (next until the end) and seek to the middle tick
+ * through keyframes. Journal of the deterministic game of 1000 ticks (100 seconds in real time) is recorded once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReplayBenchmark {
+    private static final int TICKS = 1000;
+
+    @Param({"128", "512"})
+    public int size;
+
+    private Path file;
+    private JournalReplay replay;
+
+    @Setup(Level.Trial)
+    public void setUp () throws IOException, InterruptedException {
+        file = Files.createTempFile("journal", ".bin");
+        try (GameEngine engine = new GameEngine(new GameConfig(size, size, size * size / 20, 1, size * size / 50)
+                .setSeed(42L))) {
+            JournalWriter journal = new JournalWriter(file, engine, 10);
+            EventDrainer drainer = new EventDrainer(engine.getEvents().newReader(), journal);
+            Thread thread = new Thread(drainer);
+            thread.start();
+            engine.step(TICKS);
+            drainer.stop();
+            thread.join();
+            journal.close();
+        }
+        replay = new JournalReplay(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown () throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public long replayAll () {
+        replay.seek(0);
+        long events = 0;
+        while (replay.next(null)){
+            events++;
+        }
+        return events;
+    }
+
+    @Benchmark
+    public int seek () {
+        replay.seek(TICKS / 2);
+        return replay.getPosition(0);
+    }
+}
@@ -0,0 +1,219 @@
+package com.sapashev.spectator;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+import com.sapashev.GameConfig;
+import com.sapashev.GameEngine;
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+
+/**
+ * Load test of the spectator server on the loopback: the game plays in real time while thousands of clients
+ * watch it from the single client Selector. Part of the clients are slow: they have small receive buffer
+ * and read 4 KB once per second, so the server has to resync or drop them.
+ * Each client checks that sequences of the frames follow each other, the first client also applies frames
+ * to it's copy of the board, which is compared with the board after the game.
+ * Usage: java -cp target/benchmarks.jar
+ *        com.sapashev.spectator.SpectatorLoadTest [clients] [slow clients] [seconds] [size] [monsters] [RESYNC|DROP]
+ */
+public class SpectatorLoadTest {
+    private static final int MAX_LAG = 32;
+    private static final int SLOW_READ = 4096;
+
+    public static void main (String[] args) throws IOException, InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int slow = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int size = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+        int monsters = args.length > 4 ? Integer.parseInt(args[4]) : 500;
+        SlowClientPolicy policy = args.length > 5 ? SlowClientPolicy.valueOf(args[5]) : SlowClientPolicy.RESYNC;
+
+        GameEngine engine = new GameEngine(new GameConfig(size, size, monsters, 1, size * size / 50)
+                .setBoardType(BoardType.COMPACT)
+                .setTrackChanges(true));
+        SpectatorServer server = new SpectatorServer(engine, new InetSocketAddress("127.0.0.1", 0), MAX_LAG, policy);
+        server.start();
+        Selector selector = Selector.open();
+        Client[] all = new Client[clients];
+        for (int i = 0; i < clients; i++){
+            SocketChannel channel = SocketChannel.open();
+            if(i >= clients - slow){
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, 4096);
+            }
+            channel.connect(server.getAddress());
+            channel.configureBlocking(false);
+            all[i] = new Client(i == 0 ? new byte[size * size] : null, i >= clients - slow);
+            channel.register(selector, SelectionKey.OP_READ, all[i]);
+        }
+        System.out.println(String.format("%s clients connected, %s slow, policy %s", clients, slow, policy));
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+        engine.start();
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long nextSlowRead = start;
+        while (System.nanoTime() < end){
+            selector.select(100);
+            boolean slowRead = System.nanoTime() > nextSlowRead;
+            if(slowRead){
+                nextSlowRead += 1_000_000_000L;
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()){
+                SelectionKey key = keys.next();
+                keys.remove();
+                Client client = (Client) key.attachment();
+                if(!client.slow || slowRead){
+                    read(key, client, buffer);
+                }
+            }
+        }
+        engine.stop(1000);
+        long drainEnd = System.nanoTime() + 1_000_000_000L;
+        while (System.nanoTime() < drainEnd){
+            selector.select(100);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()){
+                SelectionKey key = keys.next();
+                keys.remove();
+                read(key, (Client) key.attachment(), buffer);
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long bytes = 0;
+        long frames = 0;
+        long errors = 0;
+        long closed = 0;
+        for (Client client : all){
+            bytes += client.bytes;
+            frames += client.frames;
+            errors += client.errors;
+            closed += client.closed ? 1 : 0;
+        }
+        Board board = engine.getBoard();
+        int mismatches = 0;
+        for (int cell = 0; cell < board.size(); cell++){
+            if(all[0].mirror[cell] != board.getActor(cell).getType().ordinal()){
+                mismatches++;
+            }
+        }
+        System.out.println(String.format("Server: %s clients, %s deltas and %s snapshots sent, %s resyncs, %s dropped, %s deltas skipped",
+                server.getClients(), server.getFramesSent(), server.getSnapshotsSent(), server.getResyncs(),
+                server.getDropped(), server.getSkipped()));
+        System.out.println(String.format("Clients: %s frames, %.1f MB in %.1f s (%.1f MB/s, %.0f frames/s), %s sequence errors, %s disconnected",
+                frames, bytes / 1e6, elapsed, bytes / 1e6 / elapsed, frames / elapsed, errors, closed));
+        System.out.println(String.format("Board of the first client differs from the game in %s cells", mismatches));
+        server.close();
+        selector.close();
+        engine.close();
+    }
+
+    private static void read (SelectionKey key, Client client, ByteBuffer buffer) {
+        try {
+            buffer.clear();
+            if(client.slow){
+                buffer.limit(SLOW_READ);
+            }
+            int read = ((SocketChannel) key.channel()).read(buffer);
+            if(read < 0){
+                client.closed = true;
+                key.cancel();
+                key.channel().close();
+                return;
+            }
+            client.bytes += read;
+            buffer.flip();
+            client.parse(buffer);
+        } catch (IOException e) {
+            client.closed = true;
+            key.cancel();
+        }
+    }
+
+    /**
+     * Streaming parser of the frames of the single client. Body of the frames is skipped,
+     * unless client has a copy of the board.
+     */
+    private static class Client {
+        private final byte[] mirror;
+        private final boolean slow;
+        private final ByteBuffer header = ByteBuffer.allocate(1 + 8 + 8 + 4 + 4);
+        private final ByteBuffer entry = ByteBuffer.allocate(4 + 1);
+        private byte tag;
+        private long body;
+        private int position;
+        private long sequence = -1;
+        private long bytes;
+        private long frames;
+        private long errors;
+        private boolean closed;
+
+        private Client (byte[] mirror, boolean slow){
+            this.mirror = mirror;
+            this.slow = slow;
+        }
+
+        private void parse (ByteBuffer buffer) {
+            while (buffer.hasRemaining()){
+                if(body > 0){
+                    readBody(buffer);
+                    continue;
+                }
+                if(header.position() == 0){
+                    tag = buffer.get();
+                    header.put(tag);
+                    header.limit(tag == SpectatorServer.SNAPSHOT ? 25 : 21);
+                }
+                while (header.hasRemaining() && buffer.hasRemaining()){
+                    header.put(buffer.get());
+                }
+                if(header.hasRemaining()){
+                    return;
+                }
+                long frameSequence = header.getLong(1);
+                if(tag == SpectatorServer.SNAPSHOT){
+                    body = (long) header.getInt(17) * header.getInt(21);
+                } else {
+                    if(frameSequence != sequence + 1){
+                        errors++;
+                    }
+                    body = 5L * header.getInt(17);
+                }
+                sequence = frameSequence;
+                position = 0;
+                frames++;
+                header.clear();
+            }
+        }
+
+        private void readBody (ByteBuffer buffer) {
+            if(mirror == null){
+                int skip = (int) Math.min(body, buffer.remaining());
+                buffer.position(buffer.position() + skip);
+                body -= skip;
+            } else if(tag == SpectatorServer.SNAPSHOT){
+                while (body > 0 && buffer.hasRemaining()){
+                    mirror[position++] = buffer.get();
+                    body--;
+                }
+            } else {
+                while (body > 0 && buffer.hasRemaining()){
+                    entry.put(buffer.get());
+                    body--;
+                    if(!entry.hasRemaining()){
+                        mirror[entry.getInt(0)] = entry.get(4);
+                        entry.clear();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.sapashev.threads;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.World;
+import com.sapashev.degree.DegreeType;
+
+/**
+ * Compares execution modes of the monsters by latency of the "round" - time needed until
+ * every monster has made one move. Batched modes do a round by a single ThreadMonster.run,
+ * agents run freely with the shortest period (1 ms) and the round ends when the move counter
+ * has advanced by the number of monsters. Throughput in moves/sec is monsters / round time.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AgentsBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int monsters;
+
+    @Param({"SEQUENTIAL", "PARALLEL", "AGENTS"})
+    public MonsterMode mode;
+
+    private ForkJoinPool pool;
+    private ThreadMonster threadMonster;
+    private MonsterAgents agents;
+    /**
+     * Moves of the agents (including skipped moves of parked monsters).
+     */
+    private final LongAdder moves = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp () {
+        int size = (int) Math.sqrt(monsters * 10.0);
+        World world = new World(size, (double) monsters / (size * size), 0.05, DegreeType.CHEBYSHEV);
+        pool = mode == MonsterMode.PARALLEL ? new ForkJoinPool() : null;
+        threadMonster = new ThreadMonster.Builder(world.board, world.degree, world.freeCells, world.events, world.metrics)
+                .setMonsters(world.monsters, world.freecell).setRepeatPeriod(1).setPool(pool).build();
+        if(mode == MonsterMode.AGENTS){
+            agents = new MonsterAgents((monster, tick) -> {
+                threadMonster.makeAgentMove(monster, tick);
+                moves.increment();
+            }, world.monsters, 1);
+            agents.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown () throws InterruptedException {
+        if(agents != null){
+            agents.stop(10000);
+        }
+        if(pool != null){
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public long round () {
+        if(agents == null){
+            threadMonster.run();
+            return threadMonster.getTick();
+        }
+        long target = moves.sum() + monsters;
+        long made;
+        while ((made = moves.sum()) < target){
+            LockSupport.parkNanos(10000);
+        }
+        return made;
+    }
+}
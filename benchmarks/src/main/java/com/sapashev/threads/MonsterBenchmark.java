@@ -0,0 +1,75 @@
+package com.sapashev.threads;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.Monster;
+import com.sapashev.World;
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+
+/**
+ * Measures decision of the single monster where to go next.
+ * Each invocation takes the next monster of the list, so the whole board is sampled.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MonsterBenchmark {
+    @Param({"64", "512", "2048"})
+    public int size;
+
+    @Param({"0.01", "0.1", "0.5"})
+    public double density;
+
+    @Param({"CHEBYSHEV", "FLOW_FIELD"})
+    public DegreeType degree;
+
+    @Param({"CELLS", "COMPACT", "CHUNKED"})
+    public BoardType boardType;
+
+    private Board board;
+    private ThreadMonster threadMonster;
+    private List<Monster> monsters;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp () {
+        World world = new World(size, density, 0.05, degree, boardType);
+        monsters = world.monsters;
+        board = world.board;
+        threadMonster = new ThreadMonster.Builder(world.board, world.degree, world.freeCells, world.events, world.metrics)
+                .setMonsters(monsters, world.freecell).setRepeatPeriod(1).build();
+    }
+
+    private Monster nextMonster () {
+        if(++next == monsters.size()){
+            next = 0;
+        }
+        return monsters.get(next);
+    }
+
+    @Benchmark
+    public int chooseNextMove () {
+        return threadMonster.chooseNextMove(nextMonster());
+    }
+
+    @Benchmark
+    public int getNearbyCell () {
+        int host = nextMonster().getHostCell();
+        int cell = Board.NONE;
+        for (int direction = 0; direction < 4; direction++){
+            int nearby = board.getNearbyCell(host, direction);
+            if(nearby != Board.NONE){
+                cell = nearby;
+            }
+        }
+        return cell;
+    }
+}
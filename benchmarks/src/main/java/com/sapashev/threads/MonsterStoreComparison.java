@@ -0,0 +1,59 @@
+package com.sapashev.threads;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import com.sapashev.GameConfig;
+import com.sapashev.GameEngine;
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+import com.sapashev.metrics.EngineMetrics;
+
+/**
+ * Compares monsters kept as objects (SEQUENTIAL) with monsters kept in the MonsterStore (COMPACT)
+ * at growing quantity of monsters, a quarter of the compact board being occupied by them.
+ * Both games start from the same placement (same seed) and are stepped in lockstep for the same quantity of ticks,
+ * so they make the same moves. For each game prints heap retained by the engine (used heap after full gc
+ * with the engine minus used heap before it was built), mean, 99th percentile and maximum of the monster tick.
+ * Usage: java -Xmx4g -cp target/benchmarks.jar
+ *        com.sapashev.threads.MonsterStoreComparison [ticks] [monsters...]
+ */
+public class MonsterStoreComparison {
+    public static void main (String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int[] quantities = args.length > 1 ? new int[args.length - 1] : new int[]{250000, 1000000, 2000000};
+        for (int i = 1; i < args.length; i++){
+            quantities[i - 1] = Integer.parseInt(args[i]);
+        }
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.out.println(String.format("%-10s %-10s %10s %10s %10s %10s %10s", "monsters", "mode", "heap MB",
+                "mean ms", "p99 ms", "max ms", "moves"));
+        for (int quantity : quantities){
+            int size = (int) Math.ceil(Math.sqrt(4.0 * quantity));
+            for (MonsterMode mode : new MonsterMode[]{MonsterMode.SEQUENTIAL, MonsterMode.COMPACT}){
+                GameConfig config = new GameConfig(size, size, quantity, 1, size * size / 50)
+                        .setDegreeType(DegreeType.FLOW_FIELD)
+                        .setBoardType(BoardType.COMPACT)
+                        .setMonsterMode(mode)
+                        .setSeed(42L);
+                long before = usedAfterGc(memory);
+                try (GameEngine engine = new GameEngine(config)) {
+                    long retained = usedAfterGc(memory) - before;
+                    engine.step(ticks);
+                    EngineMetrics metrics = engine.getMetrics();
+                    System.out.println(String.format("%-10s %-10s %10s %10.1f %10.1f %10.1f %10s", quantity, mode,
+                            retained >> 20, metrics.getMonsterTickMean() / 1e6, metrics.getMonsterTickP99() / 1e6,
+                            metrics.getMonsterTickMax() / 1e6, metrics.getMoves()));
+                } catch (OutOfMemoryError e) {
+                    System.out.println(String.format("%-10s %-10s out of memory", quantity, mode));
+                }
+            }
+        }
+    }
+
+    private static long usedAfterGc (MemoryMXBean memory) {
+        System.gc();
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
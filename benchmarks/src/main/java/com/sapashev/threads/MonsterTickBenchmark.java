@@ -0,0 +1,98 @@
+package com.sapashev.threads;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.Monster;
+import com.sapashev.World;
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+
+/**
+ * Measures full monster tick (ThreadMonster.run) across board sizes, monster densities, heat maps, kinds of the board
+ * and number of fork/join workers (parallelism = 0 means sequential mode).
+ * Ticks/sec against parallelism is the scaling curve of the parallel mode.
+ * Secondary counters report moves per tick that changed the host cell of the monster (moved)
+ * and the ones that didn't (wasted), so heat maps can be compared by the share of wasted moves.
+ * World is rebuilt before each iteration, because monsters gather around the player with time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MonsterTickBenchmark {
+    @Param({"512", "2048"})
+    public int size;
+
+    @Param({"0.01", "0.1"})
+    public double density;
+
+    @Param({"CHEBYSHEV", "FLOW_FIELD"})
+    public DegreeType degree;
+
+    @Param({"CELLS", "COMPACT", "CHUNKED"})
+    public BoardType boardType;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private ThreadMonster threadMonster;
+    private List<Monster> monsters;
+    private int[] hosts;
+
+    /**
+     * Moves made by the monsters during the tick.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Moves {
+        public long moved;
+        public long wasted;
+    }
+
+    @Setup(Level.Trial)
+    public void setUpPool () {
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp () {
+        World world = new World(size, density, 0.05, degree, boardType);
+        monsters = world.monsters;
+        hosts = new int[monsters.size()];
+        threadMonster = new ThreadMonster.Builder(world.board, world.degree, world.freeCells, world.events, world.metrics)
+                .setMonsters(monsters, world.freecell).setRepeatPeriod(1).setPool(pool).build();
+    }
+
+    @Setup(Level.Invocation)
+    public void rememberHosts () {
+        for (int i = 0; i < hosts.length; i++){
+            hosts[i] = monsters.get(i).getHostCell();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown () {
+        if(pool != null){
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void tick (Moves moves) {
+        threadMonster.run();
+        for (int i = 0; i < hosts.length; i++){
+            if(hosts[i] == monsters.get(i).getHostCell()){
+                moves.wasted++;
+            } else {
+                moves.moved++;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.sapashev.threads;
+
+import com.sapashev.GameConfig;
+import com.sapashev.GameEngine;
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+import com.sapashev.metrics.EngineMetrics;
+
+/**
+ * Compares monsters competing for the cells by CAS only (SEQUENTIAL) with the two-phase tick (PLANNED)
+ * at growing density of the monsters. Both games start from the same placement (same seed) and are stepped
+ * in lockstep for the same quantity of ticks, so the difference is caused by the mode only.
+ * For each game prints moves per tick, stuck entries, CAS failures and mean duration of the monster tick.
+ * Usage: java -cp target/benchmarks.jar
+ *        com.sapashev.threads.MovePlanningComparison [size] [ticks] [repeat period]
+ */
+public class MovePlanningComparison {
+    private static final double[] DENSITIES = {0.01, 0.05, 0.1, 0.2, 0.4};
+
+    public static void main (String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int repeatPeriod = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        System.out.println(String.format("%-8s %-10s %12s %12s %12s %12s", "density", "mode", "moves/tick",
+                "stuck", "cas fails", "us/tick"));
+        for (double density : DENSITIES){
+            for (MonsterMode mode : new MonsterMode[]{MonsterMode.SEQUENTIAL, MonsterMode.PLANNED}){
+                GameConfig config = new GameConfig(size, size, (int) (size * size * density), repeatPeriod,
+                        size * size / 50)
+                        .setDegreeType(DegreeType.FLOW_FIELD)
+                        .setBoardType(BoardType.COMPACT)
+                        .setMonsterMode(mode)
+                        .setSeed(42L);
+                try (GameEngine engine = new GameEngine(config)) {
+                    engine.step(ticks);
+                    EngineMetrics metrics = engine.getMetrics();
+                    System.out.println(String.format("%-8s %-10s %12.1f %12s %12s %12.1f", density, mode,
+                            (double) metrics.getMoves() / ticks, metrics.getStuckEntries(),
+                            metrics.getCasFailures(), metrics.getMonsterTickMean() / 1e3));
+                }
+            }
+        }
+    }
+}
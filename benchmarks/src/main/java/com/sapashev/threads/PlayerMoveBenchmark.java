@@ -0,0 +1,48 @@
+package com.sapashev.threads;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.sapashev.TimingWheel;
+import com.sapashev.World;
+import com.sapashev.degree.DegreeType;
+
+/**
+ * Measures move of the player (ThreadPlayer.makeMove) including update of the heat map.
+ * For Chebyshev degree cost of the move should not grow with the area of the board.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlayerMoveBenchmark {
+    @Param({"64", "512", "2048", "4000"})
+    public int size;
+
+    @Param({"CHEBYSHEV", "FLOW_FIELD"})
+    public DegreeType degree;
+
+    private ThreadPlayer threadPlayer;
+    private int[] steps;
+    private int step;
+
+    @Setup(Level.Trial)
+    public void setUp () {
+        World world = new World(size, 0.001, 0.01, degree);
+        int host = world.player.getHostCell();
+        int next = (host + 1) % size != 0 ? host + 1 : host - 1;
+        world.put(next, world.freecell);
+        steps = new int[]{host, next};
+        threadPlayer = new ThreadPlayer(world.player, world.board, world.freecell, world.degree, world.freeCells,
+                new TimingWheel(world.board, 1), world.events, world.metrics);
+    }
+
+    @Benchmark
+    public boolean makeMove () {
+        step ^= 1;
+        return threadPlayer.makeMove(steps[step]);
+    }
+}
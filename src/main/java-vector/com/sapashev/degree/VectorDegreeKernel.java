@@ -0,0 +1,112 @@
+package com.sapashev.degree;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import com.sapashev.board.Board;
+
+/**
+ * Kernel built on the Vector API (jdk.incubator.vector), processes as many cells at once
+ * as the preferred vector of the CPU holds. Remainder which doesn't fill the whole vector is processed
+ * by the scalar kernel.
+ * Chebyshev distance is filled row by row: row distance is broadcast to all lanes,
+ * column distance is computed from the vector of consecutive columns.
+ * Nearby cells are chosen for the consecutive cells of the row at once: degrees of the left, right, above
+ * and below neighbours are plain vector loads shifted by one cell or by one row, so no gathers are needed.
+ * First and last cells of each row fall back to the scalar code.
+ * Compiled only with the vector profile and loaded only if JVM is started with --add-modules jdk.incubator.vector
+ * (see DegreeKernels).
+ */
+public class VectorDegreeKernel implements DegreeKernel {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final int LANES = INTS.length();
+    private final ScalarDegreeKernel scalar = new ScalarDegreeKernel();
+    private final IntVector iota = IntVector.zero(INTS).addIndex(1);
+
+    @Override
+    public void fillChebyshev (int[] field, int columns, int playerCell) {
+        int playerRow = playerCell / columns;
+        int playerColumn = playerCell % columns;
+        int bound = INTS.loopBound(columns);
+        for (int row = 0, start = 0; start < field.length; row++, start += columns){
+            int rowDistance = Math.abs(row - playerRow);
+            IntVector rows = IntVector.broadcast(INTS, rowDistance);
+            int column = 0;
+            for (; column < bound; column += LANES){
+                iota.add(column - playerColumn).abs().max(rows).intoArray(field, start + column);
+            }
+            for (; column < columns; column++){
+                field[start + column] = Math.max(rowDistance, Math.abs(column - playerColumn));
+            }
+        }
+    }
+
+    @Override
+    public void mergeChebyshev (int[] field, int columns, int playerCell) {
+        int playerRow = playerCell / columns;
+        int playerColumn = playerCell % columns;
+        int bound = INTS.loopBound(columns);
+        for (int row = 0, start = 0; start < field.length; row++, start += columns){
+            int rowDistance = Math.abs(row - playerRow);
+            IntVector rows = IntVector.broadcast(INTS, rowDistance);
+            int column = 0;
+            for (; column < bound; column += LANES){
+                IntVector degrees = iota.add(column - playerColumn).abs().max(rows);
+                IntVector.fromArray(INTS, field, start + column).min(degrees).intoArray(field, start + column);
+            }
+            for (; column < columns; column++){
+                int degree = Math.max(rowDistance, Math.abs(column - playerColumn));
+                field[start + column] = Math.min(field[start + column], degree);
+            }
+        }
+    }
+
+    /**
+     * Batch of the monsters is processed by the scalar kernel: lanes of the monsters need gathers
+     * of the nearby degrees, which are slower than scalar loads and unstable in the incubator API of JDK 17.
+     * Many monsters should use fillNearest instead.
+     */
+    @Override
+    public void argminNearby (int[] field, int columns, int[] hosts, int[] targets, int count) {
+        scalar.argminNearby(field, columns, hosts, targets, count);
+    }
+
+    @Override
+    public void fillNearest (int[] field, int columns, int[] nearest) {
+        int size = field.length;
+        IntVector none = IntVector.broadcast(INTS, Board.NONE);
+        IntVector unreachable = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        for (int start = 0; start < size; start += columns){
+            int column;
+            nearest[start] = ScalarDegreeKernel.nearest(field, columns, start);
+            for (column = 1; column + LANES < columns; column += LANES){
+                int cell = start + column;
+                IntVector cells = iota.add(cell);
+                IntVector best = IntVector.fromArray(INTS, field, cell - 1);
+                VectorMask<Integer> lower = best.compare(VectorOperators.LT, unreachable);
+                IntVector next = none.blend(cells.sub(1), lower);
+                IntVector degrees = IntVector.fromArray(INTS, field, cell + 1);
+                lower = degrees.compare(VectorOperators.LT, best);
+                next = next.blend(cells.add(1), lower);
+                best = best.min(degrees);
+                if(start > 0){
+                    degrees = IntVector.fromArray(INTS, field, cell - columns);
+                    lower = degrees.compare(VectorOperators.LT, best);
+                    next = next.blend(cells.sub(columns), lower);
+                    best = best.min(degrees);
+                }
+                if(start + columns < size){
+                    degrees = IntVector.fromArray(INTS, field, cell + columns);
+                    lower = degrees.compare(VectorOperators.LT, best);
+                    next = next.blend(cells.add(columns), lower);
+                }
+                next.intoArray(nearest, cell);
+            }
+            for (; column < columns; column++){
+                nearest[start + column] = ScalarDegreeKernel.nearest(field, columns, start + column);
+            }
+        }
+    }
+}
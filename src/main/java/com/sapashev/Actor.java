@@ -1,5 +1,7 @@
 package com.sapashev;
 
+import com.sapashev.board.Board;
+
 /**
  * Describes actor object (any object that could be placed to the cell and could do any actions,
  * e.g. player, monster, block, bomb, etc. Block considered as actor too.)
@@ -9,5 +11,5 @@ package com.sapashev;
  */
 public interface Actor {
     Type getType();
-    boolean move(Cell target, Actor oldActor, Actor newActor);
+    boolean move(Board board, int target, Actor oldActor, Actor newActor);
 }
@@ -1,5 +1,7 @@
 package com.sapashev;
 
+import com.sapashev.board.Board;
+
 /**
  * Describes block (forbidden) element of the board.
  * @author Arslan Sapashev
@@ -7,7 +9,7 @@ package com.sapashev;
  * @version 1.0
  */
 public class Block implements Actor{
-    private Cell hostCell;
+    private int hostCell = Board.NONE;
     private Type type = Type.BLOCK;
 
     /**
@@ -21,21 +23,22 @@ public class Block implements Actor{
 
     /**
      * Does nothing, due to immobility of blocks in this version.
+     * @param board
      * @param target
      * @param oldActor
      * @param newActor
      * @return
      */
     @Override
-    public boolean move (Cell target, Actor oldActor, Actor newActor) {
+    public boolean move (Board board, int target, Actor oldActor, Actor newActor) {
         return false;
     }
 
-    public Cell getHostCell (){
+    public int getHostCell (){
         return this.hostCell;
     }
 
-    public void setHostCell (Cell target){
+    public void setHostCell (int target){
         this.hostCell = target;
     }
 }
@@ -0,0 +1,52 @@
+package com.sapashev;
+
+import com.sapashev.board.Board;
+
+/**
+ * Describes bomb planted to the cell. Bomb is immobile, it explodes when it's explosion tick comes (see Detonator)
+ * or when it's reached by the blast of another bomb.
+ * hostCell - index of the cell occupied by the bomb.
+ * explosionTick - tick of the monsters at which the fuse burns out.
+ * exploded - bomb has exploded, before it's fuse burned out if it was reached by another blast.
+ */
+public class Bomb implements Actor {
+    private final int hostCell;
+    private final long explosionTick;
+    boolean exploded;
+    Bomb next;
+
+    /**
+     * @param hostCell - index of the cell occupied by the bomb.
+     * @param explosionTick - tick at which the bomb explodes.
+     */
+    public Bomb(int hostCell, long explosionTick){
+        this.hostCell = hostCell;
+        this.explosionTick = explosionTick;
+    }
+
+    /**
+     * Returns type of the actor.
+     * @return - Type.BOMB.
+     */
+    @Override
+    public Type getType () {
+        return Type.BOMB;
+    }
+
+    /**
+     * Does nothing, due to immobility of bombs.
+     * @return - false.
+     */
+    @Override
+    public boolean move (Board board, int target, Actor oldActor, Actor newActor) {
+        return false;
+    }
+
+    public int getHostCell () {
+        return hostCell;
+    }
+
+    public long getExplosionTick () {
+        return explosionTick;
+    }
+}
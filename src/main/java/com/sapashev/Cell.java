@@ -4,9 +4,9 @@ package com.sapashev;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Describes each cell of the game board.
+ * Describes each cell of the game board made of Cell objects (see CellBoard).
  * cell - cell on a playground
- * degree - determines proximity to the cell Type.PLAYER.
+ * waiters - monsters parked in the TimingWheel until this cell is released.
  * @author Arslan Sapashev
  * @since 15.12.2016
  * @version 1.0
@@ -15,13 +15,12 @@ public class Cell {
     public final AtomicReference<Actor> actor;
     private final int row;
     private final int column;
-    private volatile int degree;
+    private volatile Monster waiters;
 
     public Cell(int row, int column, Actor freecell){
         this.actor = new AtomicReference<>(freecell);
         this.row = row;
         this.column = column;
-        this.degree = 0;
     }
 
     /**
@@ -41,25 +40,19 @@ public class Cell {
     }
 
     /**
-     * Returns degree of the cell.
-     * @return - degree equal or greater than zero.
+     * Returns head of the list of monsters waiting for this cell.
+     * @return - first waiting monster, null if nobody waits.
      */
-    public int getDegree(){
-        return this.degree;
+    public Monster getWaiters(){
+        return this.waiters;
     }
 
     /**
-     * Sets degree of the cell. Degree should be equal or greater than zero.
-     * @param degree - degree to assign to the cell.
-     * @return - true - new value assigned, false - assignment failed.
+     * Sets head of the list of monsters waiting for this cell.
+     * @param waiters - first waiting monster, null if nobody waits.
      */
-    public boolean setDegree(int degree){
-        boolean isDone = false;
-        if(degree >= 0){
-            this.degree = degree;
-            isDone = true;
-        }
-        return isDone;
+    public void setWaiters(Monster waiters){
+        this.waiters = waiters;
     }
 
     @Override
@@ -0,0 +1,228 @@
+package com.sapashev;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.sapashev.board.Board;
+
+/**
+ * Describes index of the free cells of the board, which keeps every free cell.
+ * cells - indexes (row * columns + column) of the free cells, only first size elements are used.
+ * positions - position of each cell of the board in the cells array, -1 if cell is not free.
+ * Cell is removed by moving the last element of the array to it's position, so occupation, release
+ * and selection of the random free cell all take constant time, but the index takes 8 bytes per cell of the board.
+ * Moves of the actors are the most frequent changes and they are made by many threads at once, so move takes no lock:
+ * it only marks both cells in the bitmap of changed cells by CAS. Marked cells are put to the index or removed
+ * from it according to their actors on the board, when the index is read next time (size, getRandomCell),
+ * so moves made since then are applied in one batch under the lock whatever their order.
+ * Word of the bitmap which gets it's first mark is queued by the marking thread, so the read walks
+ * only the changed words and takes time proportional to the moves made since the last read, not to the board.
+ * Index follows the changes of the actors of the board, but it's updated after CAS on the cell,
+ * so the cell received from the index should be acquired by CAS as usual.
+ */
+public class DenseFreeCells implements FreeCells {
+    private final Board board;
+    private final int[] cells;
+    private final int[] positions;
+    private final Random random;
+    private final AtomicLongArray changed;
+    private final AtomicIntegerArray words;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+    private int size;
+
+    /**
+     * Collects all cells of the board with Type.FREECELL.
+     * @param board - board with cells.
+     * @param random - source of random numbers to select free cell.
+     */
+    public DenseFreeCells(Board board, Random random){
+        this.board = board;
+        this.cells = new int[board.size()];
+        this.positions = new int[board.size()];
+        this.random = random;
+        this.changed = new AtomicLongArray((board.size() + 63) >>> 6);
+        this.words = new AtomicIntegerArray(changed.length());
+        for (int i = 0; i < words.length(); i++){
+            words.set(i, -1);
+        }
+        for (int cell = 0; cell < cells.length; cell++){
+            if(board.getActor(cell).getType() == Type.FREECELL){
+                positions[cell] = size;
+                cells[size++] = cell;
+            } else {
+                positions[cell] = -1;
+            }
+        }
+    }
+
+    /**
+     * Returns quantity of free cells.
+     * @return - quantity of free cells.
+     */
+    @Override
+    public synchronized int size(){
+        apply();
+        return this.size;
+    }
+
+    /**
+     * Selects random cell among free cells.
+     * @return - index of the random free cell.
+     * @throws IllegalStateException - if there is no free cells.
+     */
+    @Override
+    public synchronized int getRandomCell(){
+        apply();
+        if(size == 0){
+            throw new IllegalStateException("There is no free cells on the board");
+        }
+        return cells[random.nextInt(size)];
+    }
+
+    /**
+     * Puts actor to the random free cell and removes that cell from the index.
+     * If selected cell has been occupied by someone else in the meantime, another cell is selected.
+     * @param freecell - reference to the freecell object.
+     * @param actor - actor to put on the board.
+     * @return - index of the cell occupied by the actor.
+     * @throws IllegalStateException - if there is no free cells.
+     */
+    @Override
+    public synchronized int occupyRandomCell(Actor freecell, Actor actor){
+        int cell = getRandomCell();
+        while (!board.compareAndSet(cell, freecell, actor)){
+            occupy(cell);
+            cell = getRandomCell();
+        }
+        occupy(cell);
+        return cell;
+    }
+
+    /**
+     * Removes cell from the index. Should be invoked after cell has been occupied.
+     * @param cell - index of the occupied cell.
+     */
+    @Override
+    public synchronized void occupy(int cell){
+        int position = positions[cell];
+        if(position >= 0){
+            int last = cells[--size];
+            cells[position] = last;
+            positions[last] = position;
+            positions[cell] = -1;
+        }
+    }
+
+    /**
+     * Adds cell to the index. Should be invoked after cell has been released.
+     * @param cell - index of the released cell.
+     */
+    @Override
+    public synchronized void release(int cell){
+        if(positions[cell] < 0){
+            positions[cell] = size;
+            cells[size++] = cell;
+        }
+    }
+
+    /**
+     * Marks both cells of the move as changed, index is updated when it's read next time.
+     * Should be invoked after the actor has been moved from one cell to another.
+     * @param from - index of the cell which has been left by actor.
+     * @param to - index of the cell to which actor has been moved.
+     */
+    @Override
+    public void move(int from, int to){
+        if(from != to){
+            mark(from);
+            mark(to);
+        }
+    }
+
+    /**
+     * Replaces occupied cells with released ones for the batch of moves under the single lock.
+     * Moves are applied right away in their order, so the batch should be made by the single thread.
+     * @param from - indexes of the cells which have been left by actors.
+     * @param to - indexes of the cells to which actors have been moved.
+     * @param count - quantity of the moves.
+     */
+    @Override
+    public synchronized void move(int[] from, int[] to, int count){
+        for (int i = 0; i < count; i++){
+            replace(from[i], to[i]);
+        }
+    }
+
+    /**
+     * Replaces occupied cell with released one: released cell takes position of the occupied cell in the array.
+     * @param from - index of the released cell.
+     * @param to - index of the occupied cell.
+     */
+    private void replace(int from, int to){
+        if(from == to){
+            return;
+        }
+        int position = positions[to];
+        if(position >= 0 && positions[from] < 0){
+            cells[position] = from;
+            positions[from] = position;
+            positions[to] = -1;
+        } else {
+            occupy(to);
+            release(from);
+        }
+    }
+
+    /**
+     * Sets bit of the cell in the bitmap of changed cells. Thread which sets the first bit of the word queues the word.
+     * Word is queued once until the read clears it, so the queue never holds more words than the bitmap has.
+     * @param cell - index of the cell.
+     */
+    private void mark(int cell){
+        int word = cell >>> 6;
+        long bit = 1L << cell;
+        long value = changed.get(word);
+        while ((value & bit) == 0){
+            if(changed.compareAndSet(word, value, value | bit)){
+                if(value == 0){
+                    words.set((int) (tail.getAndIncrement() % words.length()), word);
+                }
+                return;
+            }
+            value = changed.get(word);
+        }
+    }
+
+    /**
+     * Applies moves marked since the last read: each changed cell is put to the index if it's free on the board,
+     * otherwise it's removed from the index. Word is taken from the queue before it's bits are cleared,
+     * and bits are cleared before the cells are read, so the move made in the meantime queues the word again
+     * and it's applied by the next read. Word claimed, but not queued yet by the marking thread is left
+     * to the next read as well. Should be invoked under the lock.
+     */
+    private void apply(){
+        long last = tail.get();
+        while (head < last){
+            int slot = (int) (head % words.length());
+            int word = words.get(slot);
+            if(word < 0){
+                return;
+            }
+            words.set(slot, -1);
+            head++;
+            long bits = changed.getAndSet(word, 0);
+            while (bits != 0){
+                int cell = word << 6 | Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if(board.getActor(cell).getType() == Type.FREECELL){
+                    release(cell);
+                } else {
+                    occupy(cell);
+                }
+            }
+        }
+    }
+}
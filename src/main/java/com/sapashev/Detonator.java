@@ -0,0 +1,295 @@
+package com.sapashev;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sapashev.board.Board;
+import com.sapashev.board.CompactBoard;
+import com.sapashev.delta.DirtyCells;
+import com.sapashev.events.EventRing;
+import com.sapashev.events.Outcome;
+
+/**
+ * Describes bombs of the game: plants them and explodes them when their fuses burn out.
+ * Fuses are kept in the hashed wheel of the ticks, as stuck monsters in the TimingWheel: bomb is linked
+ * into the slot of it's explosion tick, so each tick looks at the bombs which explode at that tick only.
+ * Blast of the bomb spreads by cross from it's cell for radius cells in each direction, stops at the block
+ * and at the edge of the board, kills monsters on it's way and sets off the bomb which it reaches.
+ * Chain reaction is resolved by the single pass over the worklist of exploding bombs: each bomb enters
+ * the worklist once, so the pass takes time proportional to the quantity of exploding bombs and radius,
+ * not to the area of the board. Players aren't hurt by the blast in this version.
+ * Released cells are returned to the index of free cells, monsters waiting for them are woken up and cells are
+ * marked as changed, if changes are tracked. Killed monsters are published as game events (Outcome.KILLED),
+ * planted and exploded bombs are seen by the changes of the board only.
+ * Monsters of the MonsterStore are found by their cells, so bombs explode only after the store is sorted
+ * and before monsters move (see MonsterStore.isSorted), ThreadMonster does so at the start of the monster phase.
+ * Bomb could be planted while monsters move: plant and explosion are serialized by the lock of the detonator
+ * and the cell is taken by CAS, so the bomb either gets the free cell or fails, as the moving actor does.
+ */
+public class Detonator {
+    private final Board board;
+    private final Actor freecell;
+    private final FreeCells freeCells;
+    private final TimingWheel wheel;
+    private final MonsterStore store;
+    private final CompactBoard compactBoard;
+    private final EventRing events;
+    private final DirtyCells dirtyCells;
+    private final int fuse;
+    private final int radius;
+    private final Bomb[] slots;
+    private final int mask;
+    private final Map<Integer, Bomb> bombs = new HashMap<>();
+    private Bomb[] worklist = new Bomb[16];
+    private int[] killedCells = new int[16];
+    private int killed;
+    private long current;
+
+    /**
+     * @param board - board of the game.
+     * @param freecell - actor of the free cells.
+     * @param freeCells - index of free cells of the board.
+     * @param wheel - timing wheel of the parked monsters.
+     * @param store - monsters, null if monsters are objects.
+     * @param events - ring of the game events.
+     * @param dirtyCells - tracker of the changed cells, null if changes aren't tracked.
+     * @param fuse - quantity of ticks from planting of the bomb to it's explosion.
+     * @param radius - quantity of cells reached by the blast in each direction.
+     */
+    public Detonator(Board board, Actor freecell, FreeCells freeCells, TimingWheel wheel, MonsterStore store,
+                     EventRing events, DirtyCells dirtyCells, int fuse, int radius){
+        this.board = board;
+        this.freecell = freecell;
+        this.freeCells = freeCells;
+        this.wheel = wheel;
+        this.store = store;
+        this.compactBoard = store != null ? (CompactBoard) board : null;
+        this.events = events;
+        this.dirtyCells = dirtyCells;
+        this.fuse = fuse;
+        this.radius = radius;
+        int size = Integer.highestOneBit(fuse) << 1;
+        this.slots = new Bomb[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Plants the bomb to the free cell, it explodes in fuse ticks of the monsters.
+     * @param cell - index of the cell.
+     * @return - true - bomb planted, false - cell isn't free.
+     */
+    public synchronized boolean plant (int cell) {
+        Bomb bomb = new Bomb(cell, current + fuse);
+        if(!put(bomb)){
+            return false;
+        }
+        if(dirtyCells != null){
+            dirtyCells.mark(cell);
+        }
+        return true;
+    }
+
+    /**
+     * Puts restored bomb right to it's cell. Bombs of the same explosion tick should be restored
+     * in reverse order of getBombs, after the tick is set.
+     * @param cell - index of the cell.
+     * @param explosionTick - tick at which the bomb explodes.
+     * @throws IllegalArgumentException - if the cell isn't free.
+     */
+    synchronized void restore (int cell, long explosionTick) {
+        if(!put(new Bomb(cell, explosionTick))){
+            throw new IllegalArgumentException(String.format("Cell %s of the bomb isn't free", cell));
+        }
+    }
+
+    /**
+     * Sets current tick. Used to continue the game restored from the snapshot, before any bomb is restored.
+     * @param tick - current tick of the monsters.
+     */
+    public synchronized void setTick (long tick) {
+        this.current = tick;
+    }
+
+    /**
+     * Returns bombs which haven't exploded yet.
+     * @return - bombs in order of their explosion.
+     */
+    public synchronized List<Bomb> getBombs () {
+        List<Bomb> result = new ArrayList<>(bombs.size());
+        for (long t = current + 1; t <= current + slots.length; t++){
+            for (Bomb bomb = slots[(int) (t & mask)]; bomb != null; bomb = bomb.next){
+                if(!bomb.exploded && bomb.getExplosionTick() == t){
+                    result.add(bomb);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Explodes bombs which fuses burn out up to the tick, and all bombs reached by their blasts.
+     * @param tick - current tick of the monsters.
+     * @throws IllegalStateException - if monsters of the store have been moved since the last sort.
+     */
+    public synchronized void explode (long tick) {
+        if(store != null && !store.isSorted()){
+            throw new IllegalStateException("Monsters of the store should be sorted before bombs explode");
+        }
+        if(bombs.isEmpty()){
+            current = tick;
+            return;
+        }
+        int size = 0;
+        for (long t = Math.max(current + 1, tick - mask); t <= tick; t++){
+            int slot = (int) (t & mask);
+            Bomb bomb = slots[slot];
+            Bomb kept = null;
+            while (bomb != null){
+                Bomb next = bomb.next;
+                if(!bomb.exploded && bomb.getExplosionTick() <= tick){
+                    size = detonate(bomb, size);
+                } else if(!bomb.exploded){
+                    bomb.next = kept;
+                    kept = bomb;
+                }
+                bomb = next;
+            }
+            slots[slot] = kept;
+        }
+        current = tick;
+        for (int head = 0; head < size; head++){
+            size = blast(worklist[head].getHostCell(), size);
+            worklist[head] = null;
+        }
+        if(killed > 0){
+            killStored();
+        }
+    }
+
+    /**
+     * Puts the bomb to the board and links it into the slot of it's explosion tick.
+     * @param bomb - bomb.
+     * @return - true - bomb is put, false - cell isn't free.
+     */
+    private boolean put (Bomb bomb) {
+        int cell = bomb.getHostCell();
+        if(!board.compareAndSet(cell, freecell, bomb)){
+            return false;
+        }
+        freeCells.occupy(cell);
+        int slot = (int) (bomb.getExplosionTick() & mask);
+        bomb.next = slots[slot];
+        slots[slot] = bomb;
+        bombs.put(cell, bomb);
+        return true;
+    }
+
+    /**
+     * Removes the bomb from the board and adds it to the worklist. The bomb stays in the slot of the wheel,
+     * it's dropped when the slot comes.
+     * @param bomb - bomb which explodes.
+     * @param size - quantity of bombs in the worklist.
+     * @return - new quantity of bombs in the worklist.
+     */
+    private int detonate (Bomb bomb, int size) {
+        bomb.exploded = true;
+        bombs.remove(bomb.getHostCell());
+        board.compareAndSet(bomb.getHostCell(), bomb, freecell);
+        release(bomb.getHostCell());
+        if(size == worklist.length){
+            worklist = Arrays.copyOf(worklist, size * 2);
+        }
+        worklist[size] = bomb;
+        return size + 1;
+    }
+
+    /**
+     * Spreads blast of the bomb in four directions.
+     * @param center - cell of the bomb.
+     * @param size - quantity of bombs in the worklist.
+     * @return - new quantity of bombs in the worklist.
+     */
+    private int blast (int center, int size) {
+        for (int direction = 0; direction < 4; direction++){
+            int cell = center;
+            for (int step = 0; step < radius; step++){
+                cell = board.getNearbyCell(cell, direction);
+                if(cell == Board.NONE){
+                    break;
+                }
+                Actor actor = board.getActor(cell);
+                Type type = actor.getType();
+                if(type == Type.BLOCK){
+                    break;
+                }
+                if(type == Type.BOMB){
+                    Bomb bomb = bombs.get(cell);
+                    if(bomb != null){
+                        size = detonate(bomb, size);
+                    }
+                    break;
+                }
+                if(type == Type.MONSTER){
+                    kill(cell, actor);
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes monster from the board. Monster object leaves the timing wheel and forgets it's cell,
+     * monster of the store is only remembered, it's removed from the store when the pass is over,
+     * because the store is searched by cells until then.
+     * @param cell - cell of the monster.
+     * @param actor - monster.
+     */
+    private void kill (int cell, Actor actor) {
+        if(store != null){
+            compactBoard.release(cell);
+            if(killed == killedCells.length){
+                killedCells = Arrays.copyOf(killedCells, killed * 2);
+            }
+            killedCells[killed++] = cell;
+        } else {
+            Monster monster = (Monster) actor;
+            if(!board.compareAndSet(cell, monster, freecell)){
+                return;
+            }
+            wheel.expire(monster);
+            monster.setHostCell(Board.NONE);
+            events.publish(monster.getId(), cell, Board.NONE, current, Outcome.KILLED);
+        }
+        release(cell);
+    }
+
+    /**
+     * Removes monsters of the store killed during the pass: finds all of them first, then kills.
+     */
+    private void killStored () {
+        for (int i = 0; i < killed; i++){
+            int slot = store.find(killedCells[i]);
+            events.publish(store.getId(slot), killedCells[i], Board.NONE, current, Outcome.KILLED);
+            killedCells[i] = slot;
+        }
+        for (int i = 0; i < killed; i++){
+            store.kill(killedCells[i]);
+        }
+        killed = 0;
+    }
+
+    /**
+     * Returns released cell to the index of free cells, wakes up monsters waiting for it and marks it as changed.
+     * @param cell - index of the released cell.
+     */
+    private void release (int cell) {
+        freeCells.release(cell);
+        wheel.wake(cell);
+        if(dirtyCells != null){
+            dirtyCells.mark(cell);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.sapashev;
+
+/**
+ * Describes index of the free cells of the board, used to put actors to the random free cells.
+ * Index follows the changes of the actors of the board, but it's updated after CAS on the cell,
+ * so the cell received from the index should be acquired by CAS as usual.
+ */
+public interface FreeCells {
+    /**
+     * Returns quantity of free cells.
+     * @return - quantity of free cells.
+     */
+    int size();
+
+    /**
+     * Selects random cell among free cells.
+     * @return - index of the random free cell.
+     * @throws IllegalStateException - if there is no free cells.
+     */
+    int getRandomCell();
+
+    /**
+     * Puts actor to the random free cell and removes that cell from the index.
+     * If selected cell has been occupied by someone else in the meantime, another cell is selected.
+     * @param freecell - reference to the freecell object.
+     * @param actor - actor to put on the board.
+     * @return - index of the cell occupied by the actor.
+     * @throws IllegalStateException - if there is no free cells.
+     */
+    int occupyRandomCell(Actor freecell, Actor actor);
+
+    /**
+     * Removes cell from the index. Should be invoked after cell has been occupied.
+     * @param cell - index of the occupied cell.
+     */
+    void occupy(int cell);
+
+    /**
+     * Adds cell to the index. Should be invoked after cell has been released.
+     * @param cell - index of the released cell.
+     */
+    void release(int cell);
+
+    /**
+     * Replaces occupied cell with released one in the index. Should be invoked after the actor
+     * has been moved from one cell to another.
+     * @param from - index of the cell which has been left by actor.
+     * @param to - index of the cell to which actor has been moved.
+     */
+    void move(int from, int to);
+
+    /**
+     * Replaces occupied cells with released ones for the batch of moves, as move does for each of them.
+     * @param from - indexes of the cells which have been left by actors.
+     * @param to - indexes of the cells to which actors have been moved.
+     * @param count - quantity of the moves.
+     */
+    default void move(int[] from, int[] to, int count){
+        for (int i = 0; i < count; i++){
+            move(from[i], to[i]);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.sapashev;
 
+import com.sapashev.board.Board;
+
 /**
  * Describes free cell on the board.
  * @author Arslan Sapashev
@@ -18,13 +20,14 @@ public class Freecell implements Actor {
 
     /**
      * Does nothing, due to the immobility of free cells.
+     * @param board
      * @param target
      * @param oldActor
      * @param newActor
      * @return
      */
     @Override
-    public boolean move (Cell target, Actor oldActor, Actor newActor) {
+    public boolean move (Board board, int target, Actor oldActor, Actor newActor) {
         return false;
     }
 
@@ -1,201 +1,180 @@
 package com.sapashev;
 
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+import com.sapashev.events.Backpressure;
+import com.sapashev.events.ChecksumSink;
+import com.sapashev.events.EventDrainer;
+import com.sapashev.events.EventRing;
+import com.sapashev.events.LoggingSink;
+import com.sapashev.metrics.EngineMetrics;
+import com.sapashev.replay.JournalWriter;
+import com.sapashev.threads.MonsterMode;
 import com.sapashev.threads.ThreadMonster;
-import com.sapashev.threads.ThreadPlayer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.JMException;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalTime;
-import java.util.*;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
- * Describes main thread.
+ * Describes main thread. Parses command line arguments, plays the game by GameEngine and logs the results.
+ * Game lasts until the player is captured, but not longer than GAME_DURATION.
  * @author Arslan Sapashev
  * @since 15.12.2016
  * @version 1.0
  */
 public class Game {
+    /**
+     * Maximum duration of the game in milliseconds.
+     */
+    public static final long GAME_DURATION = 10000;
+    /**
+     * Quantity of ticks between keyframes of the journal.
+     */
+    public static final int KEYFRAME_INTERVAL = 10;
+
     public static void main (String[] args) {
         new Game().start(args);
 
     }
 
     private void start (String[] args) {
-        int rows = Integer.parseInt(args[0]);
-        int columns = Integer.parseInt(args[1]);
-        int monstersCount = Integer.parseInt(args[2]);
-        int repeatPeriod = Integer.parseInt(args[3]);
-        int blocks = Integer.parseInt(args[4]);
-        Actor freecell = new Freecell();
         final Logger LOG = LoggerFactory.getLogger(Game.class);
-
-        //Checks the passed arguments
-        checkArguments(rows,columns,monstersCount, blocks);
-        //Creates game board
-        Cell[][] board = createBoard(rows, columns, freecell);
-        //Creates and puts blocks on the board
-        putBlocks(createBlocks(blocks),board,freecell);
-        //Creates and puts monsters on the board
-        List<Monster> monsters = createMonsters(monstersCount);
-        putMonsters(monsters,board,freecell);
-        //Creates and puts player on the board
-        Player player = new Player();
-        putPlayer(player, board, freecell);
-
-        ScheduledExecutorService service = Executors.newScheduledThreadPool(2);
-        ScheduledFuture<?> futurePlayer = service.scheduleAtFixedRate(new ThreadPlayer(player, board, freecell), 1, 100, TimeUnit.MILLISECONDS);
-        ScheduledFuture<?> futureMonster = service.scheduleAtFixedRate(new ThreadMonster(board, monsters,repeatPeriod, freecell),1,100, TimeUnit.MILLISECONDS);
-
-        try {
-            Thread.sleep(10000);
-        } catch (InterruptedException e) {
-            LOG.error(String.format("InterruptedException occurred at %s", LocalTime.now()),e);
+        GameConfig config = parseArguments(args);
+        if(config.getSeed() != null && config.getMonsterMode() != MonsterMode.SEQUENTIAL
+                && config.getMonsterMode() != MonsterMode.PLANNED && config.getMonsterMode() != MonsterMode.COMPACT){
+            throw new IllegalArgumentException("Deterministic mode supports sequential, planned or compact monsters only");
         }
-        futurePlayer.cancel(false);
-        futureMonster.cancel(false);
-        service.shutdownNow();
-    }
 
-    /**
-     * Generates list of new monsters.
-     * @param quantity - number of monsters on the board
-     */
-    private List<Monster> createMonsters (int quantity) {
-        return Stream.generate(Monster::new).limit(quantity).collect(Collectors.toList());
-    }
+        try (GameEngine engine = new GameEngine(config)) {
+            //Drains game events to the log in the separate thread.
+            //Deterministic game never drops events and folds them into the checksum of the board history.
+            EventRing events = engine.getEvents();
+            EventDrainer logging = new EventDrainer(events.newReader(), new LoggingSink(config.getColumns()));
+            Thread loggingThread = new Thread(logging, "events-logging");
+            loggingThread.start();
+            ChecksumSink checksum = new ChecksumSink();
+            EventDrainer checksumDrainer = new EventDrainer(events.newReader(), checksum);
+            Thread checksumThread = new Thread(checksumDrainer, "events-checksum");
+            checksumThread.start();
+            //Records the game to the journal, if it's path is given.
+            JournalWriter journal = null;
+            EventDrainer journalDrainer = null;
+            Thread journalThread = null;
+            if(args.length > 9 && !args[9].equals("-")){
+                try {
+                    journal = new JournalWriter(Paths.get(args[9]), engine, KEYFRAME_INTERVAL);
+                    journalDrainer = new EventDrainer(events.newReader(), journal);
+                    journalThread = new Thread(journalDrainer, "events-journal");
+                    journalThread.start();
+                } catch (IOException e) {
+                    LOG.warn(String.format("Game isn't recorded to %s", args[9]), e);
+                }
+            }
 
-    /**
-     * Fills up board with cells
-     * @param rows - number of rows on the board.
-     * @param columns - number of columns on the board.
-     * @param freecell - object that will be assigned to each cell by default.
-     * @return - filled up board.
-     */
-    private Cell[][] createBoard (int rows, int columns, Actor freecell) {
-        Cell[][] board = new Cell[rows][columns];
-        for (int x = 0; x < rows; x++){
-            for (int y = 0; y < columns; y++){
-                board[x][y] = new Cell(x,y, freecell);
-                board[x][y].actor.set(freecell);
+            //Exposes metrics of the engine over JMX and logs them each second
+            EngineMetrics metrics = engine.getMetrics();
+            try {
+                metrics.register();
+            } catch (JMException e) {
+                LOG.warn("Metrics aren't exposed over JMX", e);
+            }
+            ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+            reporter.scheduleAtFixedRate(() -> LOG.info(metrics.snapshot().toString()), 1, 1, TimeUnit.SECONDS);
+
+            try {
+                CompletableFuture<Long> capture = engine.getCapture();
+                if(config.getSeed() != null){
+                    //Deterministic game makes the same quantity of ticks as the timed one at most, but as fast as possible
+                    long ticks = GAME_DURATION / ThreadMonster.TICK_PERIOD;
+                    while (engine.getTick() < ticks && !capture.isDone()){
+                        engine.step();
+                    }
+                } else {
+                    engine.start();
+                    try {
+                        capture.get(GAME_DURATION, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        //Nobody has been captured, game ends by time
+                    }
+                    if(!engine.stop(1000)){
+                        LOG.warn("Game threads haven't stopped in time");
+                    }
+                }
+                if(capture.isDone()){
+                    LOG.info(String.format("Player captured at tick %s", capture.join()));
+                } else {
+                    LOG.info(String.format("Player hasn't been captured in %s ticks", engine.getTick()));
+                }
+                reporter.shutdown();
+                logging.stop();
+                loggingThread.join();
+                checksumDrainer.stop();
+                checksumThread.join();
+                if(journal != null){
+                    journalDrainer.stop();
+                    journalThread.join();
+                    try {
+                        journal.close();
+                        LOG.info(String.format("Game recorded to %s", args[9]));
+                    } catch (IOException e) {
+                        LOG.warn(String.format("Journal %s isn't completed", args[9]), e);
+                    }
+                }
+                LOG.info(String.format("Board history checksum: %016x of %s game events", checksum.getChecksum(), checksum.getCount()));
+                if(events.getDropped() > 0){
+                    LOG.warn(String.format("%s of %s game events dropped", events.getDropped(), events.getDropped() + events.getCursor()));
+                }
+            } catch (InterruptedException e) {
+                LOG.error(String.format("InterruptedException occurred at %s", LocalTime.now()),e);
+                reporter.shutdownNow();
+            } catch (ExecutionException e) {
+                LOG.error("Capture of the player failed", e);
+                reporter.shutdownNow();
+            }
+            LOG.info(String.format("Final metrics: %s", metrics.snapshot()));
+            try {
+                metrics.unregister();
+            } catch (JMException e) {
+                LOG.warn("Metrics aren't unregistered from JMX", e);
             }
         }
-        return board;
-    }
-
-    /**
-     * Creates list of blocks generated by stream.
-     * @param quantity - length of list.
-     * @return - list of blocks.
-     */
-    private List<Block> createBlocks(int quantity){
-        return Stream.generate(Block::new).limit(quantity).collect(Collectors.toList());
     }
 
     /**
-     * Puts player to the random free cell
-     * @param board - board with cells
-     * @param freecell - reference to the freecell object
+     * Creates config of the game from the command line arguments:
+     * rows, columns, monsters, repeat period, blocks, [heat map type], [monster mode], [board type], [seed or -],
+     * [journal or -], [players].
+     * @param args - command line arguments.
+     * @return - config of the game.
      */
-    private void putPlayer (Player player, Cell[][] board, Actor freecell){
-        player.setHostCell(getRandomCell(getFreeCells(board)));
-        player.getHostCell().actor.compareAndSet(freecell, player);
-    }
-
-    /**
-     * Puts blocks (forbidden cells) on the board.
-     * @param blocks - list of blocks
-     * @param board - board with cells
-     */
-    private void putBlocks(List<Block> blocks, Cell[][] board, Actor freecell){
-        for (Block b : blocks){
-            b.setHostCell(getRandomCell(getFreeCells(board)));
-            b.getHostCell().actor.compareAndSet(freecell, b);
+    GameConfig parseArguments (String[] args) {
+        GameConfig config = new GameConfig(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+        if(args.length > 5){
+            config.setDegreeType(DegreeType.valueOf(args[5].toUpperCase()));
         }
-    }
-
-    /**
-     * Puts monsters on the board
-     * @param monsters - list of monsters
-     * @param board - board
-     * @param freecell - freecell
-     */
-    private void putMonsters(List<Monster> monsters, Cell[][] board, Actor freecell){
-        for(Monster m : monsters){
-            m.setHostCell(getRandomCell(getFreeCells(board)));
-            m.getHostCell().actor.compareAndSet(freecell, m);
+        if(args.length > 6){
+            config.setMonsterMode(MonsterMode.valueOf(args[6].toUpperCase()));
         }
-    }
-
-    /**
-     * Returns list of free cells on the board
-     * @param board - board with cells
-     * @return - list of free cells
-     */
-    private List<Cell> getFreeCells(Cell[][] board){
-        return Arrays.stream(board).flatMap(cells -> Arrays.stream(cells)).
-                filter(cell -> cell.actor.get().getType() == Type.FREECELL).collect(Collectors.toList());
-    }
-
-    /**
-     * Selects random cell from the list of free cells.
-     * @param cells - list of free cells
-     * @return - random free cell
-     */
-    private Cell getRandomCell(List<Cell> cells){
-        return cells.get(new Random().nextInt(cells.size()));
-    }
-
-    /**
-     * Checks the passed arguments for consistency.
-     * @param rows - quantity of  rows
-     * @param columns - quantity of columns
-     * @param monsters - quantity of monsters
-     * @param blocks - quantity of blocks
-     */
-    private void checkArguments(int rows, int columns, int monsters, int blocks){
-        checkRowColumnsArguments(rows, columns);
-        checkMonstersArguments(rows, columns, monsters, blocks);
-        checkBlocksArgument(rows, columns, blocks);
-    }
-
-    /**
-     * Throws IllegalArgumentException if quantity of blocks is less than zero or
-     * quantity of blocks is greater than 1/15 of total cells on board.
-     * @param rows - quantity of rows on board
-     * @param columns - quantity of  columns on board
-     * @param blocks - quantity of blocks on board
-     */
-    private void checkBlocksArgument (int rows, int columns, int blocks) {
-        if(blocks >= ((rows * columns)/15) || blocks <= 0){
-            throw new IllegalArgumentException("Illegal blocks quantity");
+        if(args.length > 7){
+            config.setBoardType(BoardType.valueOf(args[7].toUpperCase()));
         }
-    }
-
-    /**
-     * Throws IllegalArgumentException if quantity of monsters is less than zero or
-     * greater than quantity of cells minus sum of blocks and player cells.
-     * @param rows - rows on the board
-     * @param columns - columns on the board
-     * @param monsters - quantity of monsters
-     * @param blocks - quantity of blocks
-     */
-    private void checkMonstersArguments (int rows, int columns, int monsters, int blocks) {
-        if(monsters <= 0 || monsters >= ((rows * columns)-1-blocks)){
-            throw new IllegalArgumentException("Illegal monsters quantity");
+        if(args.length > 8 && !args[8].equals("-")){
+            config.setSeed(Long.valueOf(args[8]));
         }
-    }
-
-    /**
-     * Throws IllegalArgumentException if quantity of rows or columns less than or equal to one.
-     * @param rows - quantity of rows on board
-     * @param columns - quantity of columns on board
-     */
-    private void checkRowColumnsArguments (int rows, int columns) {
-        if(rows <= 1 || columns <= 1){
-            throw new IllegalArgumentException("Wrong quantity of rows/columns on board");
+        if(args.length > 9 && !args[9].equals("-")){
+            //Journal has to record every event, so writers wait for it's reader instead of dropping
+            config.setBackpressure(Backpressure.WAIT);
+        }
+        if(args.length > 10){
+            config.setPlayers(Integer.parseInt(args[10]));
         }
+        return config;
     }
 }
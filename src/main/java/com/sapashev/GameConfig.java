@@ -0,0 +1,256 @@
+package com.sapashev;
+
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+import com.sapashev.events.Backpressure;
+import com.sapashev.threads.MonsterMode;
+
+/**
+ * Describes parameters of the game. Required parameters are passed to the constructor and checked for consistency,
+ * optional ones have defaults and could be changed by setters, which return the config itself.
+ * rows, columns - size of the board.
+ * monsters, blocks - quantity of monsters and blocks on the board.
+ * players - quantity of players, 1 by default.
+ * repeatPeriod - period in seconds during which monster repeats attempts to get the failed cell.
+ * degreeType - kind of the heat map, CHEBYSHEV by default.
+ * monsterMode - how monsters are moved by the running engine, SEQUENTIAL by default.
+ * boardType - kind of the board, CELLS by default.
+ * seed - seed of the random placement, null (unseeded) by default.
+ * backpressure - behaviour of the writers when the ring of events is full, WAIT for the seeded game, DROP otherwise.
+ * bombFuse - quantity of ticks from planting of the bomb to it's explosion, 30 by default.
+ * bombRadius - quantity of cells reached by the blast of the bomb in each direction, 2 by default.
+ */
+public class GameConfig {
+    private final int rows;
+    private final int columns;
+    private final int monsters;
+    private final int repeatPeriod;
+    private final int blocks;
+    private int players = 1;
+    private DegreeType degreeType = DegreeType.CHEBYSHEV;
+    private MonsterMode monsterMode = MonsterMode.SEQUENTIAL;
+    private BoardType boardType = BoardType.CELLS;
+    private Long seed;
+    private Backpressure backpressure;
+    private boolean trackChanges;
+    private int bombFuse = 30;
+    private int bombRadius = 2;
+
+    /**
+     * @param rows - quantity of rows.
+     * @param columns - quantity of columns.
+     * @param monsters - quantity of monsters.
+     * @param repeatPeriod - repeat period in seconds.
+     * @param blocks - quantity of blocks.
+     * @throws IllegalArgumentException - if parameters are inconsistent.
+     */
+    public GameConfig(int rows, int columns, int monsters, int repeatPeriod, int blocks){
+        checkArguments(rows, columns, monsters, blocks);
+        this.rows = rows;
+        this.columns = columns;
+        this.monsters = monsters;
+        this.repeatPeriod = repeatPeriod;
+        this.blocks = blocks;
+    }
+
+    public int getRows () {
+        return rows;
+    }
+
+    public int getColumns () {
+        return columns;
+    }
+
+    public int getMonsters () {
+        return monsters;
+    }
+
+    public int getRepeatPeriod () {
+        return repeatPeriod;
+    }
+
+    public int getBlocks () {
+        return blocks;
+    }
+
+    public int getPlayers () {
+        return players;
+    }
+
+    /**
+     * Sets quantity of players, monsters chase the nearest of them.
+     * @param players - quantity of players.
+     * @return - config.
+     * @throws IllegalArgumentException - if there are no players or not enough free cells for them.
+     */
+    public GameConfig setPlayers (int players) {
+        if(players <= 0 || players >= rows * columns - monsters - blocks){
+            throw new IllegalArgumentException("Illegal players quantity");
+        }
+        this.players = players;
+        return this;
+    }
+
+    public DegreeType getDegreeType () {
+        return degreeType;
+    }
+
+    public GameConfig setDegreeType (DegreeType degreeType) {
+        this.degreeType = degreeType;
+        return this;
+    }
+
+    public MonsterMode getMonsterMode () {
+        return monsterMode;
+    }
+
+    public GameConfig setMonsterMode (MonsterMode monsterMode) {
+        this.monsterMode = monsterMode;
+        return this;
+    }
+
+    public BoardType getBoardType () {
+        return boardType;
+    }
+
+    public GameConfig setBoardType (BoardType boardType) {
+        this.boardType = boardType;
+        return this;
+    }
+
+    /**
+     * Returns seed of the random placement.
+     * @return - seed, null if placement is not seeded.
+     */
+    public Long getSeed () {
+        return seed;
+    }
+
+    public GameConfig setSeed (Long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Returns behaviour of the writers when the ring of events is full. Unless it's set explicitly,
+     * seeded game never loses events and unseeded one never waits for readers.
+     * @return - backpressure of the ring of events.
+     */
+    public Backpressure getBackpressure () {
+        if(backpressure != null){
+            return backpressure;
+        }
+        return seed != null ? Backpressure.WAIT : Backpressure.DROP;
+    }
+
+    /**
+     * Sets behaviour of the writers when the ring of events is full,
+     * e.g. WAIT if every event should be recorded (see JournalWriter).
+     * @param backpressure - backpressure, null - default one.
+     * @return - config.
+     */
+    public GameConfig setBackpressure (Backpressure backpressure) {
+        this.backpressure = backpressure;
+        return this;
+    }
+
+    /**
+     * Returns true if engine publishes cells changed during each tick (see GameEngine.addDeltaListener).
+     * @return - true - changes are tracked, false - otherwise.
+     */
+    public boolean isTrackChanges () {
+        return trackChanges;
+    }
+
+    public GameConfig setTrackChanges (boolean trackChanges) {
+        this.trackChanges = trackChanges;
+        return this;
+    }
+
+    public int getBombFuse () {
+        return bombFuse;
+    }
+
+    /**
+     * Sets quantity of ticks from planting of the bomb to it's explosion.
+     * @param bombFuse - quantity of ticks.
+     * @return - config.
+     * @throws IllegalArgumentException - if fuse is not positive.
+     */
+    public GameConfig setBombFuse (int bombFuse) {
+        if(bombFuse <= 0){
+            throw new IllegalArgumentException("Illegal bomb fuse");
+        }
+        this.bombFuse = bombFuse;
+        return this;
+    }
+
+    public int getBombRadius () {
+        return bombRadius;
+    }
+
+    /**
+     * Sets quantity of cells reached by the blast of the bomb in each direction.
+     * @param bombRadius - radius of the blast.
+     * @return - config.
+     * @throws IllegalArgumentException - if radius is not positive.
+     */
+    public GameConfig setBombRadius (int bombRadius) {
+        if(bombRadius <= 0){
+            throw new IllegalArgumentException("Illegal bomb radius");
+        }
+        this.bombRadius = bombRadius;
+        return this;
+    }
+
+    /**
+     * Checks the passed arguments for consistency.
+     * @param rows - quantity of  rows
+     * @param columns - quantity of columns
+     * @param monsters - quantity of monsters
+     * @param blocks - quantity of blocks
+     */
+    private void checkArguments(int rows, int columns, int monsters, int blocks){
+        checkRowColumnsArguments(rows, columns);
+        checkMonstersArguments(rows, columns, monsters, blocks);
+        checkBlocksArgument(rows, columns, blocks);
+    }
+
+    /**
+     * Throws IllegalArgumentException if quantity of blocks is less than zero or
+     * quantity of blocks is greater than 1/15 of total cells on board.
+     * @param rows - quantity of rows on board
+     * @param columns - quantity of  columns on board
+     * @param blocks - quantity of blocks on board
+     */
+    private void checkBlocksArgument (int rows, int columns, int blocks) {
+        if(blocks >= ((rows * columns)/15) || blocks <= 0){
+            throw new IllegalArgumentException("Illegal blocks quantity");
+        }
+    }
+
+    /**
+     * Throws IllegalArgumentException if quantity of monsters is less than zero or
+     * greater than quantity of cells minus sum of blocks and player cells.
+     * @param rows - rows on the board
+     * @param columns - columns on the board
+     * @param monsters - quantity of monsters
+     * @param blocks - quantity of blocks
+     */
+    private void checkMonstersArguments (int rows, int columns, int monsters, int blocks) {
+        if(monsters <= 0 || monsters >= ((rows * columns)-1-blocks)){
+            throw new IllegalArgumentException("Illegal monsters quantity");
+        }
+    }
+
+    /**
+     * Throws IllegalArgumentException if quantity of rows or columns less than or equal to one.
+     * @param rows - quantity of rows on board
+     * @param columns - quantity of columns on board
+     */
+    private void checkRowColumnsArguments (int rows, int columns) {
+        if(rows <= 1 || columns <= 1){
+            throw new IllegalArgumentException("Wrong quantity of rows/columns on board");
+        }
+    }
+}
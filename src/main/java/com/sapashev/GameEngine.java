@@ -0,0 +1,597 @@
+package com.sapashev;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.sapashev.board.Board;
+import com.sapashev.board.CompactBoard;
+import com.sapashev.degree.DegreeField;
+import com.sapashev.delta.DeltaListener;
+import com.sapashev.delta.DirtyCells;
+import com.sapashev.events.EventRing;
+import com.sapashev.metrics.EngineMetrics;
+import com.sapashev.threads.LockstepTicker;
+import com.sapashev.threads.MonsterAgents;
+import com.sapashev.threads.MonsterMode;
+import com.sapashev.threads.MovePlanner;
+import com.sapashev.threads.ThreadMonster;
+import com.sapashev.threads.ThreadPlayer;
+
+/**
+ * Describes game which could be embedded into another application: board with blocks, monsters and players
+ * built from the config, and the threads which move them. With several players monsters chase the nearest one.
+ * First player has id Player.ID, the rest of the players are numbered after the monsters.
+ * Engine is either stepped by the caller (step, runFor), tick by tick in the calling thread as fast as possible,
+ * without any scheduler, or started to play in real time, one tick per ThreadMonster.TICK_PERIOD
+ * in the threads of the engine (start, stop). Stepping is deterministic if placement is seeded
+ * and monsters are moved sequentially.
+ * Lifecycle: IDLE - engine could be stepped or started, RUNNING - engine plays in real time,
+ * CLOSED - threads of the engine are released, engine can't be used anymore.
+ * Readers of the game events should be created (getEvents().newReader()) before the first tick.
+ * If changes are tracked, cells changed during each tick are passed to the delta listeners at the end of the tick.
+ * In MonsterMode.COMPACT monsters are kept in the MonsterStore instead of Monster objects.
+ * Bombs planted by plantBomb explode at the start of the monster phase (see Detonator) and kill monsters,
+ * killed monster stays in the list (store), but has no cell.
+ * Capture of the player is detected by the moves themselves and completes the future of the capture
+ * (getCapture), so the caller could wait for the end of the game instead of polling the board.
+ */
+public class GameEngine implements AutoCloseable {
+    /**
+     * Describes state of the engine.
+     */
+    public enum State {
+        IDLE, RUNNING, CLOSED
+    }
+
+    private static final int EVENTS = 1 << 16;
+    private final GameConfig config;
+    private final Actor freecell = new Freecell();
+    private final Board board;
+    private final FreeCells freeCells;
+    private final List<Block> blocks;
+    private final List<Monster> monsters;
+    private final MonsterStore store;
+    private final List<Player> players;
+    private final DegreeField degree;
+    private final EventRing events;
+    private final EngineMetrics metrics = new EngineMetrics(ThreadMonster.TICK_PERIOD);
+    private final DirtyCells dirtyCells;
+    private final ForkJoinPool pool;
+    private final ThreadMonster threadMonster;
+    private final ThreadPlayer threadPlayer;
+    private final Detonator detonator;
+    private final CompletableFuture<Long> capture = new CompletableFuture<>();
+    private final LockstepTicker ticker;
+    private volatile State state = State.IDLE;
+    private ScheduledExecutorService service;
+    private MonsterAgents agents;
+
+    /**
+     * Creates board, puts blocks, monsters and players to the random free cells and creates heat map.
+     * @param config - parameters of the game.
+     */
+    public GameEngine(GameConfig config){
+        this(config, null);
+    }
+
+    /**
+     * Creates board and either puts actors to the random free cells, or restores them from the snapshot.
+     * Restored actors are put right to their cells and heat map is restored without search.
+     * @param config - parameters of the game.
+     * @param snapshot - snapshot of the game or null.
+     * @throws IllegalArgumentException - if monsters are kept in the store, but the board is not compact.
+     */
+    private GameEngine(GameConfig config, Snapshot snapshot){
+        this.config = config;
+        Random random = config.getSeed() != null ? new Random(config.getSeed()) : new Random();
+        this.board = config.getBoardType().create(config.getRows(), config.getColumns(), freecell);
+        this.freeCells = config.getBoardType().createFreeCells(board, random);
+        this.blocks = createBlocks(config.getBlocks());
+        if(config.getMonsterMode() == MonsterMode.COMPACT){
+            if(!(board instanceof CompactBoard)){
+                throw new IllegalArgumentException("Compact monsters require compact board");
+            }
+            this.monsters = Collections.emptyList();
+            this.store = new MonsterStore(config.getMonsters());
+        } else {
+            this.monsters = createMonsters(config.getMonsters());
+            this.store = null;
+        }
+        this.players = createPlayers(config.getPlayers(), config.getMonsters());
+        if(snapshot == null){
+            putBlocks(blocks, freeCells, freecell);
+            if(store != null){
+                store.put((CompactBoard) board, freeCells);
+            } else {
+                putMonsters(monsters, freeCells, freecell);
+            }
+            for (Player player : players){
+                putPlayer(player, freeCells, freecell);
+            }
+            this.degree = config.getDegreeType().create(board, getPlayerCells());
+        } else {
+            for (int i = 0; i < blocks.size(); i++){
+                blocks.get(i).setHostCell(put(snapshot.blocks[i], blocks.get(i)));
+            }
+            for (int i = 0; i < monsters.size(); i++){
+                Monster monster = monsters.get(i);
+                if(snapshot.hostCells[i] != Board.NONE){
+                    monster.setHostCell(put(snapshot.hostCells[i], monster));
+                }
+                monster.setFailedCell(snapshot.failedCells[i]);
+                monster.setStuckTime(snapshot.stuckTimes[i]);
+            }
+            for (int i = 0; store != null && i < store.size(); i++){
+                store.put((CompactBoard) board, freeCells, i, snapshot.hostCells[i]);
+                store.setFailedCell(i, snapshot.failedCells[i]);
+                store.setStuckTime(i, snapshot.stuckTimes[i]);
+            }
+            if(store != null){
+                store.sort(board);
+            }
+            for (int i = 0; i < players.size(); i++){
+                players.get(i).setHostCell(put(snapshot.playerCells[i], players.get(i)));
+            }
+            this.degree = config.getDegreeType().restore(board, getPlayerCells(), snapshot.degrees);
+        }
+        this.events = new EventRing(EVENTS, config.getBackpressure());
+        this.pool = config.getMonsterMode() == MonsterMode.PARALLEL ? new ForkJoinPool() : null;
+        //Each entity moves once per tick at most, so at most two cells per entity change during the tick
+        this.dirtyCells = config.isTrackChanges()
+                ? new DirtyCells(board.size(), 2 * (config.getMonsters() + players.size())) : null;
+        MovePlanner planner = config.getMonsterMode() == MonsterMode.PLANNED
+                ? new MovePlanner(board, degree, monsters) : null;
+        ThreadMonster.Builder monsterBuilder = new ThreadMonster.Builder(board, degree, freeCells, events, metrics)
+                .setRepeatPeriod(config.getRepeatPeriod())
+                .setDirtyCells(dirtyCells);
+        this.threadMonster = store != null
+                ? monsterBuilder.setStore(store).build()
+                : monsterBuilder.setMonsters(monsters, freecell).setPool(pool).setPlanner(planner).build();
+        this.threadPlayer = new ThreadPlayer(players, board, freecell, degree, freeCells, threadMonster.getTimingWheel(),
+                events, metrics, dirtyCells);
+        this.detonator = new Detonator(board, freecell, freeCells, threadMonster.getTimingWheel(), store, events,
+                dirtyCells, config.getBombFuse(), config.getBombRadius());
+        threadMonster.setDetonator(detonator);
+        threadMonster.setCapture(capture, players);
+        threadPlayer.setCapture(capture);
+        this.ticker = new LockstepTicker(threadPlayer, threadMonster);
+        if(snapshot != null){
+            threadPlayer.setTick(snapshot.playerTick);
+            threadMonster.setTick(snapshot.monsterTick);
+            detonator.setTick(snapshot.monsterTick);
+            for (int i = snapshot.bombCells.length - 1; i >= 0; i--){
+                detonator.restore(snapshot.bombCells[i], snapshot.explosionTicks[i]);
+            }
+            for (int i = 0; i < monsters.size(); i++){
+                if(snapshot.parked[i] != 0){
+                    threadMonster.getTimingWheel().park(monsters.get(i));
+                }
+            }
+        }
+        if(isCaptured()){
+            capture.complete(threadPlayer.getTick());
+        }
+    }
+
+    /**
+     * Restores the game saved by save(). Board is filled up right from the snapshot,
+     * without search of the free cells and of the paths of the heat map.
+     * @param file - path to the snapshot.
+     * @return - idle engine, which continues the saved game.
+     * @throws IOException - if snapshot can't be read.
+     */
+    public static GameEngine restore(Path file) throws IOException {
+        Snapshot snapshot = Snapshot.read(file);
+        try {
+            return new GameEngine(snapshot.config, snapshot);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(String.format("Snapshot %s is damaged", file), e);
+        }
+    }
+
+    /**
+     * Saves the whole game to the file: config, ticks, cells of all actors, failed cells and stuck times of monsters,
+     * fuses of the bombs and the heat map, if it's not computed on demand.
+     * @param file - path to the snapshot, existing file is overwritten.
+     * @throws IOException - if snapshot can't be written.
+     * @throws IllegalStateException - if engine is running or closed.
+     */
+    public synchronized void save(Path file) throws IOException {
+        checkIdle();
+        Snapshot snapshot = store != null
+                ? Snapshot.of(config, threadPlayer.getTick(), threadMonster.getTick(), players, blocks, store,
+                        (CompactBoard) board, detonator.getBombs(), degree.getDegrees())
+                : Snapshot.of(config, threadPlayer.getTick(), threadMonster.getTick(), players, blocks, monsters,
+                        detonator.getBombs(), degree.getDegrees());
+        snapshot.write(file);
+    }
+
+    /**
+     * Makes one tick in the calling thread: player phase, then monster phase.
+     * @throws IllegalStateException - if engine is running or closed.
+     */
+    public synchronized void step(){
+        checkIdle();
+        tick();
+    }
+
+    /**
+     * Makes ticks in the calling thread one after another.
+     * @param ticks - quantity of ticks.
+     * @throws IllegalStateException - if engine is running or closed.
+     */
+    public synchronized void step(long ticks){
+        checkIdle();
+        for (long i = 0; i < ticks; i++){
+            tick();
+        }
+    }
+
+    /**
+     * Makes ticks in the calling thread as fast as possible until the duration elapses.
+     * @param duration - wall clock duration.
+     * @return - quantity of ticks made.
+     * @throws IllegalStateException - if engine is running or closed.
+     */
+    public synchronized long runFor(Duration duration){
+        checkIdle();
+        long deadline = System.nanoTime() + duration.toNanos();
+        long ticks = 0;
+        while (System.nanoTime() - deadline < 0){
+            tick();
+            ticks++;
+        }
+        return ticks;
+    }
+
+    /**
+     * Starts to play in real time: player and monsters make one move each period in the threads of the engine.
+     * @throws IllegalStateException - if engine is running or closed.
+     */
+    public synchronized void start(){
+        checkIdle();
+        service = Executors.newScheduledThreadPool(2);
+        //Tick ends after the monster phase, agents have no common phase, so then it ends after the player move
+        Runnable playerTick = threadPlayer;
+        Runnable monsterTick = threadMonster;
+        if(dirtyCells != null && config.getMonsterMode() == MonsterMode.AGENTS){
+            playerTick = () -> {
+                threadPlayer.run();
+                dirtyCells.publish(threadPlayer.getTick());
+            };
+        } else if(dirtyCells != null){
+            monsterTick = () -> {
+                threadMonster.run();
+                dirtyCells.publish(threadMonster.getTick());
+            };
+        }
+        service.scheduleAtFixedRate(playerTick, 1, ThreadMonster.TICK_PERIOD, TimeUnit.MILLISECONDS);
+        if(config.getMonsterMode() == MonsterMode.AGENTS){
+            agents = new MonsterAgents(threadMonster, monsters, ThreadMonster.TICK_PERIOD);
+            agents.start();
+        } else {
+            service.scheduleAtFixedRate(monsterTick, 1, ThreadMonster.TICK_PERIOD, TimeUnit.MILLISECONDS);
+        }
+        state = State.RUNNING;
+    }
+
+    /**
+     * Stops playing in real time and waits until the current moves are finished. Does nothing if engine is not running.
+     * Cells changed after the last tick are published as the last delta.
+     * @param timeout - maximum time to wait in milliseconds.
+     * @return - true - all threads stopped, false - timeout elapsed.
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public synchronized boolean stop(long timeout) throws InterruptedException {
+        if(state != State.RUNNING){
+            return true;
+        }
+        boolean stopped = true;
+        service.shutdown();
+        if(agents != null){
+            stopped = agents.stop(timeout);
+            agents = null;
+        }
+        stopped &= service.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+        service = null;
+        if(dirtyCells != null){
+            dirtyCells.publish(getTick());
+        }
+        state = State.IDLE;
+        return stopped;
+    }
+
+    /**
+     * Stops the engine if it's running and releases it's threads.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            stop(1000);
+        } catch (InterruptedException e) {
+            service.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if(pool != null){
+            pool.shutdown();
+        }
+        state = State.CLOSED;
+    }
+
+    /**
+     * Returns state of the engine.
+     * @return - state.
+     */
+    public State getState(){
+        return this.state;
+    }
+
+    /**
+     * Returns quantity of ticks made by the player.
+     * @return - current tick.
+     */
+    public long getTick(){
+        return threadPlayer.getTick();
+    }
+
+    /**
+     * Checks whether some player is captured: some monster occupies one of the cells nearby to the player cell.
+     * Looks at the cells nearby to each player, see getCapture to be notified without polling.
+     * @return - true - player is captured, false - otherwise.
+     */
+    public boolean isCaptured(){
+        for (Player player : players){
+            int host = player.getHostCell();
+            for (int direction = 0; direction < 4; direction++){
+                int cell = board.getNearbyCell(host, direction);
+                if(cell != Board.NONE && board.getActor(cell).getType() == Type.MONSTER){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Plants the bomb to the free cell. It explodes in GameConfig.getBombFuse ticks of the monsters,
+     * or earlier, if it's reached by the blast of another bomb.
+     * Idle engine plants under it's lock, so the bomb can't appear in the middle of step or save made by another thread.
+     * Running engine doesn't take the lock for the ticks: the bomb is planted right away between explosions
+     * (see Detonator), it's cell is taken by CAS, as moving actors take cells, and the bomb explodes
+     * at the first monster phase which finds it's fuse burnt out.
+     * @param cell - index of the cell.
+     * @return - true - bomb planted, false - cell isn't free.
+     * @throws IllegalStateException - if monsters are agents, they have no common phase to explode bombs,
+     * or engine is closed.
+     */
+    public synchronized boolean plantBomb(int cell){
+        if(config.getMonsterMode() == MonsterMode.AGENTS){
+            throw new IllegalStateException("Bombs aren't supported by monster agents");
+        }
+        if(state == State.CLOSED){
+            throw new IllegalStateException(String.format("Engine is %s", state));
+        }
+        return detonator.plant(cell);
+    }
+
+    /**
+     * Returns bombs which haven't exploded yet.
+     * @return - bombs in order of their explosion.
+     */
+    public List<Bomb> getBombs(){
+        return detonator.getBombs();
+    }
+
+    /**
+     * Returns future of the capture. It's completed with the tick at which the first player has been captured:
+     * some monster moved next to the player or the player moved next to the monster (or it was placed so).
+     * Engine keeps playing after the capture until it's stopped. Future shouldn't be completed by the caller.
+     * @return - future of the capture, never completed, if nobody is captured.
+     */
+    public CompletableFuture<Long> getCapture(){
+        return capture;
+    }
+
+    /**
+     * Adds listener of the cells changed during each tick. It's invoked by the thread which ends the tick.
+     * @param listener - listener.
+     * @throws IllegalStateException - if changes aren't tracked (see GameConfig.setTrackChanges).
+     */
+    public void addDeltaListener(DeltaListener listener){
+        if(dirtyCells == null){
+            throw new IllegalStateException("Changes of the cells aren't tracked");
+        }
+        dirtyCells.addListener(listener);
+    }
+
+    public void removeDeltaListener(DeltaListener listener){
+        if(dirtyCells != null){
+            dirtyCells.removeListener(listener);
+        }
+    }
+
+    public GameConfig getConfig () {
+        return config;
+    }
+
+    /**
+     * Returns board of the game. Actors of the cells should be changed by the engine only.
+     * @return - board.
+     */
+    public Board getBoard () {
+        return board;
+    }
+
+    /**
+     * Returns the first player.
+     * @return - player with id Player.ID.
+     */
+    public Player getPlayer () {
+        return players.get(0);
+    }
+
+    /**
+     * Returns players of the game.
+     * @return - unmodifiable list of players, index of the player identifies it in the heat map.
+     */
+    public List<Player> getPlayers () {
+        return Collections.unmodifiableList(players);
+    }
+
+    /**
+     * Returns blocks of the game.
+     * @return - unmodifiable list of blocks.
+     */
+    public List<Block> getBlocks () {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * Returns monsters of the game.
+     * @return - unmodifiable list of monsters ordered by id, empty if monsters are kept in the store.
+     */
+    public List<Monster> getMonsters () {
+        return Collections.unmodifiableList(monsters);
+    }
+
+    /**
+     * Returns store of the monsters.
+     * @return - store, null if monsters are objects (see getMonsters).
+     */
+    public MonsterStore getMonsterStore () {
+        return store;
+    }
+
+    /**
+     * Returns cells of the monsters, whichever way they are kept.
+     * @return - cells of the monsters ordered by id, Board.NONE for killed monsters.
+     */
+    public int[] getMonsterCells () {
+        if(store != null){
+            int[] cells = new int[store.size()];
+            for (int slot = 0; slot < cells.length; slot++){
+                cells[store.getId(slot) - 1] = store.getHostCell(slot);
+            }
+            return cells;
+        }
+        return monsters.stream().mapToInt(Monster::getHostCell).toArray();
+    }
+
+    public DegreeField getDegree () {
+        return degree;
+    }
+
+    public EventRing getEvents () {
+        return events;
+    }
+
+    public EngineMetrics getMetrics () {
+        return metrics;
+    }
+
+    /**
+     * Puts restored actor to it's cell and removes the cell from the index of free cells.
+     * @param cell - index of the cell.
+     * @param actor - actor.
+     * @return - index of the cell.
+     * @throws IllegalArgumentException - if the cell is taken by another actor of the snapshot.
+     */
+    private int put(int cell, Actor actor){
+        if(!board.compareAndSet(cell, freecell, actor)){
+            throw new IllegalArgumentException(String.format("Cell %s is taken twice", cell));
+        }
+        freeCells.occupy(cell);
+        return cell;
+    }
+
+    /**
+     * Makes one tick in the calling thread and publishes cells changed during it, if changes are tracked.
+     */
+    private void tick(){
+        ticker.step();
+        if(dirtyCells != null){
+            dirtyCells.publish(threadPlayer.getTick());
+        }
+    }
+
+    private int[] getPlayerCells(){
+        return players.stream().mapToInt(Player::getHostCell).toArray();
+    }
+
+    private void checkIdle(){
+        if(state != State.IDLE){
+            throw new IllegalStateException(String.format("Engine is %s", state));
+        }
+    }
+
+    /**
+     * Generates list of new monsters.
+     * @param quantity - number of monsters on the board
+     */
+    static List<Monster> createMonsters (int quantity) {
+        return IntStream.rangeClosed(1, quantity).mapToObj(Monster::new).collect(Collectors.toList());
+    }
+
+    /**
+     * Generates list of new players: the first one has id Player.ID, the rest are numbered after the monsters.
+     * @param quantity - number of players on the board
+     * @param monsters - number of monsters on the board
+     */
+    static List<Player> createPlayers (int quantity, int monsters) {
+        return IntStream.range(0, quantity).mapToObj(i -> new Player(i == 0 ? Player.ID : monsters + i))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates list of blocks generated by stream.
+     * @param quantity - length of list.
+     * @return - list of blocks.
+     */
+    static List<Block> createBlocks(int quantity){
+        return Stream.generate(Block::new).limit(quantity).collect(Collectors.toList());
+    }
+
+    /**
+     * Puts player to the random free cell
+     * @param freeCells - index of free cells of the board
+     * @param freecell - reference to the freecell object
+     */
+    static void putPlayer (Player player, FreeCells freeCells, Actor freecell){
+        player.setHostCell(freeCells.occupyRandomCell(freecell, player));
+    }
+
+    /**
+     * Puts blocks (forbidden cells) on the board.
+     * @param blocks - list of blocks
+     * @param freeCells - index of free cells of the board
+     */
+    static void putBlocks(List<Block> blocks, FreeCells freeCells, Actor freecell){
+        for (Block b : blocks){
+            b.setHostCell(freeCells.occupyRandomCell(freecell, b));
+        }
+    }
+
+    /**
+     * Puts monsters on the board
+     * @param monsters - list of monsters
+     * @param freeCells - index of free cells of the board
+     * @param freecell - freecell
+     */
+    static void putMonsters(List<Monster> monsters, FreeCells freeCells, Actor freecell){
+        for(Monster m : monsters){
+            m.setHostCell(freeCells.occupyRandomCell(freecell, m));
+        }
+    }
+}
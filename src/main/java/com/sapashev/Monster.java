@@ -1,27 +1,44 @@
 package com.sapashev;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.time.LocalTime;
+import com.sapashev.board.Board;
 
 
 /**
  * Describes monster.
  * type - type of that actor. For monster should be Type.MONSTER.
- * stuckTime - time until which monster has been stuck (should repeat attempts to acquire target cell).
- * hostCell - hostCell which occupied by this monster.
- * failedCell - cell to which monster tried to move, but failed due to it wasn't free.
+ * id - number of the monster, starting from one.
+ * stuckTime - tick until which monster has been stuck (should repeat attempts to acquire target cell).
+ * hostCell - index of the cell which occupied by this monster, Board.NONE if monster isn't on the board
+ * (e.g. killed by the bomb).
+ * failedCell - index of the cell to which monster tried to move, but failed due to it wasn't free, Board.NONE if there is no such cell.
+ * parked - monster waits in the TimingWheel until failed cell is released or stuck time comes.
  * @author Arslan Sapashev
  * @since 15.12.2016
  * @version 1.0
  */
 public class Monster implements Actor{
     private final Type type = Type.MONSTER;
-    private final Logger LOG = LoggerFactory.getLogger(Monster.class);
-    private LocalTime stuckTime = LocalTime.MIN;
-    private Cell hostCell;
-    private Cell failedCell;
+    private final int id;
+    private long stuckTime;
+    private int hostCell = Board.NONE;
+    private int failedCell = Board.NONE;
+    volatile boolean parked;
+    Monster wheelPrev;
+    Monster wheelNext;
+    Monster waiterPrev;
+    Monster waiterNext;
+
+    public Monster(int id){
+        this.id = id;
+    }
+
+    /**
+     * Returns id of the monster.
+     * @return - id of the monster.
+     */
+    public int getId () {
+        return this.id;
+    }
 
     /**
      * Returns type of that object
@@ -33,13 +50,14 @@ public class Monster implements Actor{
 
     /**
      * Moves monster to the target hostCell, if it's actor has Type.FREECELL;
+     * @param board - board of the game;
      * @param target - hostCell to which player should move;
      * @param oldActor - to move on that hostCell oldActor should be Type.FREECELL;
      * @param newActor - new actor Type.MONSTER;
      * @return - true - monster moved to target hostCell, false - target hostCell is not free;
      */
-    public boolean move (Cell target, Actor oldActor, Actor newActor) {
-        return target.actor.compareAndSet(oldActor, newActor);
+    public boolean move (Board board, int target, Actor oldActor, Actor newActor) {
+        return board.compareAndSet(target, oldActor, newActor);
     }
 
 
@@ -47,7 +65,7 @@ public class Monster implements Actor{
      * Returns hostCell of this monster.
      * @return - hostCell which occupied by the monster.
      */
-    public Cell getHostCell (){
+    public int getHostCell (){
         return this.hostCell;
     }
 
@@ -55,31 +73,31 @@ public class Monster implements Actor{
      * Sets target hostCell to the monster, if move operation succeeds.
      * @param target - target hostCell to which monster has been moved.
      */
-    public void setHostCell (Cell target){
+    public void setHostCell (int target){
         this.hostCell = target;
     }
 
     /**
-     * Returns time when monster has been stuck, trying to move forward.
-     * @return - stuck time.
+     * Returns tick until which monster has been stuck, trying to move forward.
+     * @return - stuck time (tick).
      */
-    public LocalTime getStuckTime(){
+    public long getStuckTime(){
         return this.stuckTime;
     }
 
     /**
-     * Sets time when monster has been stuck.
-     * @param stuckTime - stuck time
+     * Sets tick until which monster has been stuck.
+     * @param stuckTime - stuck time (tick).
      */
-    public void setStuckTime(LocalTime stuckTime){
+    public void setStuckTime(long stuckTime){
         this.stuckTime = stuckTime;
     }
 
     /**
      * Returns cell to which monster has not been moved.
-     * @return - cell to which monster has not been moved by last attempt.
+     * @return - cell to which monster has not been moved by last attempt, Board.NONE if there is no such cell.
      */
-    public Cell getFailedCell(){
+    public int getFailedCell(){
         return this.failedCell;
     }
 
@@ -87,8 +105,15 @@ public class Monster implements Actor{
      * Sets cell to which attempt to move monster failed, because it was occupied by another monster.
      * @param failed - target cell which was occupied at time of move.
      */
-    public void setFailedCell(Cell failed){
+    public void setFailedCell(int failed){
         this.failedCell = failed;
     }
 
+    /**
+     * Returns true if monster is parked in the TimingWheel and shouldn't move.
+     * @return - true - monster is parked, false - monster could move.
+     */
+    public boolean isParked(){
+        return this.parked;
+    }
 }
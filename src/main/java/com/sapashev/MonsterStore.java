@@ -0,0 +1,382 @@
+package com.sapashev;
+
+import java.util.Arrays;
+
+import com.sapashev.board.Board;
+import com.sapashev.board.CompactBoard;
+
+/**
+ * Describes monsters kept in parallel primitive arrays (entity-component store) instead of Monster objects.
+ * Monster is stored in the slot of the arrays:
+ * ids - id of the monster in the game events, starting from one.
+ * hostCells - index of the cell occupied by the monster.
+ * failedCells - index of the cell to which monster tried to move, but failed, Board.NONE if there is no such cell.
+ * stuckTimes - tick until which monster repeats attempts to get it's failed cell.
+ * moves - direction of the move made since the last sort: ROW (monster stayed in it's row), UP or DOWN.
+ * Monsters are put on the CompactBoard by code of their id (see CompactBoard.getCode),
+ * so the board keeps no objects for them.
+ * Slots are ordered by the cells of the monsters (see sort), so the pass over the slots walks the board
+ * from the first cell to the last one and reads the board, the heat map and the index of free cells
+ * almost sequentially, while monsters placed at random and visited by id would miss the cache on each of them.
+ * Order depends on the cells only, so the game restored from the snapshot moves monsters in the same order.
+ * Monster is parked while it's failed cell is occupied: monster tick reads the cell instead of linking monster
+ * into the TimingWheel. Monster killed by the bomb gets host cell Board.NONE and it's slot is moved
+ * after the slots of live monsters by the next sort. Store takes 21 bytes per monster and 20 more
+ * for the spare arrays of the sort.
+ */
+public class MonsterStore {
+    private static final byte ROW = 0;
+    private static final byte UP = 1;
+    private static final byte DOWN = 2;
+    private int[] ids;
+    private int[] hostCells;
+    private int[] failedCells;
+    private long[] stuckTimes;
+    private final byte[] moves;
+    private int[] spareIds;
+    private int[] spareHostCells;
+    private int[] spareFailedCells;
+    private long[] spareStuckTimes;
+    private int[] counts = new int[0];
+    private int live;
+    private int killed;
+    private boolean sorted;
+
+    /**
+     * Creates monsters which are not on the board yet, slot of each monster is it's id - 1.
+     * @param quantity - quantity of monsters.
+     */
+    public MonsterStore(int quantity){
+        this.ids = new int[quantity];
+        this.hostCells = new int[quantity];
+        this.failedCells = new int[quantity];
+        this.stuckTimes = new long[quantity];
+        this.moves = new byte[quantity];
+        this.spareIds = new int[quantity];
+        this.spareHostCells = new int[quantity];
+        this.spareFailedCells = new int[quantity];
+        this.spareStuckTimes = new long[quantity];
+        this.live = quantity;
+        for (int slot = 0; slot < quantity; slot++){
+            ids[slot] = slot + 1;
+            hostCells[slot] = Board.NONE;
+            failedCells[slot] = Board.NONE;
+        }
+    }
+
+    /**
+     * Returns quantity of monsters.
+     * @return - quantity of monsters.
+     */
+    public int size () {
+        return ids.length;
+    }
+
+    /**
+     * Returns id of the monster in the game events.
+     * @param slot - slot of the monster.
+     * @return - id of the monster, starting from one.
+     */
+    public int getId (int slot) {
+        return ids[slot];
+    }
+
+    /**
+     * Returns quantity of the slots of monsters which were alive at the last sort,
+     * slots of killed monsters follow them.
+     * @return - quantity of the slots to walk through.
+     */
+    public int getLiveSlots () {
+        return live;
+    }
+
+    /**
+     * Finds monster by it's cell. Slots should be ordered by the sort and monsters shouldn't move since then.
+     * @param cell - index of the cell.
+     * @return - slot of the monster, -1 if there is no monster in the cell.
+     */
+    public int find (int cell) {
+        int low = 0;
+        int high = live - 1;
+        while (low <= high){
+            int middle = (low + high) >>> 1;
+            int host = hostCells[middle];
+            if(host < cell){
+                low = middle + 1;
+            } else if(host > cell){
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes monster from the store: it forgets it's cells and doesn't move anymore.
+     * The cell of the monster should be released by the caller.
+     * @param slot - slot of the monster.
+     */
+    public void kill (int slot) {
+        sorted = false;
+        hostCells[slot] = Board.NONE;
+        failedCells[slot] = Board.NONE;
+        killed++;
+    }
+
+    public int getHostCell (int slot) {
+        return hostCells[slot];
+    }
+
+    /**
+     * Moves monster to the nearby cell, remembering direction of the move till the next sort.
+     * @param slot - slot of the monster.
+     * @param cell - index of the cell occupied by the monster.
+     */
+    public void setHostCell (int slot, int cell) {
+        int host = hostCells[slot];
+        moves[slot] = cell < host - 1 ? UP : cell > host + 1 ? DOWN : ROW;
+        hostCells[slot] = cell;
+        sorted = false;
+    }
+
+    public int getFailedCell (int slot) {
+        return failedCells[slot];
+    }
+
+    public void setFailedCell (int slot, int cell) {
+        failedCells[slot] = cell;
+    }
+
+    public long getStuckTime (int slot) {
+        return stuckTimes[slot];
+    }
+
+    public void setStuckTime (int slot, long stuckTime) {
+        stuckTimes[slot] = stuckTime;
+    }
+
+    /**
+     * Returns true if monster waits until it's failed cell is released.
+     * @param board - board of the game.
+     * @param slot - slot of the monster.
+     * @return - true - monster is parked, false - monster could move.
+     */
+    public boolean isParked (CompactBoard board, int slot) {
+        int failed = failedCells[slot];
+        return failed != Board.NONE && board.getCode(failed) != CompactBoard.FREE;
+    }
+
+    /**
+     * Puts each monster to the random free cell, as FreeCells.occupyRandomCell does for actors,
+     * in order of id, then orders the slots by cells.
+     * @param board - board of the game.
+     * @param freeCells - index of free cells of the board.
+     * @throws IllegalStateException - if there is no free cells.
+     */
+    public void put (CompactBoard board, FreeCells freeCells) {
+        for (int slot = 0; slot < ids.length; slot++){
+            int code = CompactBoard.getEntityCode(ids[slot]);
+            int cell = freeCells.getRandomCell();
+            while (!board.compareAndSetCode(cell, CompactBoard.FREE, code)){
+                freeCells.occupy(cell);
+                cell = freeCells.getRandomCell();
+            }
+            freeCells.occupy(cell);
+            hostCells[slot] = cell;
+        }
+        sort(board);
+    }
+
+    /**
+     * Puts restored monster right to it's cell and removes the cell from the index of free cells.
+     * Slots should be ordered by sort, when all monsters are restored.
+     * @param board - board of the game.
+     * @param freeCells - index of free cells of the board.
+     * @param slot - slot of the monster.
+     * @param cell - index of the cell, Board.NONE if monster has been killed.
+     * @throws IllegalArgumentException - if the cell isn't free.
+     */
+    public void put (CompactBoard board, FreeCells freeCells, int slot, int cell) {
+        if(cell == Board.NONE){
+            kill(slot);
+            return;
+        }
+        if(!board.compareAndSetCode(cell, CompactBoard.FREE, CompactBoard.getEntityCode(ids[slot]))){
+            throw new IllegalArgumentException(String.format("Cell %s of the monster %s isn't free", cell, ids[slot]));
+        }
+        freeCells.occupy(cell);
+        hostCells[slot] = cell;
+        sorted = false;
+    }
+
+    /**
+     * Orders the slots by the cells of the monsters. If slots were ordered by the last sort and monsters have made
+     * one move at most since then, monsters which moved up keep their order, as well as monsters which moved down
+     * and monsters which stayed in their rows (monster can't pass the next one in the row during the single move).
+     * So these three runs are merged by the single pass. Otherwise slots are ordered by radix sort.
+     * Killed monsters are moved after the live ones first, keeping order of the live monsters.
+     * @param board - board of the game.
+     */
+    public void sort (Board board) {
+        if(killed > 0){
+            compact();
+        }
+        if(!merge()){
+            radixSort(board);
+        }
+        Arrays.fill(moves, ROW);
+        sorted = true;
+    }
+
+    /**
+     * Returns true if slots are ordered by the cells: no monster has been moved, put or killed since the last sort,
+     * so monster could be found by it's cell.
+     * @return - true - slots are ordered, false - store should be sorted before find.
+     */
+    public boolean isSorted () {
+        return sorted;
+    }
+
+    /**
+     * Merges monsters which moved up, moved down and stayed in their rows to the spare arrays, then swaps the arrays.
+     * @return - true - slots are ordered, false - runs turned out unordered, slots are left as they were.
+     */
+    private boolean merge () {
+        int size = live;
+        int up = next(UP, 0);
+        int row = next(ROW, 0);
+        int down = next(DOWN, 0);
+        int previous = Integer.MIN_VALUE;
+        for (int target = 0; target < size; target++){
+            int slot = row;
+            if(up < size && (slot == size || hostCells[up] < hostCells[slot])){
+                slot = up;
+            }
+            if(down < size && (slot == size || hostCells[down] < hostCells[slot])){
+                slot = down;
+            }
+            if(hostCells[slot] <= previous){
+                return false;
+            }
+            previous = hostCells[slot];
+            copy(slot, target);
+            if(slot == up){
+                up = next(UP, up + 1);
+            } else if(slot == row){
+                row = next(ROW, row + 1);
+            } else {
+                down = next(DOWN, down + 1);
+            }
+        }
+        swap();
+        return true;
+    }
+
+    /**
+     * Returns the first slot starting from the given one, which monster made the move in the direction.
+     * @return - slot, size of the store if there is no such slot.
+     */
+    private int next (byte direction, int from) {
+        while (from < live && moves[from] != direction){
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Orders the slots by radix sort: stable counting sort by the low half of bits of the cell,
+     * then by the high half. Takes two passes over the arrays whatever the order.
+     * @param board - board of the game.
+     */
+    private void radixSort (Board board) {
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(board.size() - 1, 1));
+        int low = (bits + 1) / 2;
+        if(counts.length < (1 << low) + 1){
+            counts = new int[(1 << low) + 1];
+        }
+        distribute(0, low);
+        distribute(low, bits - low);
+    }
+
+    /**
+     * Moves monsters to the spare arrays in order of the digit of their cells, keeping order of the monsters
+     * with the same digit, then swaps the arrays.
+     * @param shift - position of the lowest bit of the digit.
+     * @param width - quantity of bits of the digit.
+     */
+    private void distribute (int shift, int width) {
+        int radix = 1 << width;
+        int mask = radix - 1;
+        Arrays.fill(counts, 0, radix + 1, 0);
+        for (int slot = 0; slot < live; slot++){
+            counts[(hostCells[slot] >>> shift & mask) + 1]++;
+        }
+        for (int digit = 0; digit < radix; digit++){
+            counts[digit + 1] += counts[digit];
+        }
+        for (int slot = 0; slot < live; slot++){
+            copy(slot, counts[hostCells[slot] >>> shift & mask]++);
+        }
+        swap();
+    }
+
+    /**
+     * Moves slots of the monsters killed since the last sort after the slots of live monsters.
+     * Slots are moved in place, order of the live monsters and their directions are kept.
+     */
+    private void compact () {
+        int[] killedIds = new int[killed];
+        int count = 0;
+        int target = 0;
+        for (int slot = 0; slot < live; slot++){
+            if(hostCells[slot] == Board.NONE){
+                killedIds[count++] = ids[slot];
+            } else {
+                ids[target] = ids[slot];
+                hostCells[target] = hostCells[slot];
+                failedCells[target] = failedCells[slot];
+                stuckTimes[target] = stuckTimes[slot];
+                moves[target++] = moves[slot];
+            }
+        }
+        for (int i = 0; i < count; i++){
+            ids[target + i] = killedIds[i];
+            hostCells[target + i] = Board.NONE;
+            failedCells[target + i] = Board.NONE;
+            stuckTimes[target + i] = 0;
+        }
+        live = target;
+        killed = 0;
+    }
+
+    private void copy (int slot, int target) {
+        spareIds[target] = ids[slot];
+        spareHostCells[target] = hostCells[slot];
+        spareFailedCells[target] = failedCells[slot];
+        spareStuckTimes[target] = stuckTimes[slot];
+    }
+
+    /**
+     * Copies slots of the killed monsters to the spare arrays as they are, then swaps the arrays.
+     */
+    private void swap () {
+        int tail = ids.length - live;
+        System.arraycopy(ids, live, spareIds, live, tail);
+        System.arraycopy(hostCells, live, spareHostCells, live, tail);
+        System.arraycopy(failedCells, live, spareFailedCells, live, tail);
+        System.arraycopy(stuckTimes, live, spareStuckTimes, live, tail);
+        int[] swapped = ids;
+        ids = spareIds;
+        spareIds = swapped;
+        swapped = hostCells;
+        hostCells = spareHostCells;
+        spareHostCells = swapped;
+        swapped = failedCells;
+        failedCells = spareFailedCells;
+        spareFailedCells = swapped;
+        long[] swappedTimes = stuckTimes;
+        stuckTimes = spareStuckTimes;
+        spareStuckTimes = swappedTimes;
+    }
+}
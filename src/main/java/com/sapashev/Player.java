@@ -1,5 +1,7 @@
 package com.sapashev;
 
+import com.sapashev.board.Board;
+
 
 /**
  * Describes actor controlled by player.
@@ -8,8 +10,32 @@ package com.sapashev;
  * @version 1.0
  */
 public class Player implements Actor {
+    /**
+     * Id of the first player in the game events, monsters are numbered from one,
+     * the rest of the players are numbered after the monsters.
+     */
+    public static final int ID = 0;
     private final Type type = Type.PLAYER;
-    private Cell hostCell;
+    private final int id;
+    private volatile int hostCell = Board.NONE;
+
+    /**
+     * Creates the first player.
+     */
+    public Player(){
+        this(ID);
+    }
+
+    /**
+     * @param id - id of the player in the game events.
+     */
+    public Player(int id){
+        this.id = id;
+    }
+
+    public int getId () {
+        return id;
+    }
 
     /**
      * Returns type of that object
@@ -21,20 +47,21 @@ public class Player implements Actor {
 
     /**
      * Moves player to the target hostCell, if it's actor has Type.FREECELL;
+     * @param board - board of the game;
      * @param target - hostCell to which player should move;
      * @param oldActor - to move on that hostCell oldType should be Type.FREECELL;
      * @param newActor - new actor should be Type.PLAYER;
      * @return - true - player moved to target hostCell, false - target hostCell is not free;
      */
-    public boolean move (Cell target, Actor oldActor, Actor newActor) {
-        return target.actor.compareAndSet(oldActor, newActor);
+    public boolean move (Board board, int target, Actor oldActor, Actor newActor) {
+        return board.compareAndSet(target, oldActor, newActor);
     }
 
     /**
      * Returns hostCell of this player.
      * @return - hostCell which occupied by the player.
      */
-    public Cell getHostCell(){
+    public int getHostCell(){
         return this.hostCell;
     }
 
@@ -42,7 +69,7 @@ public class Player implements Actor {
      * Sets target hostCell to the player, if move operation succeeds.
      * @param target - target hostCell to which player has been moved.
      */
-    public void setHostCell(Cell target){
+    public void setHostCell(int target){
         this.hostCell = target;
     }
 }
@@ -0,0 +1,305 @@
+package com.sapashev;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+import com.sapashev.board.CompactBoard;
+import com.sapashev.degree.DegreeType;
+import com.sapashev.threads.MonsterMode;
+
+/**
+ * Describes checkpoint of the whole game saved to the flat binary file. Layout (big-endian):
+ * MAGIC, VERSION, config (rows, columns, monsters, repeat period, blocks, players, degree type, monster mode,
+ * board type, bomb fuse, bomb radius, seed flag and seed), ticks of the players and of the monsters,
+ * cells of the players, cells of the blocks, then monsters column by column: host cells (Board.NONE for killed ones),
+ * failed cells, stuck times, parked flags, quantity of the bombs, their cells and explosion ticks
+ * in order of explosion, and finally quantity of the saved degrees and degrees of the cells
+ * (see DegreeField.getDegrees).
+ * Occupancy of the board is saved as cells of the blocks, of the bombs and of the entities,
+ * the rest of the cells are free.
+ * Each section is an array written and read by the bulk copy of the memory-mapped file, never object by object.
+ * On read the length of each section is checked against the size of the file, kinds against the known ones
+ * and cells against the size of the board, so damaged file is rejected before the engine is built.
+ */
+class Snapshot {
+    private static final int MAGIC = 0x424D534E;
+    private static final int VERSION = 3;
+    private static final int HEADER = 4 * 13 + 8 * 4;
+    final GameConfig config;
+    final long playerTick;
+    final long monsterTick;
+    final int[] playerCells;
+    final int[] blocks;
+    final int[] hostCells;
+    final int[] failedCells;
+    final long[] stuckTimes;
+    final byte[] parked;
+    final int[] bombCells;
+    final long[] explosionTicks;
+    final int[] degrees;
+
+    private Snapshot(GameConfig config, long playerTick, long monsterTick, int[] playerCells, int[] blocks,
+                     int[] hostCells, int[] failedCells, long[] stuckTimes, byte[] parked, int[] bombCells,
+                     long[] explosionTicks, int[] degrees){
+        this.config = config;
+        this.playerTick = playerTick;
+        this.monsterTick = monsterTick;
+        this.playerCells = playerCells;
+        this.blocks = blocks;
+        this.hostCells = hostCells;
+        this.failedCells = failedCells;
+        this.stuckTimes = stuckTimes;
+        this.parked = parked;
+        this.bombCells = bombCells;
+        this.explosionTicks = explosionTicks;
+        this.degrees = degrees;
+    }
+
+    /**
+     * Takes state of the game. Engine should not move actors in the meantime.
+     * @param config - parameters of the game.
+     * @param playerTick - quantity of ticks made by the players.
+     * @param monsterTick - quantity of ticks made by the monsters.
+     * @param players - players.
+     * @param blocks - blocks.
+     * @param monsters - monsters ordered by id.
+     * @param bombs - bombs in order of explosion (see Detonator.getBombs).
+     * @param degrees - degrees of the heat map or null (see DegreeField.getDegrees).
+     * @return - snapshot.
+     */
+    static Snapshot of(GameConfig config, long playerTick, long monsterTick, List<Player> players, List<Block> blocks,
+                       List<Monster> monsters, List<Bomb> bombs, int[] degrees){
+        int[] playerCells = new int[players.size()];
+        for (int i = 0; i < playerCells.length; i++){
+            playerCells[i] = players.get(i).getHostCell();
+        }
+        int[] blockCells = new int[blocks.size()];
+        for (int i = 0; i < blockCells.length; i++){
+            blockCells[i] = blocks.get(i).getHostCell();
+        }
+        int size = monsters.size();
+        int[] hostCells = new int[size];
+        int[] failedCells = new int[size];
+        long[] stuckTimes = new long[size];
+        byte[] parked = new byte[size];
+        for (int i = 0; i < size; i++){
+            Monster monster = monsters.get(i);
+            hostCells[i] = monster.getHostCell();
+            failedCells[i] = monster.getFailedCell();
+            stuckTimes[i] = monster.getStuckTime();
+            parked[i] = (byte) (monster.isParked() ? 1 : 0);
+        }
+        int[] bombCells = new int[bombs.size()];
+        long[] explosionTicks = new long[bombs.size()];
+        for (int i = 0; i < bombCells.length; i++){
+            bombCells[i] = bombs.get(i).getHostCell();
+            explosionTicks[i] = bombs.get(i).getExplosionTick();
+        }
+        return new Snapshot(config, playerTick, monsterTick, playerCells, blockCells,
+                hostCells, failedCells, stuckTimes, parked, bombCells, explosionTicks, degrees);
+    }
+
+    /**
+     * Takes state of the game which monsters are kept in the store. Monsters are saved in order of id,
+     * as monster objects, and monster is saved as parked, if it waits for it's failed cell.
+     * @param config - parameters of the game.
+     * @param playerTick - quantity of ticks made by the players.
+     * @param monsterTick - quantity of ticks made by the monsters.
+     * @param players - players.
+     * @param blocks - blocks.
+     * @param store - monsters.
+     * @param board - board of the game.
+     * @param bombs - bombs in order of explosion (see Detonator.getBombs).
+     * @param degrees - degrees of the heat map or null (see DegreeField.getDegrees).
+     * @return - snapshot.
+     */
+    static Snapshot of(GameConfig config, long playerTick, long monsterTick, List<Player> players, List<Block> blocks,
+                       MonsterStore store, CompactBoard board, List<Bomb> bombs, int[] degrees){
+        Snapshot snapshot = of(config, playerTick, monsterTick, players, blocks, Collections.emptyList(), bombs,
+                degrees);
+        int size = store.size();
+        int[] hostCells = new int[size];
+        int[] failedCells = new int[size];
+        long[] stuckTimes = new long[size];
+        byte[] parked = new byte[size];
+        for (int slot = 0; slot < size; slot++){
+            int i = store.getId(slot) - 1;
+            hostCells[i] = store.getHostCell(slot);
+            failedCells[i] = store.getFailedCell(slot);
+            stuckTimes[i] = store.getStuckTime(slot);
+            parked[i] = (byte) (store.isParked(board, slot) ? 1 : 0);
+        }
+        return new Snapshot(config, playerTick, monsterTick, snapshot.playerCells, snapshot.blocks,
+                hostCells, failedCells, stuckTimes, parked, snapshot.bombCells, snapshot.explosionTicks, degrees);
+    }
+
+    /**
+     * Writes snapshot to the file.
+     * @param file - path to the file, existing file is overwritten.
+     * @throws IOException - if file can't be written.
+     */
+    void write(Path file) throws IOException {
+        int monsters = hostCells.length;
+        int degreesLength = degrees != null ? degrees.length : 0;
+        long size = HEADER + 4L * playerCells.length + 4L * blocks.length + (4L + 4 + 8 + 1) * monsters
+                + 4 + (4L + 8) * bombCells.length + 4 + 4L * degreesLength;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            Long seed = config.getSeed();
+            buffer.putInt(MAGIC).putInt(VERSION)
+                    .putInt(config.getRows()).putInt(config.getColumns()).putInt(config.getMonsters())
+                    .putInt(config.getRepeatPeriod()).putInt(config.getBlocks()).putInt(config.getPlayers())
+                    .putInt(config.getDegreeType().ordinal()).putInt(config.getMonsterMode().ordinal())
+                    .putInt(config.getBoardType().ordinal())
+                    .putInt(config.getBombFuse()).putInt(config.getBombRadius())
+                    .putLong(seed != null ? 1 : 0).putLong(seed != null ? seed : 0)
+                    .putLong(playerTick).putLong(monsterTick);
+            put(buffer, playerCells);
+            put(buffer, blocks);
+            put(buffer, hostCells);
+            put(buffer, failedCells);
+            buffer.asLongBuffer().put(stuckTimes);
+            buffer.position(buffer.position() + 8 * monsters);
+            buffer.put(parked);
+            buffer.putInt(bombCells.length);
+            put(buffer, bombCells);
+            buffer.asLongBuffer().put(explosionTicks);
+            buffer.position(buffer.position() + 8 * explosionTicks.length);
+            buffer.putInt(degreesLength);
+            if(degrees != null){
+                put(buffer, degrees);
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * Reads snapshot from the file.
+     * @param file - path to the file.
+     * @return - snapshot.
+     * @throws IOException - if file can't be read, it's not a snapshot or it's damaged.
+     */
+    static Snapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE){
+                throw new IOException(String.format("Snapshot %s is larger than 2 GB", file));
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.limit() < HEADER || buffer.getInt() != MAGIC || buffer.getInt() != VERSION){
+                throw new IOException(String.format("%s is not a snapshot", file));
+            }
+            GameConfig config;
+            try {
+                config = new GameConfig(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                        buffer.getInt())
+                        .setPlayers(buffer.getInt())
+                        .setDegreeType(get(buffer, DegreeType.values(), file))
+                        .setMonsterMode(get(buffer, MonsterMode.values(), file))
+                        .setBoardType(get(buffer, BoardType.values(), file))
+                        .setBombFuse(buffer.getInt())
+                        .setBombRadius(buffer.getInt());
+            } catch (IllegalArgumentException e) {
+                throw new IOException(String.format("Snapshot %s has illegal config", file), e);
+            }
+            boolean seeded = buffer.getLong() != 0;
+            long seed = buffer.getLong();
+            config.setSeed(seeded ? seed : null);
+            long playerTick = buffer.getLong();
+            long monsterTick = buffer.getLong();
+            int size = config.getRows() * config.getColumns();
+            int monsters = config.getMonsters();
+            int[] playerCells = getCells(buffer, config.getPlayers(), size, false, file);
+            int[] blocks = getCells(buffer, config.getBlocks(), size, false, file);
+            int[] hostCells = getCells(buffer, monsters, size, true, file);
+            int[] failedCells = getCells(buffer, monsters, size, true, file);
+            check(buffer, monsters, 8 + 1, file);
+            long[] stuckTimes = new long[monsters];
+            buffer.asLongBuffer().get(stuckTimes);
+            buffer.position(buffer.position() + 8 * stuckTimes.length);
+            byte[] parked = new byte[monsters];
+            buffer.get(parked);
+            check(buffer, 1, 4, file);
+            int bombs = buffer.getInt();
+            int[] bombCells = getCells(buffer, bombs, size, false, file);
+            check(buffer, bombs, 8, file);
+            long[] explosionTicks = new long[bombs];
+            buffer.asLongBuffer().get(explosionTicks);
+            buffer.position(buffer.position() + 8 * bombs);
+            check(buffer, 1, 4, file);
+            int degreesLength = buffer.getInt();
+            if(degreesLength != 0 && degreesLength != size){
+                throw new IOException(String.format("Snapshot %s has %s degrees for %s cells", file, degreesLength, size));
+            }
+            check(buffer, degreesLength, 4, file);
+            int[] degrees = degreesLength > 0 ? get(buffer, degreesLength) : null;
+            return new Snapshot(config, playerTick, monsterTick, playerCells, blocks, hostCells, failedCells,
+                    stuckTimes, parked, bombCells, explosionTicks, degrees);
+        }
+    }
+
+    private static void put(ByteBuffer buffer, int[] values){
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + 4 * values.length);
+    }
+
+    private static int[] get(ByteBuffer buffer, int length){
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * length);
+        return values;
+    }
+
+    /**
+     * Reads cells of the section: indexes of the board or Board.NONE, if it's allowed.
+     * @param length - quantity of cells.
+     * @param size - quantity of cells of the board.
+     * @param none - true - Board.NONE is allowed (killed monster, monster without failed cell).
+     * @throws IOException - if section is longer than the rest of the file or some cell is out of the board.
+     */
+    private static int[] getCells(ByteBuffer buffer, int length, int size, boolean none, Path file)
+            throws IOException {
+        check(buffer, length, 4, file);
+        int[] cells = get(buffer, length);
+        int minimum = none ? Board.NONE : 0;
+        for (int cell : cells){
+            if(cell < minimum || cell >= size){
+                throw new IOException(String.format("Snapshot %s has cell %s out of the board", file, cell));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Reads constant of the enum by it's ordinal.
+     * @throws IOException - if there is no constant with such ordinal.
+     */
+    private static <E extends Enum<E>> E get(ByteBuffer buffer, E[] values, Path file) throws IOException {
+        int ordinal = buffer.getInt();
+        if(ordinal < 0 || ordinal >= values.length){
+            throw new IOException(String.format("Snapshot %s has unknown %s %s", file,
+                    values.getClass().getComponentType().getSimpleName(), ordinal));
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * Checks that the rest of the file holds the section.
+     * @param length - quantity of elements of the section.
+     * @param bytes - size of the element in bytes.
+     * @throws IOException - if length is negative or section is longer than the rest of the file.
+     */
+    private static void check(ByteBuffer buffer, int length, int bytes, Path file) throws IOException {
+        if(length < 0 || (long) length * bytes > buffer.remaining()){
+            throw new IOException(String.format("Snapshot %s is truncated or damaged at %s", file, buffer.position()));
+        }
+    }
+}
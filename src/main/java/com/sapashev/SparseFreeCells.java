@@ -0,0 +1,68 @@
+package com.sapashev;
+
+import java.util.Random;
+
+import com.sapashev.board.Board;
+
+/**
+ * Describes index of the free cells of the mostly free board, which keeps only quantity of the occupied cells.
+ * Random free cell is found by picking random cells of the board until free one is met, so when the most of
+ * the board is free it takes a few attempts, and the index takes no memory per cell of the board.
+ * Moves don't change quantity of the occupied cells, so they cost nothing.
+ * Index should be created for the empty board, actors put on it afterwards are counted by occupy.
+ */
+public class SparseFreeCells implements FreeCells {
+    private final Board board;
+    private final Random random;
+    private int occupied;
+
+    /**
+     * @param board - empty board.
+     * @param random - source of random numbers to select free cell.
+     */
+    public SparseFreeCells(Board board, Random random){
+        this.board = board;
+        this.random = random;
+    }
+
+    @Override
+    public synchronized int size () {
+        return board.size() - occupied;
+    }
+
+    @Override
+    public synchronized int getRandomCell () {
+        if(size() == 0){
+            throw new IllegalStateException("There is no free cells on the board");
+        }
+        int cell;
+        do {
+            cell = random.nextInt(board.size());
+        } while (board.getActor(cell).getType() != Type.FREECELL);
+        return cell;
+    }
+
+    @Override
+    public synchronized int occupyRandomCell (Actor freecell, Actor actor) {
+        int cell = getRandomCell();
+        while (!board.compareAndSet(cell, freecell, actor)){
+            cell = getRandomCell();
+        }
+        occupy(cell);
+        return cell;
+    }
+
+    @Override
+    public synchronized void occupy (int cell) {
+        occupied++;
+    }
+
+    @Override
+    public synchronized void release (int cell) {
+        occupied--;
+    }
+
+    @Override
+    public void move (int from, int to) {
+    }
+}
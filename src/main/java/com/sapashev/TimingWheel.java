@@ -0,0 +1,132 @@
+package com.sapashev;
+
+import com.sapashev.board.Board;
+
+/**
+ * Describes hashed timing wheel which parks stuck monsters until they could move again.
+ * Monster is parked after failed attempt to move to the cell. It's woken up when either
+ * the failed cell is released (then it repeats attempt to get that cell),
+ * or it's stuck time (tick) has come (then it chooses new cell).
+ * So monsters which couldn't move cost nothing on each tick.
+ * Each parked monster is linked into two intrusive doubly linked lists: the slot of the wheel
+ * (stuckTime modulo quantity of slots) and waiters of the failed cell. Therefore parking, waking up
+ * and expiration take constant time and allocate nothing.
+ * Quantity of slots is greater than repeat period, so each monster in the slot is due when the slot comes.
+ */
+public class TimingWheel {
+    private final Board board;
+    private final Monster[] slots;
+    private final int mask;
+    private long current;
+
+    /**
+     * @param board - board which keeps waiters of each cell.
+     * @param period - repeat period in ticks (maximum delay of the parked monster).
+     */
+    public TimingWheel(Board board, int period){
+        this.board = board;
+        int size = Integer.highestOneBit(Math.max(period, 1)) << 1;
+        this.slots = new Monster[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Parks monster until it's stuck time or until it's failed cell is released.
+     * If failed cell has been released already, monster is not parked.
+     * @param monster - monster with failed cell and stuck time (tick).
+     */
+    public synchronized void park(Monster monster){
+        int slot = (int) (monster.getStuckTime() & mask);
+        monster.wheelPrev = null;
+        monster.wheelNext = slots[slot];
+        if(monster.wheelNext != null){
+            monster.wheelNext.wheelPrev = monster;
+        }
+        slots[slot] = monster;
+        int cell = monster.getFailedCell();
+        monster.waiterPrev = null;
+        monster.waiterNext = board.getWaiters(cell);
+        if(monster.waiterNext != null){
+            monster.waiterNext.waiterPrev = monster;
+        }
+        board.setWaiters(cell, monster);
+        monster.parked = true;
+        if(board.getActor(cell).getType() == Type.FREECELL){
+            unpark(monster);
+        }
+    }
+
+    /**
+     * Wakes up monsters waiting for the cell. Should be invoked after cell has been released.
+     * Woken up monsters keep their failed cell and try to get it on the next move.
+     * @param released - index of the released cell.
+     */
+    public void wake(int released){
+        if(board.getWaiters(released) == null){
+            return;
+        }
+        synchronized (this){
+            Monster monster;
+            while ((monster = board.getWaiters(released)) != null){
+                unpark(monster);
+            }
+        }
+    }
+
+    /**
+     * Moves wheel to the tick, waking up monsters which stuck time has come. They forget their failed cell.
+     * @param tick - current tick.
+     */
+    public synchronized void advance(long tick){
+        for (long t = Math.max(current + 1, tick - mask); t <= tick; t++){
+            Monster monster = slots[(int) (t & mask)];
+            while (monster != null){
+                Monster next = monster.wheelNext;
+                if(monster.getStuckTime() <= tick){
+                    expire(monster);
+                }
+                monster = next;
+            }
+        }
+        current = tick;
+    }
+
+    /**
+     * Wakes up monster which stuck time has come. It forgets it's failed cell.
+     * @param monster - parked monster.
+     */
+    public synchronized void expire(Monster monster){
+        if(monster.parked){
+            unpark(monster);
+            monster.setFailedCell(Board.NONE);
+        }
+    }
+
+    /**
+     * Unlinks monster from the slot of the wheel and from waiters of it's failed cell.
+     * @param monster - parked monster.
+     */
+    private void unpark(Monster monster){
+        if(monster.wheelPrev != null){
+            monster.wheelPrev.wheelNext = monster.wheelNext;
+        } else {
+            slots[(int) (monster.getStuckTime() & mask)] = monster.wheelNext;
+        }
+        if(monster.wheelNext != null){
+            monster.wheelNext.wheelPrev = monster.wheelPrev;
+        }
+        if(monster.waiterPrev != null){
+            monster.waiterPrev.waiterNext = monster.waiterNext;
+        } else {
+            board.setWaiters(monster.getFailedCell(), monster.waiterNext);
+        }
+        if(monster.waiterNext != null){
+            monster.waiterNext.waiterPrev = monster.waiterPrev;
+        }
+        monster.wheelPrev = null;
+        monster.wheelNext = null;
+        monster.waiterPrev = null;
+        monster.waiterNext = null;
+        monster.parked = false;
+    }
+}
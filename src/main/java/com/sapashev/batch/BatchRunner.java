@@ -0,0 +1,147 @@
+package com.sapashev.batch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.sapashev.GameEngine;
+import com.sapashev.metrics.EngineMetrics;
+
+/**
+ * Describes headless runner of many independent games in one JVM.
+ * Each game of the parameter grid (scenario and seed) is a separate task of the pool with one thread per core.
+ * Game is stepped by it's own GameEngine in the thread of the task until the player is captured (see GameEngine.getCapture)
+ * or maxTicks is reached, so games share nothing and cores are kept busy while tasks remain.
+ * Results are aggregated by scenario and written as columnar table (see ColumnarTable):
+ * parameters of the scenario, runs - quantity of games, captured - games in which player has been captured,
+ * ticksToCapture - mean tick of the capture among captured games (NaN if none),
+ * stuckRatio - part of the monster moves which failed and made the monster stuck,
+ * movesPerSecond - successful moves per second of the game thread.
+ * Usage: java com.sapashev.batch.BatchRunner grid.properties results.bin [threads]
+ *        java com.sapashev.batch.BatchRunner --print results.bin
+ */
+public class BatchRunner {
+    private final ParameterGrid grid;
+    private final int threads;
+
+    /**
+     * @param grid - grid of the game parameters.
+     * @param threads - quantity of games played at once.
+     */
+    public BatchRunner(ParameterGrid grid, int threads){
+        this.grid = grid;
+        this.threads = threads;
+    }
+
+    public static void main (String[] args) throws IOException, InterruptedException, ExecutionException {
+        if(args[0].equals("--print")){
+            System.out.println(ColumnarTable.read(Paths.get(args[1])));
+            return;
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        BatchRunner runner = new BatchRunner(ParameterGrid.load(Paths.get(args[0])), threads);
+        long start = System.nanoTime();
+        ColumnarTable table = runner.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Path output = Paths.get(args[1]);
+        table.write(output);
+        long games = (long) table.getRows() * runner.grid.getRuns();
+        System.out.println(String.format("%s games of %s scenarios in %.1f s by %s threads: %.1f instances/sec, results in %s",
+                games, table.getRows(), seconds, threads, games / seconds, output));
+    }
+
+    /**
+     * Plays all games of the grid and aggregates results by scenario.
+     * @return - table with a row per scenario.
+     * @throws InterruptedException - if interrupted while waiting for games.
+     * @throws ExecutionException - if some game failed.
+     */
+    public ColumnarTable run() throws InterruptedException, ExecutionException {
+        List<Scenario> scenarios = grid.getScenarios();
+        int runs = grid.getRuns();
+        long maxTicks = grid.getMaxTicks();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>(scenarios.size() * runs);
+        try {
+            for (Scenario scenario : scenarios){
+                for (int seed = 0; seed < runs; seed++){
+                    long gameSeed = seed;
+                    futures.add(pool.submit(() -> play(scenario, gameSeed, maxTicks)));
+                }
+            }
+            int size = scenarios.size();
+            int[] captured = new int[size];
+            double[] ticksToCapture = new double[size];
+            double[] stuckRatio = new double[size];
+            double[] movesPerSecond = new double[size];
+            for (int i = 0; i < size; i++){
+                long captureTicks = 0;
+                long moves = 0;
+                long failures = 0;
+                long stuck = 0;
+                long nanos = 0;
+                for (int seed = 0; seed < runs; seed++){
+                    long[] result = futures.get(i * runs + seed).get();
+                    if(result[CAPTURE] >= 0){
+                        captured[i]++;
+                        captureTicks += result[CAPTURE];
+                    }
+                    moves += result[MOVES];
+                    failures += result[FAILURES];
+                    stuck += result[STUCK];
+                    nanos += result[NANOS];
+                }
+                ticksToCapture[i] = captured[i] > 0 ? (double) captureTicks / captured[i] : Double.NaN;
+                stuckRatio[i] = moves + failures > 0 ? (double) stuck / (moves + failures) : 0;
+                movesPerSecond[i] = nanos > 0 ? moves * 1e9 / nanos : 0;
+            }
+            return new ColumnarTable(size)
+                    .addColumn("rows", scenarios.stream().mapToInt(Scenario::getRows).toArray())
+                    .addColumn("columns", scenarios.stream().mapToInt(Scenario::getColumns).toArray())
+                    .addColumn("monsters", scenarios.stream().mapToInt(Scenario::getMonsters).toArray())
+                    .addColumn("repeatPeriod", scenarios.stream().mapToInt(Scenario::getRepeatPeriod).toArray())
+                    .addColumn("blocks", scenarios.stream().mapToInt(Scenario::getBlocks).toArray())
+                    .addColumn("degree", scenarios.stream().mapToInt(s -> s.getDegreeType().ordinal()).toArray())
+                    .addColumn("board", scenarios.stream().mapToInt(s -> s.getBoardType().ordinal()).toArray())
+                    .addColumn("runs", scenarios.stream().mapToInt(s -> runs).toArray())
+                    .addColumn("captured", captured)
+                    .addColumn("ticksToCapture", ticksToCapture)
+                    .addColumn("stuckRatio", stuckRatio)
+                    .addColumn("movesPerSecond", movesPerSecond);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static final int CAPTURE = 0;
+    private static final int MOVES = 1;
+    private static final int FAILURES = 2;
+    private static final int STUCK = 3;
+    private static final int NANOS = 4;
+
+    /**
+     * Plays single game until the player is captured or maxTicks is reached.
+     * @return - tick of the capture (-1 if player hasn't been captured), moves, CAS failures, stuck entries
+     * and duration of the game in nanoseconds.
+     */
+    private static long[] play(Scenario scenario, long seed, long maxTicks){
+        long start = System.nanoTime();
+        try (GameEngine engine = new GameEngine(scenario.toConfig(seed))) {
+            CompletableFuture<Long> captured = engine.getCapture();
+            while (engine.getTick() < maxTicks && !captured.isDone()){
+                engine.step();
+            }
+            long capture = captured.isDone() ? captured.join() : -1;
+            EngineMetrics metrics = engine.getMetrics();
+            return new long[]{capture, metrics.getMoves(), metrics.getCasFailures(), metrics.getStuckEntries(),
+                    System.nanoTime() - start};
+        }
+    }
+}
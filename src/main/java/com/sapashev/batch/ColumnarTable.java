@@ -0,0 +1,150 @@
+package com.sapashev.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes table of the int and double columns of the same length, stored column by column in the binary file:
+ * MAGIC, VERSION, quantity of columns, quantity of rows, then for each column: name, type (I or D) and values.
+ * Values of the column lie together, so the file is compact and each column could be read at once.
+ */
+public class ColumnarTable {
+    private static final int MAGIC = 0x424D4354;
+    private static final short VERSION = 1;
+    private final int rows;
+    private final List<String> names = new ArrayList<>();
+    private final List<Object> columns = new ArrayList<>();
+
+    /**
+     * @param rows - quantity of rows.
+     */
+    public ColumnarTable(int rows){
+        this.rows = rows;
+    }
+
+    /**
+     * Adds int column.
+     * @param name - name of the column.
+     * @param values - values, one per row.
+     * @return - this table.
+     */
+    public ColumnarTable addColumn(String name, int[] values){
+        return add(name, values, values.length);
+    }
+
+    /**
+     * Adds double column.
+     * @param name - name of the column.
+     * @param values - values, one per row.
+     * @return - this table.
+     */
+    public ColumnarTable addColumn(String name, double[] values){
+        return add(name, values, values.length);
+    }
+
+    public int getRows () {
+        return rows;
+    }
+
+    /**
+     * Writes table to the file.
+     * @param file - path to the file.
+     * @throws IOException - if file can't be written.
+     */
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(columns.size());
+            out.writeInt(rows);
+            for (int i = 0; i < columns.size(); i++){
+                out.writeUTF(names.get(i));
+                Object column = columns.get(i);
+                if(column instanceof int[]){
+                    out.writeByte('I');
+                    for (int value : (int[]) column){
+                        out.writeInt(value);
+                    }
+                } else {
+                    out.writeByte('D');
+                    for (double value : (double[]) column){
+                        out.writeDouble(value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads table from the file.
+     * @param file - path to the file.
+     * @return - table.
+     * @throws IOException - if file can't be read or it's not a table.
+     */
+    public static ColumnarTable read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if(in.readInt() != MAGIC || in.readShort() != VERSION){
+                throw new IOException(String.format("%s is not a table", file));
+            }
+            int count = in.readInt();
+            ColumnarTable table = new ColumnarTable(in.readInt());
+            for (int i = 0; i < count; i++){
+                String name = in.readUTF();
+                if(in.readByte() == 'I'){
+                    int[] values = new int[table.rows];
+                    for (int row = 0; row < values.length; row++){
+                        values[row] = in.readInt();
+                    }
+                    table.addColumn(name, values);
+                } else {
+                    double[] values = new double[table.rows];
+                    for (int row = 0; row < values.length; row++){
+                        values[row] = in.readDouble();
+                    }
+                    table.addColumn(name, values);
+                }
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Returns table as text: names of the columns, then row by row, separated by tabs.
+     * @return - text.
+     */
+    @Override
+    public String toString () {
+        StringBuilder builder = new StringBuilder(String.join("\t", names));
+        for (int row = 0; row < rows; row++){
+            builder.append(System.lineSeparator());
+            for (int i = 0; i < columns.size(); i++){
+                Object column = columns.get(i);
+                if(i > 0){
+                    builder.append('\t');
+                }
+                if(column instanceof int[]){
+                    builder.append(((int[]) column)[row]);
+                } else {
+                    builder.append(String.format("%.3f", ((double[]) column)[row]));
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private ColumnarTable add(String name, Object values, int length){
+        if(length != rows){
+            throw new IllegalArgumentException(String.format("Column %s has %s values instead of %s", name, length, rows));
+        }
+        names.add(name);
+        columns.add(values);
+        return this;
+    }
+}
@@ -0,0 +1,99 @@
+package com.sapashev.batch;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+
+/**
+ * Describes grid of the game parameters read from the properties file. Each parameter is a comma separated list
+ * of values, every combination of the values is a scenario:
+ * rows, columns, monsters, repeatPeriod, blocks - required.
+ * degree - heat map types, chebyshev by default.
+ * board - board types, compact by default.
+ * runs - quantity of games of each scenario, seeded 0..runs-1, 10 by default.
+ * maxTicks - game without capture stops after that tick, 10000 by default.
+ */
+public class ParameterGrid {
+    private final Properties properties;
+
+    public ParameterGrid(Properties properties){
+        this.properties = properties;
+    }
+
+    /**
+     * Reads grid from the properties file.
+     * @param file - path to the file.
+     * @return - grid.
+     * @throws IOException - if file can't be read.
+     */
+    public static ParameterGrid load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return new ParameterGrid(properties);
+    }
+
+    /**
+     * Returns every combination of the parameter values.
+     * @return - scenarios.
+     * @throws IllegalArgumentException - if parameter is missing or combination is inconsistent.
+     */
+    public List<Scenario> getScenarios(){
+        List<Scenario> scenarios = new ArrayList<>();
+        for (int rows : getInts("rows", null)){
+            for (int columns : getInts("columns", null)){
+                for (int monsters : getInts("monsters", null)){
+                    for (int repeatPeriod : getInts("repeatPeriod", null)){
+                        for (int blocks : getInts("blocks", null)){
+                            for (String degree : getValues("degree", "chebyshev")){
+                                for (String board : getValues("board", "compact")){
+                                    scenarios.add(new Scenario(rows, columns, monsters, repeatPeriod, blocks,
+                                            DegreeType.valueOf(degree.toUpperCase()), BoardType.valueOf(board.toUpperCase())));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    public int getRuns(){
+        return getInts("runs", "10")[0];
+    }
+
+    public long getMaxTicks(){
+        return Long.parseLong(getValues("maxTicks", "10000")[0]);
+    }
+
+    private String[] getValues(String key, String defaultValue){
+        String value = properties.getProperty(key, defaultValue);
+        if(value == null){
+            throw new IllegalArgumentException(String.format("Parameter %s is missing", key));
+        }
+        String[] values = value.split(",");
+        for (int i = 0; i < values.length; i++){
+            values[i] = values[i].trim();
+        }
+        return values;
+    }
+
+    private int[] getInts(String key, String defaultValue){
+        String[] values = getValues(key, defaultValue);
+        int[] ints = new int[values.length];
+        for (int i = 0; i < values.length; i++){
+            ints[i] = Integer.parseInt(values[i]);
+        }
+        return ints;
+    }
+}
@@ -0,0 +1,73 @@
+package com.sapashev.batch;
+
+import com.sapashev.GameConfig;
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+
+/**
+ * Describes single point of the parameter grid: parameters of the game except the seed.
+ */
+public class Scenario {
+    private final int rows;
+    private final int columns;
+    private final int monsters;
+    private final int repeatPeriod;
+    private final int blocks;
+    private final DegreeType degreeType;
+    private final BoardType boardType;
+
+    /**
+     * @throws IllegalArgumentException - if parameters are inconsistent (see GameConfig).
+     */
+    public Scenario(int rows, int columns, int monsters, int repeatPeriod, int blocks, DegreeType degreeType,
+                    BoardType boardType){
+        this.rows = rows;
+        this.columns = columns;
+        this.monsters = monsters;
+        this.repeatPeriod = repeatPeriod;
+        this.blocks = blocks;
+        this.degreeType = degreeType;
+        this.boardType = boardType;
+        toConfig(0);
+    }
+
+    /**
+     * Creates config of the single game of this scenario.
+     * @param seed - seed of the random placement.
+     * @return - config of the game with sequential monsters.
+     */
+    public GameConfig toConfig(long seed){
+        return new GameConfig(rows, columns, monsters, repeatPeriod, blocks)
+                .setDegreeType(degreeType)
+                .setBoardType(boardType)
+                .setSeed(seed);
+    }
+
+    public int getRows () {
+        return rows;
+    }
+
+    public int getColumns () {
+        return columns;
+    }
+
+    public int getMonsters () {
+        return monsters;
+    }
+
+    public int getRepeatPeriod () {
+        return repeatPeriod;
+    }
+
+    public int getBlocks () {
+        return blocks;
+    }
+
+    public DegreeType getDegreeType () {
+        return degreeType;
+    }
+
+    public BoardType getBoardType () {
+        return boardType;
+    }
+}
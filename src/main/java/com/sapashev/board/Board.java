@@ -0,0 +1,117 @@
+package com.sapashev.board;
+
+import com.sapashev.Actor;
+import com.sapashev.Monster;
+
+/**
+ * Describes game board - store of the state of each cell.
+ * Cells are addressed by index: row * columns + column, so actors, heat maps and game events
+ * refer to the cell by a single int and the board is free to keep it's cells in any layout.
+ * actor - actor occupying the cell (player, monster, block or freecell), changed by CAS only.
+ * waiters - monsters parked in the TimingWheel until the cell is released.
+ */
+public interface Board {
+    /**
+     * Index of the absent cell: beyond the edge of the board, or no failed cell of the monster.
+     */
+    int NONE = -1;
+
+    /**
+     * Returns quantity of rows of the board.
+     * @return - quantity of rows.
+     */
+    int getRows();
+
+    /**
+     * Returns quantity of columns of the board.
+     * @return - quantity of columns.
+     */
+    int getColumns();
+
+    /**
+     * Returns actor occupying the cell.
+     * @param cell - index of the cell.
+     * @return - actor, freecell if the cell is free.
+     */
+    Actor getActor(int cell);
+
+    /**
+     * Atomically puts actor to the cell, if the cell is occupied by expected actor.
+     * @param cell - index of the cell.
+     * @param expected - actor which should occupy the cell (e.g. freecell).
+     * @param actor - new actor of the cell.
+     * @return - true - actor put, false - cell was occupied by someone else.
+     */
+    boolean compareAndSet(int cell, Actor expected, Actor actor);
+
+    /**
+     * Returns head of the list of monsters waiting for the cell (see TimingWheel).
+     * @param cell - index of the cell.
+     * @return - first waiting monster, null if nobody waits.
+     */
+    Monster getWaiters(int cell);
+
+    /**
+     * Sets head of the list of monsters waiting for the cell (see TimingWheel).
+     * @param cell - index of the cell.
+     * @param waiters - first waiting monster, null if nobody waits.
+     */
+    void setWaiters(int cell, Monster waiters);
+
+    /**
+     * Returns quantity of cells of the board.
+     * @return - rows * columns.
+     */
+    default int size(){
+        return getRows() * getColumns();
+    }
+
+    /**
+     * Returns index of the cell.
+     * @param row - row of the cell.
+     * @param column - column of the cell.
+     * @return - row * columns + column.
+     */
+    default int index(int row, int column){
+        return row * getColumns() + column;
+    }
+
+    /**
+     * Returns row of the cell.
+     * @param cell - index of the cell.
+     * @return - row of the cell.
+     */
+    default int getRow(int cell){
+        return cell / getColumns();
+    }
+
+    /**
+     * Returns column of the cell.
+     * @param cell - index of the cell.
+     * @return - column of the cell.
+     */
+    default int getColumn(int cell){
+        return cell % getColumns();
+    }
+
+    /**
+     * Returns cell nearby to the given one.
+     * Directions: 0 - to the left, 1 - to the right, 2 - above, 3 - below.
+     * @param cell - index of the cell.
+     * @param direction - direction from the cell.
+     * @return - index of the nearby cell, NONE if there is no cell in that direction (edge of the board).
+     */
+    default int getNearbyCell(int cell, int direction){
+        int columns = getColumns();
+        switch (direction){
+            case 0:
+                return cell % columns != 0 ? cell - 1 : NONE;
+            case 1:
+                return (cell + 1) % columns != 0 ? cell + 1 : NONE;
+            case 2:
+                return cell >= columns ? cell - columns : NONE;
+            default:
+                return cell + columns < size() ? cell + columns : NONE;
+        }
+    }
+}
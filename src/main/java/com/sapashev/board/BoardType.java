@@ -0,0 +1,60 @@
+package com.sapashev.board;
+
+import java.util.Random;
+
+import com.sapashev.Actor;
+import com.sapashev.DenseFreeCells;
+import com.sapashev.FreeCells;
+import com.sapashev.SparseFreeCells;
+
+/**
+ * Describes available kinds of the board.
+ * CELLS - board made of Cell objects.
+ * COMPACT - board kept in primitive arrays.
+ * CHUNKED - board of lazily created chunks for huge, mostly free boards, with index of free cells which
+ * keeps only quantity of occupied cells.
+ */
+public enum BoardType {
+    CELLS {
+        @Override
+        public Board create (int rows, int columns, Actor freecell) {
+            return new CellBoard(rows, columns, freecell);
+        }
+    },
+    COMPACT {
+        @Override
+        public Board create (int rows, int columns, Actor freecell) {
+            return new CompactBoard(rows, columns, freecell);
+        }
+    },
+    CHUNKED {
+        @Override
+        public Board create (int rows, int columns, Actor freecell) {
+            return new ChunkedBoard(rows, columns, freecell);
+        }
+
+        @Override
+        public FreeCells createFreeCells (Board board, Random random) {
+            return new SparseFreeCells(board, random);
+        }
+    };
+
+    /**
+     * Creates empty board of this kind, all cells are free.
+     * @param rows - number of rows on the board.
+     * @param columns - number of columns on the board.
+     * @param freecell - object that will be assigned to each cell by default.
+     * @return - board.
+     */
+    public abstract Board create(int rows, int columns, Actor freecell);
+
+    /**
+     * Creates index of the free cells suitable for the board of this kind.
+     * @param board - board of this kind, no actors should be put on it yet.
+     * @param random - source of random numbers to select free cell.
+     * @return - index of the free cells.
+     */
+    public FreeCells createFreeCells(Board board, Random random){
+        return new DenseFreeCells(board, random);
+    }
+}
@@ -0,0 +1,72 @@
+package com.sapashev.board;
+
+import com.sapashev.Actor;
+import com.sapashev.Cell;
+import com.sapashev.Monster;
+
+/**
+ * Describes board made of Cell objects: each cell of the board is a separate object
+ * with it's own AtomicReference to the actor.
+ * Simple, but costs two objects per cell, so the heap and build time grow with the nominal size of the board.
+ */
+public class CellBoard implements Board {
+    private final Cell[][] cells;
+    private final int rows;
+    private final int columns;
+
+    /**
+     * Fills up board with cells
+     * @param rows - number of rows on the board.
+     * @param columns - number of columns on the board.
+     * @param freecell - object that will be assigned to each cell by default.
+     */
+    public CellBoard(int rows, int columns, Actor freecell){
+        this.rows = rows;
+        this.columns = columns;
+        this.cells = new Cell[rows][columns];
+        for (int x = 0; x < rows; x++){
+            for (int y = 0; y < columns; y++){
+                cells[x][y] = new Cell(x,y, freecell);
+            }
+        }
+    }
+
+    @Override
+    public int getRows () {
+        return this.rows;
+    }
+
+    @Override
+    public int getColumns () {
+        return this.columns;
+    }
+
+    @Override
+    public Actor getActor (int cell) {
+        return getCell(cell).actor.get();
+    }
+
+    @Override
+    public boolean compareAndSet (int cell, Actor expected, Actor actor) {
+        return getCell(cell).actor.compareAndSet(expected, actor);
+    }
+
+    @Override
+    public Monster getWaiters (int cell) {
+        return getCell(cell).getWaiters();
+    }
+
+    @Override
+    public void setWaiters (int cell, Monster waiters) {
+        getCell(cell).setWaiters(waiters);
+    }
+
+    /**
+     * Returns cell object.
+     * @param cell - index of the cell.
+     * @return - cell object.
+     */
+    public Cell getCell (int cell) {
+        return cells[cell / columns][cell % columns];
+    }
+}
@@ -0,0 +1,166 @@
+package com.sapashev.board;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.sapashev.Actor;
+import com.sapashev.Monster;
+
+/**
+ * Describes board split into square chunks of CHUNK x CHUNK cells, which are created only when an actor
+ * is put to one of their cells for the first time. Cells of the absent chunk are free and share
+ * the single freecell object, so memory and build time grow with the area visited by actors,
+ * not with the nominal size of the board.
+ * Cell index is the same as for any other board (row * columns + column), so nearby cells are found
+ * by arithmetic on the index and neighbour lookup across the edge of the chunk costs the same as inside it.
+ * chunks - chunks by (row / CHUNK) * chunkColumns + column / CHUNK, null if the chunk has not been touched yet.
+ * Chunks are never removed, even if all actors leave them.
+ */
+public class ChunkedBoard implements Board {
+    /**
+     * Quantity of rows and columns of the chunk, power of two.
+     */
+    public static final int CHUNK = 64;
+    private static final int SHIFT = Integer.numberOfTrailingZeros(CHUNK);
+    private static final int MASK = CHUNK - 1;
+    private final int rows;
+    private final int columns;
+    private final int chunkColumns;
+    private final Actor freecell;
+    private final AtomicReferenceArray<Chunk> chunks;
+
+    /**
+     * @param rows - number of rows on the board.
+     * @param columns - number of columns on the board.
+     * @param freecell - object that is the actor of each free cell.
+     * @throws IllegalArgumentException - if quantity of cells doesn't fit into int.
+     */
+    public ChunkedBoard(int rows, int columns, Actor freecell){
+        if((long) rows * columns > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Board is too large");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.freecell = freecell;
+        this.chunkColumns = (columns + MASK) >> SHIFT;
+        this.chunks = new AtomicReferenceArray<>(((rows + MASK) >> SHIFT) * chunkColumns);
+    }
+
+    @Override
+    public int getRows () {
+        return this.rows;
+    }
+
+    @Override
+    public int getColumns () {
+        return this.columns;
+    }
+
+    @Override
+    public Actor getActor (int cell) {
+        int row = cell / columns;
+        int column = cell - row * columns;
+        Chunk chunk = chunks.get(getChunk(row, column));
+        return chunk == null ? freecell : chunk.actors.get(getOffset(row, column));
+    }
+
+    /**
+     * Puts actor to the cell. Chunk is created if the actor is put to the free cell of the absent chunk.
+     */
+    @Override
+    public boolean compareAndSet (int cell, Actor expected, Actor actor) {
+        int row = cell / columns;
+        int column = cell - row * columns;
+        int index = getChunk(row, column);
+        Chunk chunk = chunks.get(index);
+        if(chunk == null){
+            if(expected != freecell){
+                return false;
+            }
+            chunk = createChunk(index);
+        }
+        return chunk.actors.compareAndSet(getOffset(row, column), expected, actor);
+    }
+
+    @Override
+    public Monster getWaiters (int cell) {
+        int row = cell / columns;
+        int column = cell - row * columns;
+        Chunk chunk = chunks.get(getChunk(row, column));
+        AtomicReferenceArray<Monster> waiters = chunk == null ? null : chunk.waiters;
+        return waiters == null ? null : waiters.get(getOffset(row, column));
+    }
+
+    /**
+     * Sets waiters of the cell. Monsters wait for the occupied cells only, so the chunk always exists,
+     * but waiters of the chunk are created when the first monster waits for one of it's cells.
+     * Should be invoked under the lock of the TimingWheel, as any change of the waiters.
+     */
+    @Override
+    public void setWaiters (int cell, Monster waiters) {
+        int row = cell / columns;
+        int column = cell - row * columns;
+        int index = getChunk(row, column);
+        Chunk chunk = chunks.get(index);
+        if(chunk == null){
+            if(waiters == null){
+                return;
+            }
+            chunk = createChunk(index);
+        }
+        if(chunk.waiters == null){
+            if(waiters == null){
+                return;
+            }
+            chunk.waiters = new AtomicReferenceArray<>(CHUNK * CHUNK);
+        }
+        chunk.waiters.set(getOffset(row, column), waiters);
+    }
+
+    /**
+     * Returns quantity of the chunks created so far.
+     * @return - quantity of chunks.
+     */
+    public int getChunkCount () {
+        int count = 0;
+        for (int i = 0; i < chunks.length(); i++){
+            if(chunks.get(i) != null){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int getChunk (int row, int column) {
+        return (row >> SHIFT) * chunkColumns + (column >> SHIFT);
+    }
+
+    private int getOffset (int row, int column) {
+        return (row & MASK) << SHIFT | (column & MASK);
+    }
+
+    /**
+     * Creates chunk with all cells free. If another thread has created the chunk in the meantime, returns that one.
+     * @param index - index of the chunk.
+     * @return - chunk.
+     */
+    private Chunk createChunk (int index) {
+        Chunk chunk = new Chunk(freecell);
+        return chunks.compareAndSet(index, null, chunk) ? chunk : chunks.get(index);
+    }
+
+    /**
+     * Describes cells of the chunk: actor and waiters of each cell by (row % CHUNK) * CHUNK + column % CHUNK.
+     * Waiters are null until some monster waits for the cell of the chunk.
+     */
+    private static class Chunk {
+        private final AtomicReferenceArray<Actor> actors;
+        private volatile AtomicReferenceArray<Monster> waiters;
+
+        Chunk (Actor freecell) {
+            Actor[] cells = new Actor[CHUNK * CHUNK];
+            Arrays.fill(cells, freecell);
+            this.actors = new AtomicReferenceArray<>(cells);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.sapashev.board;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.sapashev.Actor;
+import com.sapashev.Monster;
+import com.sapashev.Player;
+import com.sapashev.Type;
+
+/**
+ * Describes board which keeps it's cells in the primitive arrays (struct of arrays) instead of Cell objects.
+ * occupancy - code of the actor occupying each cell, updated by CAS:
+ * FREE - freecell, BLOCK - any block, BOMB - any bomb, otherwise entity id + ENTITIES (player and monsters,
+ * see game events).
+ * entities - actors by their code, filled up when the actor is put on the board for the first time.
+ * waiters - monsters waiting for each cell (see TimingWheel).
+ * Blocks and bombs are immobile and never compared by identity, so all blocks share one code, as well as all bombs,
+ * and getActor returns the first block (bomb) put on the board.
+ * Monsters of the MonsterStore have no objects, they are put and moved by their code (compareAndSetCode),
+ * and getActor returns the shared actor of Type.MONSTER for them, which can't be passed to compareAndSet.
+ * Board takes about 8 bytes per cell and is built by two array allocations.
+ */
+public class CompactBoard implements Board {
+    /**
+     * Code of the free cell.
+     */
+    public static final int FREE = 0;
+    /**
+     * Code of the block.
+     */
+    public static final int BLOCK = 1;
+    /**
+     * Code of the bomb.
+     */
+    public static final int BOMB = 2;
+    private static final int ENTITIES = 3;
+    private static final Actor STORED_MONSTER = new StoredMonster();
+    private final int rows;
+    private final int columns;
+    private final Actor freecell;
+    private final AtomicIntegerArray occupancy;
+    private final AtomicReferenceArray<Monster> waiters;
+    private volatile Actor[] entities = new Actor[ENTITIES];
+
+    /**
+     * @param rows - number of rows on the board.
+     * @param columns - number of columns on the board.
+     * @param freecell - object that is the actor of each free cell.
+     */
+    public CompactBoard(int rows, int columns, Actor freecell){
+        this.rows = rows;
+        this.columns = columns;
+        this.freecell = freecell;
+        this.occupancy = new AtomicIntegerArray(rows * columns);
+        this.waiters = new AtomicReferenceArray<>(rows * columns);
+    }
+
+    @Override
+    public int getRows () {
+        return this.rows;
+    }
+
+    @Override
+    public int getColumns () {
+        return this.columns;
+    }
+
+    @Override
+    public Actor getActor (int cell) {
+        int code = occupancy.get(cell);
+        if(code == FREE){
+            return freecell;
+        }
+        Actor[] entities = this.entities;
+        Actor actor = code < entities.length ? entities[code] : null;
+        return actor != null ? actor : STORED_MONSTER;
+    }
+
+    @Override
+    public boolean compareAndSet (int cell, Actor expected, Actor actor) {
+        return occupancy.compareAndSet(cell, code(expected), register(actor));
+    }
+
+    /**
+     * Returns code of the actor occupying the cell.
+     * @param cell - index of the cell.
+     * @return - FREE, BLOCK, BOMB or code of the entity (see getEntityCode).
+     */
+    public int getCode (int cell) {
+        return occupancy.get(cell);
+    }
+
+    /**
+     * Atomically puts the code to the cell, if the cell has expected code. Actor isn't registered,
+     * so entity put by code only is seen by getActor as the shared monster actor.
+     * @param cell - index of the cell.
+     * @param expected - code which should be in the cell (e.g. FREE).
+     * @param code - new code of the cell.
+     * @return - true - code put, false - cell was occupied by someone else.
+     */
+    public boolean compareAndSetCode (int cell, int expected, int code) {
+        return occupancy.compareAndSet(cell, expected, code);
+    }
+
+    /**
+     * Frees the cell occupied by the entity put by code. Nobody but the entity itself changes the occupied cell,
+     * so the ordered write is enough and it's cheaper than CAS.
+     * @param cell - index of the cell occupied by the entity.
+     */
+    public void release (int cell) {
+        occupancy.lazySet(cell, FREE);
+    }
+
+    /**
+     * Returns code of the player or of the monster.
+     * @param id - id of the entity in the game events.
+     * @return - code of the entity.
+     */
+    public static int getEntityCode (int id) {
+        return id + ENTITIES;
+    }
+
+    @Override
+    public Monster getWaiters (int cell) {
+        return waiters.get(cell);
+    }
+
+    @Override
+    public void setWaiters (int cell, Monster waiters) {
+        this.waiters.set(cell, waiters);
+    }
+
+    /**
+     * Returns code of the actor in the occupancy array.
+     * @param actor - actor.
+     * @return - code of the actor.
+     */
+    private int code(Actor actor){
+        switch (actor.getType()){
+            case FREECELL:
+                return FREE;
+            case BLOCK:
+                return BLOCK;
+            case BOMB:
+                return BOMB;
+            case PLAYER:
+                return getEntityCode(((Player) actor).getId());
+            default:
+                return getEntityCode(((Monster) actor).getId());
+        }
+    }
+
+    /**
+     * Returns code of the actor, remembering the actor by it's code if it has not been seen yet.
+     * Actors are registered before CAS, so getActor always finds the actor of the code read from occupancy.
+     * @param actor - actor which is put on the board.
+     * @return - code of the actor.
+     */
+    private int register(Actor actor){
+        int code = code(actor);
+        Actor[] entities = this.entities;
+        if(code != FREE && (code >= entities.length || entities[code] == null)){
+            synchronized (this){
+                entities = this.entities;
+                if(code >= entities.length){
+                    Actor[] grown = new Actor[Math.max(code + 1, entities.length * 2)];
+                    System.arraycopy(entities, 0, grown, 0, entities.length);
+                    entities = grown;
+                }
+                if(entities[code] == null){
+                    entities[code] = actor;
+                }
+                this.entities = entities;
+            }
+        }
+        return code;
+    }
+
+    /**
+     * Actor of the cells occupied by monsters of the MonsterStore.
+     */
+    private static class StoredMonster implements Actor {
+        @Override
+        public Type getType () {
+            return Type.MONSTER;
+        }
+
+        /**
+         * Does nothing: monster of the store is moved by it's code (see compareAndSetCode),
+         * the shared actor is immobile, as blocks are.
+         * @return - false.
+         */
+        @Override
+        public boolean move (Board board, int target, Actor oldActor, Actor newActor) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.sapashev.degree;
+
+import com.sapashev.board.Board;
+
+/**
+ * Heat map which computes degree of the cell on demand as Chebyshev distance to the player cell:
+ * max(|row - playerRow|, |column - playerColumn|).
+ * Player move costs a single volatile write instead of rewriting degree of every cell on the board.
+ * Row and column of the player are packed into one long, so readers never see half updated position.
+ */
+public class ChebyshevDegree implements DegreeField {
+    private final int columns;
+    private volatile long position;
+
+    public ChebyshevDegree(Board board, int playerCell){
+        this.columns = board.getColumns();
+        update(playerCell);
+    }
+
+    /**
+     * Returns Chebyshev distance from the cell to the player cell.
+     * @param cell - index of the cell of the board.
+     * @return - degree equal or greater than zero.
+     */
+    @Override
+    public int getDegree (int cell) {
+        long position = this.position;
+        int row = (int) (position >> 32);
+        int column = (int) position;
+        return Math.max(Math.abs(cell / columns - row), Math.abs(cell % columns - column));
+    }
+
+    /**
+     * Stores position of the player cell.
+     * @param playerCell - index of the cell just occupied by the player.
+     */
+    @Override
+    public void update (int playerCell) {
+        this.position = ((long) (playerCell / columns) << 32) | ((playerCell % columns) & 0xFFFFFFFFL);
+    }
+}
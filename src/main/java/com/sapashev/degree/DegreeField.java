@@ -0,0 +1,49 @@
+package com.sapashev.degree;
+
+/**
+ * Describes heat map of the board - proximity of each cell to the player.
+ * The lower the degree, the closer cell is to the player.
+ * Degree of the cell occupied by player always equals zero.
+ * If there are several players, degree describes proximity to the nearest of them.
+ */
+public interface DegreeField {
+    /**
+     * Returns degree of the cell.
+     * @param cell - index of the cell of the board.
+     * @return - degree equal or greater than zero.
+     */
+    int getDegree(int cell);
+
+    /**
+     * Moves center of the heat map to the new player cell.
+     * @param playerCell - index of the cell just occupied by the player.
+     */
+    void update(int playerCell);
+
+    /**
+     * Moves one of the players of the heat map. Heat map of the single player moves it's center.
+     * @param player - index of the player (see DegreeType.create).
+     * @param playerCell - index of the cell just occupied by the player.
+     */
+    default void update(int player, int playerCell){
+        update(playerCell);
+    }
+
+    /**
+     * Returns player nearest to the cell.
+     * @param cell - index of the cell of the board.
+     * @return - index of the player (see DegreeType.create), always zero for the heat map of the single player.
+     */
+    default int getNearestPlayer(int cell){
+        return 0;
+    }
+
+    /**
+     * Returns copy of the degrees of all cells to be saved in the snapshot of the game,
+     * if they are stored rather than computed on demand.
+     * @return - degrees of the cells or null, if heat map has nothing to save.
+     */
+    default int[] getDegrees(){
+        return null;
+    }
+}
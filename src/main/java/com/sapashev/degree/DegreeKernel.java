@@ -0,0 +1,52 @@
+package com.sapashev.degree;
+
+/**
+ * Describes bulk operations over the array of degrees of all cells, used when the whole heat map has to be
+ * computed at once (new level, teleported player, several players) or many monsters choose their moves at once.
+ * Cells are addressed as on the board: row * columns + column.
+ * Implementations differ in speed only and must give exactly the same results (see DegreeKernels).
+ */
+public interface DegreeKernel {
+    /**
+     * Fills degrees of all cells with Chebyshev distance to the player cell:
+     * max(|row - playerRow|, |column - playerColumn|).
+     * @param field - degrees of the cells, length is a multiple of columns.
+     * @param columns - quantity of columns of the board.
+     * @param playerCell - index of the player cell.
+     */
+    void fillChebyshev(int[] field, int columns, int playerCell);
+
+    /**
+     * Lowers degree of each cell to Chebyshev distance to the player cell, if it's closer.
+     * After filling the field for the first player and merging the rest of them field holds distance
+     * to the nearest player.
+     * @param field - degrees of the cells, length is a multiple of columns.
+     * @param columns - quantity of columns of the board.
+     * @param playerCell - index of the player cell.
+     */
+    void mergeChebyshev(int[] field, int columns, int playerCell);
+
+    /**
+     * Chooses nearby cell with minimum degree for each of the host cells, in the same way as monster does:
+     * directions are examined in order left, right, above, below (see Board.getNearbyCell)
+     * and the first cell with minimum degree wins. Cells with degree Integer.MAX_VALUE (blocks and cells
+     * unreachable in FlowFieldDegree) are never chosen.
+     * @param field - degrees of the cells, length is a multiple of columns.
+     * @param columns - quantity of columns of the board.
+     * @param hosts - host cells of the monsters.
+     * @param targets - receives chosen cells, Board.NONE if monster has no cell to move to.
+     * @param count - quantity of the monsters, first count host cells are processed.
+     */
+    void argminNearby(int[] field, int columns, int[] hosts, int[] targets, int count);
+
+    /**
+     * Writes to each cell nearby cell which monster in that cell would choose (see argminNearby).
+     * Field of the chosen cells is built in one pass over the board, then any batch of monsters
+     * gets it's moves by lookup of their host cells, which pays off when monsters are many or the field is
+     * shared by several batches until the player moves.
+     * @param field - degrees of the cells, length is a multiple of columns.
+     * @param columns - quantity of columns of the board.
+     * @param nearest - receives chosen nearby cell of each cell, Board.NONE if there is no cell to move to.
+     */
+    void fillNearest(int[] field, int columns, int[] nearest);
+}
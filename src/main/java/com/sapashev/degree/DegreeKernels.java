@@ -0,0 +1,58 @@
+package com.sapashev.degree;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selects the fastest kernel available in the running JVM.
+ * Vector kernel (VectorDegreeKernel) is compiled by the vector profile on JDK 17+ and works only
+ * if JVM is started with --add-modules jdk.incubator.vector. If the class is absent or the module
+ * isn't resolved, scalar kernel is used. Selection is made once, on the first request.
+ */
+public final class DegreeKernels {
+    private static final String VECTOR = "com.sapashev.degree.VectorDegreeKernel";
+    private static final Logger LOG = LoggerFactory.getLogger(DegreeKernels.class);
+
+    private DegreeKernels(){
+    }
+
+    /**
+     * Returns vector kernel if it's available, otherwise scalar kernel.
+     * @return - kernel.
+     */
+    public static DegreeKernel best () {
+        return Holder.BEST;
+    }
+
+    /**
+     * Returns scalar kernel.
+     * @return - kernel.
+     */
+    public static DegreeKernel scalar () {
+        return Holder.SCALAR;
+    }
+
+    /**
+     * Returns vector kernel.
+     * @return - kernel or null, if it's not available in this JVM.
+     */
+    public static DegreeKernel vector () {
+        return Holder.BEST != Holder.SCALAR ? Holder.BEST : null;
+    }
+
+    private static DegreeKernel load () {
+        try {
+            DegreeKernel kernel = (DegreeKernel) Class.forName(VECTOR).getDeclaredConstructor().newInstance();
+            LOG.info(String.format("Vector kernel of the heat map is used: %s", kernel.getClass().getName()));
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOG.info(String.format("Scalar kernel of the heat map is used, vector kernel is not available: %s", e));
+            return Holder.SCALAR;
+        }
+    }
+
+    private static class Holder {
+        private static final DegreeKernel SCALAR = new ScalarDegreeKernel();
+        private static final DegreeKernel BEST = load();
+    }
+}
@@ -0,0 +1,91 @@
+package com.sapashev.degree;
+
+import com.sapashev.board.Board;
+
+/**
+ * Describes available kinds of the heat map.
+ * CHEBYSHEV - distance to the player ignoring blocks, computed on demand.
+ * FLOW_FIELD - shortest path to the player routing around blocks, shared by all monsters.
+ * Heat map of the game with several players describes distance to the nearest player.
+ */
+public enum DegreeType {
+    CHEBYSHEV {
+        @Override
+        public DegreeField create (Board board, int playerCell) {
+            return new ChebyshevDegree(board, playerCell);
+        }
+
+        @Override
+        public DegreeField restore (Board board, int playerCell, int[] degrees) {
+            return create(board, playerCell);
+        }
+
+        @Override
+        DegreeField createNearest (Board board, int[] playerCells) {
+            return new NearestChebyshevDegree(board, playerCells);
+        }
+    },
+    FLOW_FIELD {
+        @Override
+        public DegreeField create (Board board, int playerCell) {
+            return new FlowFieldDegree(board, playerCell);
+        }
+
+        @Override
+        public DegreeField restore (Board board, int playerCell, int[] degrees) {
+            return degrees != null ? new FlowFieldDegree(board, playerCell, degrees) : create(board, playerCell);
+        }
+
+        @Override
+        DegreeField createNearest (Board board, int[] playerCells) {
+            return new NearestFlowFieldDegree(board, playerCells);
+        }
+    };
+
+    /**
+     * Creates heat map of this kind centered at the player cell.
+     * @param board - board with cells, blocks should be already placed.
+     * @param playerCell - index of the cell occupied by the player.
+     * @return - heat map.
+     */
+    public abstract DegreeField create(Board board, int playerCell);
+
+    /**
+     * Creates heat map of this kind from the degrees saved in the snapshot (see DegreeField.getDegrees).
+     * @param board - board with cells, blocks should be already placed.
+     * @param playerCell - index of the cell occupied by the player.
+     * @param degrees - saved degrees or null, if heat map should be created anew.
+     * @return - heat map.
+     */
+    public abstract DegreeField restore(Board board, int playerCell, int[] degrees);
+
+    /**
+     * Creates heat map of this kind for the players.
+     * @param board - board with cells, blocks should be already placed.
+     * @param playerCells - cells of the players, index of the player in the array identifies it in the heat map.
+     * @return - heat map of the single player or, if there are several players, heat map of the nearest player.
+     */
+    public DegreeField create(Board board, int[] playerCells){
+        return playerCells.length == 1 ? create(board, playerCells[0]) : createNearest(board, playerCells);
+    }
+
+    /**
+     * Creates heat map of this kind for the players from the degrees saved in the snapshot.
+     * Heat map of several players saves nothing and is created anew.
+     * @param board - board with cells, blocks should be already placed.
+     * @param playerCells - cells of the players.
+     * @param degrees - saved degrees or null.
+     * @return - heat map.
+     */
+    public DegreeField restore(Board board, int[] playerCells, int[] degrees){
+        return playerCells.length == 1 ? restore(board, playerCells[0], degrees) : createNearest(board, playerCells);
+    }
+
+    /**
+     * Creates heat map of this kind for several players.
+     * @param board - board with cells, blocks should be already placed.
+     * @param playerCells - cells of the players.
+     * @return - heat map of the nearest player.
+     */
+    abstract DegreeField createNearest(Board board, int[] playerCells);
+}
@@ -0,0 +1,176 @@
+package com.sapashev.degree;
+
+import com.sapashev.Type;
+import com.sapashev.board.Board;
+
+import java.util.Arrays;
+
+/**
+ * Heat map which describes length of the shortest path from the cell to the player cell, routing around blocks.
+ * Monsters are not obstacles for the path, because they move all the time.
+ * Blocks are immobile, so they are copied from the board once, when the field is created.
+ * Cells which could not be reached from the player cell have degree Integer.MAX_VALUE.
+ *
+ * Distances are kept in two arrays. Monsters read the published one, while the player thread prepares
+ * the other one and then publishes it by a single volatile write, so every monster shares the same field
+ * and never sees it half built.
+ * When the player moves to the adjacent cell, the field is repaired incrementally. Board is bipartite
+ * (each step changes parity of the sum of row and column), so degree of every reachable cell changes by exactly one:
+ * cells which became closer to the player are lowered by one, all the rest are raised by one.
+ * So the published field is copied to the spare one raised by one in a single sequential pass,
+ * then breadth first search from the new player cell lowers the cells which became closer and visits only them.
+ * In any other case the field is rebuilt by plain breadth first search.
+ */
+public class FlowFieldDegree implements DegreeField {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private final boolean[] blocks;
+    private final int rows;
+    private final int columns;
+    private final int[] queue;
+    private volatile int[] distances;
+    private int[] spare;
+    private int source = -1;
+
+    public FlowFieldDegree(Board board, int playerCell){
+        this(board);
+        update(playerCell);
+    }
+
+    /**
+     * Restores field saved in the snapshot without search.
+     * @param board - board with cells, blocks should be already placed.
+     * @param playerCell - index of the cell occupied by the player.
+     * @param degrees - degrees of the cells centered at the player cell (see getDegrees).
+     */
+    public FlowFieldDegree(Board board, int playerCell, int[] degrees){
+        this(board);
+        System.arraycopy(degrees, 0, distances, 0, distances.length);
+        this.source = playerCell;
+    }
+
+    private FlowFieldDegree(Board board){
+        this.rows = board.getRows();
+        this.columns = board.getColumns();
+        int size = rows * columns;
+        this.blocks = new boolean[size];
+        for (int cell = 0; cell < size; cell++){
+            blocks[cell] = board.getActor(cell).getType() == Type.BLOCK;
+        }
+        this.queue = new int[size];
+        this.distances = new int[size];
+        this.spare = new int[size];
+    }
+
+    /**
+     * Returns length of the shortest path from the cell to the player cell.
+     * @param cell - index of the cell of the board.
+     * @return - degree equal or greater than zero, Integer.MAX_VALUE if cell is unreachable.
+     */
+    @Override
+    public int getDegree (int cell) {
+        return distances[cell];
+    }
+
+    @Override
+    public int[] getDegrees () {
+        return distances.clone();
+    }
+
+    /**
+     * Recalculates field for the new player cell and publishes it to the monsters.
+     * Should be invoked by the single (player) thread.
+     * @param playerCell - index of the cell just occupied by the player.
+     */
+    @Override
+    public void update (int playerCell) {
+        int target = playerCell;
+        if(target == source){
+            return;
+        }
+        int[] current = distances;
+        int[] next = spare;
+        if(source >= 0 && isAdjacent(source, target) && isPassable(source) && current[target] != UNREACHABLE){
+            raise(current, next);
+            lower(next, target);
+        } else {
+            rebuild(next, target);
+        }
+        source = target;
+        spare = current;
+        distances = next;
+    }
+
+    /**
+     * Fills up the field by breadth first search from the player cell.
+     * @param field - field to fill up.
+     * @param start - index of the player cell.
+     */
+    private void rebuild (int[] field, int start) {
+        Arrays.fill(field, UNREACHABLE);
+        lower(field, start);
+    }
+
+    /**
+     * Copies the field raising degrees of reachable cells by one.
+     * @param current - published field.
+     * @param next - spare field.
+     */
+    private void raise (int[] current, int[] next) {
+        for (int cell = 0; cell < next.length; cell++){
+            int degree = current[cell];
+            next[cell] = degree != UNREACHABLE ? degree + 1 : UNREACHABLE;
+        }
+    }
+
+    /**
+     * Breadth first search which only decreases degrees, starting from the new player cell.
+     * @param field - field to repair.
+     * @param start - index of the new player cell.
+     */
+    private void lower (int[] field, int start) {
+        field[start] = 0;
+        queue[0] = start;
+        int head = 0;
+        int tail = 1;
+        while (head < tail){
+            int cell = queue[head++];
+            int row = cell / columns;
+            int column = cell % columns;
+            int degree = field[cell] + 1;
+            if(column - 1 >= 0){
+                tail = visit(field, cell - 1, degree, tail);
+            }
+            if(column + 1 < columns){
+                tail = visit(field, cell + 1, degree, tail);
+            }
+            if(row - 1 >= 0){
+                tail = visit(field, cell - columns, degree, tail);
+            }
+            if(row + 1 < rows){
+                tail = visit(field, cell + columns, degree, tail);
+            }
+        }
+    }
+
+    /**
+     * Assigns degree to the passable cell if it's lower than current one and puts the cell to the queue.
+     * @return - new tail of the queue.
+     */
+    private int visit (int[] field, int cell, int degree, int tail) {
+        if(degree < field[cell] && isPassable(cell)){
+            field[cell] = degree;
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+
+    private boolean isAdjacent (int first, int second) {
+        int rowDistance = Math.abs(first / columns - second / columns);
+        int columnDistance = Math.abs(first % columns - second % columns);
+        return rowDistance + columnDistance == 1;
+    }
+
+    private boolean isPassable (int cell) {
+        return !blocks[cell];
+    }
+}
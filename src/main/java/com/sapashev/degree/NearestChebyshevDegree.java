@@ -0,0 +1,79 @@
+package com.sapashev.degree;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.sapashev.board.Board;
+
+/**
+ * Heat map of the game with several players, which computes degree of the cell on demand
+ * as Chebyshev distance to the nearest player cell (see ChebyshevDegree).
+ * Player move costs a single write of it's position, degree costs a pass over the positions of the players,
+ * which is cheap for dozens of players. Ties are resolved in favor of the player with the lower index.
+ * Row and column of each player are packed into one long, so readers never see half updated position.
+ */
+public class NearestChebyshevDegree implements DegreeField {
+    private final int columns;
+    private final AtomicLongArray positions;
+
+    /**
+     * @param board - board with cells.
+     * @param playerCells - cells of the players, index of the player in the array identifies the player.
+     */
+    public NearestChebyshevDegree(Board board, int[] playerCells){
+        this.columns = board.getColumns();
+        this.positions = new AtomicLongArray(playerCells.length);
+        for (int player = 0; player < playerCells.length; player++){
+            update(player, playerCells[player]);
+        }
+    }
+
+    /**
+     * Returns Chebyshev distance from the cell to the nearest player cell.
+     * @param cell - index of the cell of the board.
+     * @return - degree equal or greater than zero.
+     */
+    @Override
+    public int getDegree (int cell) {
+        int row = cell / columns;
+        int column = cell % columns;
+        int degree = Integer.MAX_VALUE;
+        for (int player = 0; player < positions.length(); player++){
+            degree = Math.min(degree, distance(positions.get(player), row, column));
+        }
+        return degree;
+    }
+
+    @Override
+    public int getNearestPlayer (int cell) {
+        int row = cell / columns;
+        int column = cell % columns;
+        int nearest = 0;
+        int degree = Integer.MAX_VALUE;
+        for (int player = 0; player < positions.length(); player++){
+            int distance = distance(positions.get(player), row, column);
+            if(distance < degree){
+                nearest = player;
+                degree = distance;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Moves the first player.
+     * @param playerCell - index of the cell just occupied by the first player.
+     */
+    @Override
+    public void update (int playerCell) {
+        update(0, playerCell);
+    }
+
+    @Override
+    public void update (int player, int playerCell) {
+        positions.set(player, ((long) (playerCell / columns) << 32) | ((playerCell % columns) & 0xFFFFFFFFL));
+    }
+
+    private int distance (long position, int row, int column) {
+        return Math.max(Math.abs(row - (int) (position >> 32)), Math.abs(column - (int) position));
+    }
+}
@@ -0,0 +1,310 @@
+package com.sapashev.degree;
+
+import java.util.Arrays;
+
+import com.sapashev.Type;
+import com.sapashev.board.Board;
+
+/**
+ * Heat map of the game with several players: length of the shortest path from the cell to the nearest player,
+ * routing around blocks, and index of that player. Cells which could not be reached from any player cell
+ * have degree Integer.MAX_VALUE.
+ *
+ * Field is built by the single breadth first search started from all player cells at once, so it costs
+ * the same as the field of one player, whatever the quantity of players.
+ * When one player moves, only the region of the cells nearest to that player is searched again:
+ * region is reset, then it's filled up from it's border (cells nearest to other players, taken in order of degree)
+ * and from the new player cell, which also lowers the cells of other players it became closer to.
+ * So the update costs about area of the board divided by quantity of players. With two players region is about
+ * half of the board and it's reset and fill up cost more than the full search, so then the field is built again.
+ * Each cell has a neighbour nearer by one step to the same player, which keeps regions connected.
+ * Cells at equal distance from several players belong to the one which reached them first,
+ * so after incremental updates owner of such a cell could differ from the owner after the full search,
+ * while degrees are always the same.
+ *
+ * As in FlowFieldDegree, monsters read the published field, while the player thread updates the other one
+ * and publishes it by a single volatile write. Fields differ only in cells changed by the last update,
+ * so before the next update those cells are copied to the spare field instead of the whole board.
+ */
+public class NearestFlowFieldDegree implements DegreeField {
+    private static final int REBUILD_PLAYERS = 2;
+    private final boolean[] blocks;
+    private final int rows;
+    private final int columns;
+    private final int[] sources;
+    private final int[] queue;
+    private final int[] changed;
+    private final int[] changedMarks;
+    private final int[] visitedMarks;
+    private long[] seeds = new long[1024];
+    private volatile Field field;
+    private Field spare;
+    private int changes;
+    private int generation;
+
+    /**
+     * @param board - board with cells, blocks should be already placed.
+     * @param playerCells - cells of the players, index of the player in the array identifies the player.
+     */
+    public NearestFlowFieldDegree(Board board, int[] playerCells){
+        this.rows = board.getRows();
+        this.columns = board.getColumns();
+        int size = rows * columns;
+        this.blocks = new boolean[size];
+        for (int cell = 0; cell < size; cell++){
+            blocks[cell] = board.getActor(cell).getType() == Type.BLOCK;
+        }
+        this.sources = playerCells.clone();
+        this.queue = new int[size];
+        this.changed = new int[size];
+        this.changedMarks = new int[size];
+        this.visitedMarks = new int[size];
+        Field built = new Field(size);
+        build(built);
+        this.spare = new Field(size);
+        System.arraycopy(built.distances, 0, spare.distances, 0, size);
+        System.arraycopy(built.owners, 0, spare.owners, 0, size);
+        this.field = built;
+    }
+
+    /**
+     * Returns length of the shortest path from the cell to the nearest player cell.
+     * @param cell - index of the cell of the board.
+     * @return - degree equal or greater than zero, Integer.MAX_VALUE if cell is unreachable.
+     */
+    @Override
+    public int getDegree (int cell) {
+        return field.distances[cell];
+    }
+
+    @Override
+    public int getNearestPlayer (int cell) {
+        return field.owners[cell];
+    }
+
+    /**
+     * Moves the first player.
+     * @param playerCell - index of the cell just occupied by the first player.
+     */
+    @Override
+    public void update (int playerCell) {
+        update(0, playerCell);
+    }
+
+    /**
+     * Updates the region of the player for it's new cell and publishes the field to the monsters.
+     * Should be invoked by the single (player) thread.
+     * @param player - index of the player.
+     * @param playerCell - index of the cell just occupied by the player.
+     */
+    @Override
+    public void update (int player, int playerCell) {
+        int old = sources[player];
+        if(old == playerCell){
+            return;
+        }
+        sources[player] = playerCell;
+        Field current = field;
+        Field next = spare;
+        if(sources.length <= REBUILD_PLAYERS){
+            build(next);
+            spare = current;
+            field = next;
+            return;
+        }
+        for (int i = 0; i < changes; i++){
+            int cell = changed[i];
+            next.distances[cell] = current.distances[cell];
+            next.owners[cell] = current.owners[cell];
+        }
+        changes = 0;
+        if(++generation < 0){
+            Arrays.fill(changedMarks, 0);
+            Arrays.fill(visitedMarks, 0);
+            generation = 1;
+        }
+        int border = reset(next, player, old);
+        Arrays.sort(seeds, 0, border);
+        change(next, playerCell, 0, player);
+        queue[0] = playerCell;
+        fill(next, 1, border);
+        spare = current;
+        field = next;
+    }
+
+    /**
+     * Fills up the field by breadth first search started from all player cells.
+     * @param target - field to fill up.
+     */
+    private void build (Field target) {
+        Arrays.fill(target.distances, FlowFieldDegree.UNREACHABLE);
+        int tail = 0;
+        for (int player = 0; player < sources.length; player++){
+            target.distances[sources[player]] = 0;
+            target.owners[sources[player]] = player;
+            queue[tail++] = sources[player];
+        }
+        fill(target, tail, 0);
+    }
+
+    /**
+     * Resets degrees of the cells nearest to the player and collects the cells on the border of that region.
+     * Region is found by search from the old player cell over the cells of the player.
+     * @param target - field to update.
+     * @param player - index of the player.
+     * @param old - index of the old player cell.
+     * @return - quantity of the border cells, which are written to seeds as (degree, cell) pairs.
+     */
+    private int reset (Field target, int player, int old) {
+        int[] distances = target.distances;
+        int head = 0;
+        int tail = 1;
+        queue[0] = old;
+        visitedMarks[old] = generation;
+        while (head < tail){
+            int cell = queue[head++];
+            int row = cell / columns;
+            int column = cell % columns;
+            if(column - 1 >= 0){
+                tail = visitRegion(target, cell - 1, player, tail);
+            }
+            if(column + 1 < columns){
+                tail = visitRegion(target, cell + 1, player, tail);
+            }
+            if(row - 1 >= 0){
+                tail = visitRegion(target, cell - columns, player, tail);
+            }
+            if(row + 1 < rows){
+                tail = visitRegion(target, cell + columns, player, tail);
+            }
+        }
+        for (int i = 0; i < tail; i++){
+            change(target, queue[i], FlowFieldDegree.UNREACHABLE, player);
+        }
+        int border = 0;
+        for (int i = 0; i < tail; i++){
+            int cell = queue[i];
+            int row = cell / columns;
+            int column = cell % columns;
+            if(column - 1 >= 0){
+                border = visitBorder(distances, cell - 1, border);
+            }
+            if(column + 1 < columns){
+                border = visitBorder(distances, cell + 1, border);
+            }
+            if(row - 1 >= 0){
+                border = visitBorder(distances, cell - columns, border);
+            }
+            if(row + 1 < rows){
+                border = visitBorder(distances, cell + columns, border);
+            }
+        }
+        return border;
+    }
+
+    /**
+     * Puts the cell of the player to the queue if it's not there yet.
+     * @return - new tail of the queue.
+     */
+    private int visitRegion (Field target, int cell, int player, int tail) {
+        if(visitedMarks[cell] != generation && target.owners[cell] == player
+                && target.distances[cell] != FlowFieldDegree.UNREACHABLE){
+            visitedMarks[cell] = generation;
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+
+    /**
+     * Adds reachable cell outside of the region to the seeds if it's not there yet.
+     * @return - new quantity of the seeds.
+     */
+    private int visitBorder (int[] distances, int cell, int border) {
+        if(visitedMarks[cell] != generation && distances[cell] != FlowFieldDegree.UNREACHABLE){
+            visitedMarks[cell] = generation;
+            if(border == seeds.length){
+                seeds = Arrays.copyOf(seeds, border * 2);
+            }
+            seeds[border++] = ((long) distances[cell] << 32) | cell;
+        }
+        return border;
+    }
+
+    /**
+     * Breadth first search which only decreases degrees. Cells of the queue and the seeds are expanded
+     * in order of degree: the queue grows in order of degree, seeds are sorted, so the next cell
+     * is the lower of their heads. Seed which degree has been lowered in the meantime is skipped.
+     * @param target - field to fill up.
+     * @param tail - quantity of the cells already in the queue.
+     * @param border - quantity of the seeds.
+     */
+    private void fill (Field target, int tail, int border) {
+        int[] distances = target.distances;
+        int head = 0;
+        int seed = 0;
+        while (head < tail || seed < border){
+            int cell;
+            if(seed < border && (head == tail || (int) (seeds[seed] >>> 32) <= distances[queue[head]])){
+                cell = (int) seeds[seed];
+                if(distances[cell] != (int) (seeds[seed++] >>> 32)){
+                    continue;
+                }
+            } else {
+                cell = queue[head++];
+            }
+            int row = cell / columns;
+            int column = cell % columns;
+            int degree = distances[cell] + 1;
+            int owner = target.owners[cell];
+            if(column - 1 >= 0){
+                tail = visit(target, cell - 1, degree, owner, tail);
+            }
+            if(column + 1 < columns){
+                tail = visit(target, cell + 1, degree, owner, tail);
+            }
+            if(row - 1 >= 0){
+                tail = visit(target, cell - columns, degree, owner, tail);
+            }
+            if(row + 1 < rows){
+                tail = visit(target, cell + columns, degree, owner, tail);
+            }
+        }
+    }
+
+    /**
+     * Assigns degree and owner to the passable cell if degree is lower than current one and puts the cell to the queue.
+     * @return - new tail of the queue.
+     */
+    private int visit (Field target, int cell, int degree, int owner, int tail) {
+        if(degree < target.distances[cell] && !blocks[cell]){
+            change(target, cell, degree, owner);
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+
+    /**
+     * Sets degree and owner of the cell, remembering the cell as changed by this update.
+     */
+    private void change (Field target, int cell, int degree, int owner) {
+        target.distances[cell] = degree;
+        target.owners[cell] = owner;
+        if(changedMarks[cell] != generation){
+            changedMarks[cell] = generation;
+            changed[changes++] = cell;
+        }
+    }
+
+    /**
+     * Degrees and owners published together by a single volatile write.
+     */
+    private static class Field {
+        private final int[] distances;
+        private final int[] owners;
+
+        private Field (int size) {
+            this.distances = new int[size];
+            this.owners = new int[size];
+        }
+    }
+}
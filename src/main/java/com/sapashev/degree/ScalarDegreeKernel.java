@@ -0,0 +1,78 @@
+package com.sapashev.degree;
+
+import com.sapashev.board.Board;
+
+/**
+ * Plain loops over the degrees, used when the vector kernel is not available.
+ * Chebyshev distance is filled row by row: row distance is constant within the row,
+ * so inner loop has neither division nor branches.
+ */
+public class ScalarDegreeKernel implements DegreeKernel {
+    @Override
+    public void fillChebyshev (int[] field, int columns, int playerCell) {
+        int playerRow = playerCell / columns;
+        int playerColumn = playerCell % columns;
+        for (int row = 0, start = 0; start < field.length; row++, start += columns){
+            int rowDistance = Math.abs(row - playerRow);
+            for (int column = 0; column < columns; column++){
+                field[start + column] = Math.max(rowDistance, Math.abs(column - playerColumn));
+            }
+        }
+    }
+
+    @Override
+    public void mergeChebyshev (int[] field, int columns, int playerCell) {
+        int playerRow = playerCell / columns;
+        int playerColumn = playerCell % columns;
+        for (int row = 0, start = 0; start < field.length; row++, start += columns){
+            int rowDistance = Math.abs(row - playerRow);
+            for (int column = 0; column < columns; column++){
+                int degree = Math.max(rowDistance, Math.abs(column - playerColumn));
+                field[start + column] = Math.min(field[start + column], degree);
+            }
+        }
+    }
+
+    @Override
+    public void argminNearby (int[] field, int columns, int[] hosts, int[] targets, int count) {
+        for (int i = 0; i < count; i++){
+            targets[i] = nearest(field, columns, hosts[i]);
+        }
+    }
+
+    @Override
+    public void fillNearest (int[] field, int columns, int[] nearest) {
+        for (int cell = 0; cell < field.length; cell++){
+            nearest[cell] = nearest(field, columns, cell);
+        }
+    }
+
+    /**
+     * Chooses nearby cell with minimum degree for the host cell (see argminNearby).
+     * @param field - degrees of the cells.
+     * @param columns - quantity of columns of the board.
+     * @param host - index of the host cell.
+     * @return - index of the chosen cell, Board.NONE if there is no cell to move to.
+     */
+    static int nearest (int[] field, int columns, int host) {
+        int column = host % columns;
+        int next = Board.NONE;
+        int nextDegree = Integer.MAX_VALUE;
+        if(column != 0 && field[host - 1] < nextDegree){
+            next = host - 1;
+            nextDegree = field[next];
+        }
+        if(column != columns - 1 && field[host + 1] < nextDegree){
+            next = host + 1;
+            nextDegree = field[next];
+        }
+        if(host >= columns && field[host - columns] < nextDegree){
+            next = host - columns;
+            nextDegree = field[next];
+        }
+        if(host + columns < field.length && field[host + columns] < nextDegree){
+            next = host + columns;
+        }
+        return next;
+    }
+}
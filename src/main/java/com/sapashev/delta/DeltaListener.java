@@ -0,0 +1,14 @@
+package com.sapashev.delta;
+
+/**
+ * Describes consumer of the cells changed during the tick (renderers, network clients, etc.).
+ * Listener is invoked by the thread which ends the tick, so it should copy what it needs and return quickly,
+ * never blocking. Delta is reused for the next ticks and is valid only during the call.
+ */
+public interface DeltaListener {
+    /**
+     * Handles cells changed during the tick.
+     * @param delta - changed cells, the board already holds their new actors.
+     */
+    void onDelta(TickDelta delta);
+}
@@ -0,0 +1,71 @@
+package com.sapashev.delta;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Describes tracker of the cells which changed their actor. Moves of the player and of the monsters mark
+ * both cells of the move (the released one and the acquired one) in the delta of the current tick.
+ * When the tick ends, delta is swapped with the spare one and passed to the listeners, so consumers
+ * look at the changed cells only instead of scanning the whole board each tick.
+ * Mark is lock-free: writer registers in the delta it's going to change and retries, if the delta has been
+ * swapped in the meantime, while publisher waits until the writers of the swapped delta are gone.
+ * Tracker allocates nothing per tick and takes a bit per cell of the board for each of two deltas.
+ */
+public class DirtyCells {
+    private final List<DeltaListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile TickDelta current;
+    private TickDelta spare;
+
+    /**
+     * @param cells - quantity of cells of the board.
+     * @param capacity - maximum quantity of the cells listed in the delta of the tick.
+     */
+    public DirtyCells(int cells, int capacity){
+        this.current = new TickDelta(cells, capacity);
+        this.spare = new TickDelta(cells, capacity);
+    }
+
+    /**
+     * Marks the cell as changed during the current tick.
+     * @param cell - index of the cell which actor has changed.
+     */
+    public void mark (int cell) {
+        while (true){
+            TickDelta delta = current;
+            delta.writers.incrementAndGet();
+            if(delta == current){
+                delta.add(cell);
+                delta.writers.decrementAndGet();
+                return;
+            }
+            delta.writers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Ends the tick: passes cells changed during the tick to the listeners and starts the delta of the next tick.
+     * @param tick - ended tick.
+     */
+    public synchronized void publish (long tick) {
+        TickDelta delta = current;
+        current = spare;
+        while (delta.writers.get() != 0){
+            Thread.yield();
+        }
+        delta.setTick(tick);
+        for (DeltaListener listener : listeners){
+            listener.onDelta(delta);
+        }
+        delta.clear();
+        spare = delta;
+    }
+
+    public void addListener (DeltaListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener (DeltaListener listener) {
+        listeners.remove(listener);
+    }
+}
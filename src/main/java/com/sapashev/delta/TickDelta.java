@@ -0,0 +1,115 @@
+package com.sapashev.delta;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Describes set of the cells which changed their actor during the tick: bit per cell of the board,
+ * so each cell is listed once, and list of the changed cells in order of the first change.
+ * List has fixed capacity; if more cells changed during the tick, delta is overflowed
+ * and consumer should read the whole board instead. Cells are added by several threads at once,
+ * so bits are set by CAS and the list position is claimed by atomic increment.
+ * Delta is cleared by the changed cells only, so the cost of the tick doesn't depend on the area of the board.
+ */
+public class TickDelta {
+    final AtomicInteger writers = new AtomicInteger();
+    private final AtomicLongArray bits;
+    private final int[] cells;
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile boolean overflow;
+    private long tick;
+
+    /**
+     * @param cells - quantity of cells of the board.
+     * @param capacity - maximum quantity of the listed cells.
+     */
+    TickDelta(int cells, int capacity){
+        this.bits = new AtomicLongArray((cells + 63) >>> 6);
+        this.cells = new int[capacity];
+    }
+
+    /**
+     * Returns tick at the end of which delta has been published.
+     * @return - tick.
+     */
+    public long getTick () {
+        return tick;
+    }
+
+    /**
+     * Returns quantity of the listed cells.
+     * @return - quantity of the changed cells, or capacity, if delta is overflowed.
+     */
+    public int size () {
+        return Math.min(size.get(), cells.length);
+    }
+
+    /**
+     * Returns changed cell.
+     * @param position - position in the list, from 0 to size() - 1.
+     * @return - index of the cell.
+     */
+    public int getCell (int position) {
+        return cells[position];
+    }
+
+    /**
+     * Checks whether the cell changed it's actor during the tick.
+     * @param cell - index of the cell.
+     * @return - true - cell changed, false - otherwise.
+     */
+    public boolean isChanged (int cell) {
+        return (bits.get(cell >>> 6) & 1L << cell) != 0;
+    }
+
+    /**
+     * Returns true if more cells changed than the list could hold. Bits are still set for all changed cells.
+     * @return - true - list is incomplete, false - list holds all changed cells.
+     */
+    public boolean isOverflow () {
+        return overflow;
+    }
+
+    /**
+     * Adds cell to the delta, unless it's added already.
+     * @param cell - index of the changed cell.
+     */
+    void add (int cell) {
+        int word = cell >>> 6;
+        long mask = 1L << cell;
+        long bitsOfWord;
+        do {
+            bitsOfWord = bits.get(word);
+            if((bitsOfWord & mask) != 0){
+                return;
+            }
+        } while (!bits.compareAndSet(word, bitsOfWord, bitsOfWord | mask));
+        int position = size.getAndIncrement();
+        if(position < cells.length){
+            cells[position] = cell;
+        } else {
+            overflow = true;
+        }
+    }
+
+    void setTick (long tick) {
+        this.tick = tick;
+    }
+
+    /**
+     * Removes all cells. Should be invoked when there are no writers.
+     */
+    void clear () {
+        if(overflow){
+            for (int word = 0; word < bits.length(); word++){
+                bits.set(word, 0);
+            }
+            overflow = false;
+        } else {
+            for (int position = size.get() - 1; position >= 0; position--){
+                bits.set(cells[position] >>> 6, 0);
+            }
+        }
+        size.set(0);
+    }
+}
@@ -0,0 +1,10 @@
+package com.sapashev.events;
+
+/**
+ * Describes behaviour of the writer when ring of events is full.
+ * DROP - event is dropped and counted, writer never waits.
+ * WAIT - writer waits until the slowest reader frees the slot.
+ */
+public enum Backpressure {
+    DROP, WAIT
+}
@@ -0,0 +1,41 @@
+package com.sapashev.events;
+
+/**
+ * Folds game events into 64 bit checksum (FNV-1a over entity, cells, tick and outcome of each event).
+ * Two runs produced the same history of the board if their checksums and quantities of events are equal.
+ * Checksum is read after the drainer has stopped.
+ */
+public class ChecksumSink implements EventSink {
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+    private long checksum = OFFSET;
+    private long count;
+
+    @Override
+    public void onEvent (int entity, int from, int to, long tick, Outcome outcome) {
+        long hash = checksum;
+        hash = (hash ^ entity) * PRIME;
+        hash = (hash ^ from) * PRIME;
+        hash = (hash ^ to) * PRIME;
+        hash = (hash ^ tick) * PRIME;
+        hash = (hash ^ outcome.ordinal()) * PRIME;
+        checksum = hash;
+        count++;
+    }
+
+    /**
+     * Returns checksum of the events received so far.
+     * @return - checksum.
+     */
+    public long getChecksum () {
+        return checksum;
+    }
+
+    /**
+     * Returns quantity of the events received so far.
+     * @return - quantity of events.
+     */
+    public long getCount () {
+        return count;
+    }
+}
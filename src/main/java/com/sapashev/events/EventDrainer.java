@@ -0,0 +1,50 @@
+package com.sapashev.events;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Describes thread which drains events from the reader into the sink, away from the simulation threads.
+ * When there is nothing to read it sleeps for a millisecond. After stop it drains remaining events.
+ * Reader is removed from it's ring when the drainer exits, even if the sink has failed,
+ * so writers waiting for the free slots aren't held by the reader nobody reads.
+ */
+public class EventDrainer implements Runnable {
+    private static final int BATCH = 1024;
+    private final EventReader reader;
+    private final EventSink sink;
+    private final Logger LOG = LoggerFactory.getLogger(EventDrainer.class);
+    private volatile boolean running = true;
+
+    public EventDrainer(EventReader reader, EventSink sink){
+        this.reader = reader;
+        this.sink = sink;
+    }
+
+    @Override
+    public void run () {
+        try {
+            while (running){
+                if(reader.drain(sink, BATCH) == 0){
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            }
+            while (reader.drain(sink, BATCH) > 0){
+            }
+        } catch (Exception e) {
+            LOG.error("Exception", e);
+        } finally {
+            reader.getRing().removeReader(reader);
+        }
+    }
+
+    /**
+     * Stops draining after remaining events are passed to the sink.
+     */
+    public void stop () {
+        running = false;
+    }
+}
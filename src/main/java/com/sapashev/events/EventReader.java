@@ -0,0 +1,48 @@
+package com.sapashev.events;
+
+/**
+ * Describes reader of the EventRing. Each reader consumes all published events in order.
+ * Reader should be used by the single thread.
+ */
+public class EventReader {
+    private final EventRing ring;
+    private volatile long sequence;
+
+    EventReader(EventRing ring, long sequence){
+        this.ring = ring;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Passes published events to the sink.
+     * @param sink - consumer of the events.
+     * @param limit - maximum quantity of the events to pass.
+     * @return - quantity of passed events.
+     */
+    public int drain(EventSink sink, int limit){
+        long next = sequence;
+        int count = 0;
+        while (count < limit && ring.read(next, sink)){
+            next++;
+            count++;
+        }
+        sequence = next;
+        return count;
+    }
+
+    /**
+     * Returns ring of the reader.
+     * @return - ring.
+     */
+    EventRing getRing(){
+        return ring;
+    }
+
+    /**
+     * Returns sequence of the next event to read.
+     * @return - sequence of the next event.
+     */
+    long getSequence(){
+        return sequence;
+    }
+}
@@ -0,0 +1,160 @@
+package com.sapashev.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Describes preallocated ring buffer of the game events with fixed layout
+ * (entity, from, to, tick, outcome), kept in parallel primitive arrays, so publishing allocates nothing.
+ * Writer claims the next sequence by CAS on the cursor, fills up the slot and then marks it as published
+ * by ordered write of the sequence. Usually there is the single writer per ring (CAS never fails then),
+ * but in parallel mode workers of the pool share the ring, so claim is safe for several writers as well.
+ * Each reader has it's own sequence and consumes all events, the slowest reader limits the writers.
+ * When ring is full the writer either drops the event and counts it, or waits (see Backpressure).
+ * Readers should be created before the first event is published and removed, when they stop reading.
+ */
+public class EventRing {
+    private final int capacity;
+    private final int mask;
+    private final int[] entities;
+    private final int[] sources;
+    private final int[] targets;
+    private final long[] ticks;
+    private final byte[] outcomes;
+    private final AtomicLongArray published;
+    private final AtomicLong cursor = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Backpressure backpressure;
+    private volatile EventReader[] readers = new EventReader[0];
+    private volatile long gating = Long.MAX_VALUE;
+
+    /**
+     * @param capacity - quantity of slots, rounded up to the power of two.
+     * @param backpressure - behaviour of the writer when ring is full.
+     */
+    public EventRing(int capacity, Backpressure backpressure){
+        this.capacity = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.entities = new int[this.capacity];
+        this.sources = new int[this.capacity];
+        this.targets = new int[this.capacity];
+        this.ticks = new long[this.capacity];
+        this.outcomes = new byte[this.capacity];
+        this.published = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++){
+            published.set(i, -1);
+        }
+        this.backpressure = backpressure;
+    }
+
+    /**
+     * Creates new reader which receives all events published after that.
+     * @return - reader.
+     */
+    public synchronized EventReader newReader(){
+        EventReader reader = new EventReader(this, cursor.get());
+        EventReader[] current = readers;
+        EventReader[] next = new EventReader[current.length + 1];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = reader;
+        readers = next;
+        gating = getMinimumSequence();
+        return reader;
+    }
+
+    /**
+     * Removes the reader, so it doesn't limit the writers anymore. Reader which stops reading for good
+     * (e.g. it's sink has failed) should be removed, otherwise the full ring never frees it's slots
+     * and writers waiting for them (Backpressure.WAIT) hang.
+     * @param reader - reader of this ring.
+     */
+    public synchronized void removeReader(EventReader reader){
+        EventReader[] current = readers;
+        for (int i = 0; i < current.length; i++){
+            if(current[i] == reader){
+                EventReader[] next = new EventReader[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                readers = next;
+                gating = getMinimumSequence();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publishes event. Never blocks if backpressure is Backpressure.DROP.
+     * @param entity - id of the monster or of the player.
+     * @param from - index of the cell before the move.
+     * @param to - index of the target cell.
+     * @param tick - tick at which move has been made.
+     * @param outcome - outcome of the move.
+     * @return - true - event published, false - event dropped, because ring is full.
+     */
+    public boolean publish(int entity, int from, int to, long tick, Outcome outcome){
+        long sequence;
+        while (true){
+            sequence = cursor.get();
+            if(sequence - capacity >= gating && sequence - capacity >= (gating = getMinimumSequence())){
+                if(backpressure == Backpressure.DROP){
+                    dropped.increment();
+                    return false;
+                }
+                LockSupport.parkNanos(1000);
+            } else if(cursor.compareAndSet(sequence, sequence + 1)){
+                break;
+            }
+        }
+        int slot = (int) (sequence & mask);
+        entities[slot] = entity;
+        sources[slot] = from;
+        targets[slot] = to;
+        ticks[slot] = tick;
+        outcomes[slot] = (byte) outcome.ordinal();
+        published.lazySet(slot, sequence);
+        return true;
+    }
+
+    public Backpressure getBackpressure(){
+        return backpressure;
+    }
+
+    /**
+     * Returns quantity of events dropped because ring was full.
+     * @return - quantity of dropped events.
+     */
+    public long getDropped(){
+        return dropped.sum();
+    }
+
+    /**
+     * Returns quantity of events claimed by writers since creation.
+     * @return - sequence of the next event.
+     */
+    public long getCursor(){
+        return cursor.get();
+    }
+
+    /**
+     * Passes event of the sequence to the sink, if it has been published already.
+     * @return - true - event passed, false - event isn't published yet.
+     */
+    boolean read(long sequence, EventSink sink){
+        int slot = (int) (sequence & mask);
+        if(published.get(slot) != sequence){
+            return false;
+        }
+        sink.onEvent(entities[slot], sources[slot], targets[slot], ticks[slot], Outcome.of(outcomes[slot]));
+        return true;
+    }
+
+    private long getMinimumSequence(){
+        long minimum = Long.MAX_VALUE;
+        for (EventReader reader : readers){
+            minimum = Math.min(minimum, reader.getSequence());
+        }
+        return minimum;
+    }
+}
@@ -0,0 +1,17 @@
+package com.sapashev.events;
+
+/**
+ * Describes consumer of the game events (logging, metrics, replay, etc.).
+ * Sink is invoked by the thread of it's EventDrainer, never by the simulation threads.
+ */
+public interface EventSink {
+    /**
+     * Handles single event.
+     * @param entity - id of the monster or of the player.
+     * @param from - index (row * columns + column) of the cell before the move.
+     * @param to - index of the target cell.
+     * @param tick - tick at which move has been made.
+     * @param outcome - outcome of the move.
+     */
+    void onEvent(int entity, int from, int to, long tick, Outcome outcome);
+}
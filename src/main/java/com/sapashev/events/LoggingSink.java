@@ -0,0 +1,44 @@
+package com.sapashev.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes game events to the log at debug level.
+ */
+public class LoggingSink implements EventSink {
+    private final int columns;
+    private final Logger LOG = LoggerFactory.getLogger(LoggingSink.class);
+
+    /**
+     * @param columns - quantity of columns on the board, to convert index of the cell to row and column.
+     */
+    public LoggingSink(int columns){
+        this.columns = columns;
+    }
+
+    @Override
+    public void onEvent (int entity, int from, int to, long tick, Outcome outcome) {
+        if(!LOG.isDebugEnabled()){
+            return;
+        }
+        int row = to / columns;
+        int column = to % columns;
+        switch (outcome){
+            case KILLED:
+                LOG.debug(String.format("Monster %s killed by the bomb in the cell r:%s c:%s at tick %s", entity, from / columns, from % columns, tick));
+                break;
+            case MOVED:
+                LOG.debug(String.format("Monster %s moved successfully to the cell r:%s c:%s at tick %s", entity, row, column, tick));
+                break;
+            case STUCK:
+                LOG.debug(String.format("Monster %s stuck trying to move to cell r:%s c:%s at tick %s", entity, row, column, tick));
+                break;
+            case RECOVERED:
+                LOG.debug(String.format("Monster %s acquired cell after previous fail. Cell r:%s c:%s at tick %s", entity, row, column, tick));
+                break;
+            default:
+                LOG.debug(String.format("Player has been moved successfully to the cell r:%s c:%s at tick %s", row, column, tick));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.sapashev.events;
+
+/**
+ * Describes outcome of the move recorded in the game event.
+ * MOVED - monster moved to the new cell.
+ * STUCK - monster failed to move to the cell, because it wasn't free.
+ * RECOVERED - monster acquired cell after previous fail.
+ * PLAYER_MOVED - player moved to the new cell.
+ * KILLED - monster killed by the blast of the bomb, it's cell is released and target is Board.NONE.
+ */
+public enum Outcome {
+    MOVED, STUCK, RECOVERED, PLAYER_MOVED, KILLED;
+
+    private static final Outcome[] VALUES = values();
+
+    /**
+     * Returns outcome by it's ordinal without copying of values array.
+     * @param ordinal - ordinal of the outcome.
+     * @return - outcome.
+     */
+    static Outcome of(int ordinal){
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,183 @@
+package com.sapashev.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Describes metrics of the game engine.
+ * moves - successful moves of monsters and player.
+ * casFailures - failed CAS in Monster.move and Player.move (target cell wasn't free).
+ * stuckEntries - monsters which got stuck (failed to move to the newly chosen cell).
+ * recoveries - monsters which acquired previously failed cell in repeatFailedMove.
+ * overruns - ticks which took longer than the tick period, so fixed rate schedule fell behind.
+ * monsterTick, playerTick - durations of the monster and player phases of the tick.
+ * All counters are striped (LongAdder), so recording is cheap enough to stay on in production and allocates nothing.
+ */
+public class EngineMetrics implements EngineMetricsMXBean {
+    public static final String NAME = "com.sapashev:type=EngineMetrics";
+    private final long period;
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder casFailures = new LongAdder();
+    private final LongAdder stuckEntries = new LongAdder();
+    private final LongAdder recoveries = new LongAdder();
+    private final LongAdder overruns = new LongAdder();
+    private final Histogram monsterTick = new Histogram();
+    private final Histogram playerTick = new Histogram();
+
+    /**
+     * @param period - period of the tick in milliseconds.
+     */
+    public EngineMetrics(long period){
+        this.period = TimeUnit.MILLISECONDS.toNanos(period);
+    }
+
+    /**
+     * Registers metrics in the platform MBean server.
+     * @throws JMException - if metrics are registered already.
+     */
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, new ObjectName(NAME));
+    }
+
+    /**
+     * Unregisters metrics from the platform MBean server.
+     * @throws JMException - if metrics are not registered.
+     */
+    public void unregister() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(NAME));
+    }
+
+    public void recordMove(){
+        moves.increment();
+    }
+
+    public void recordCasFailure(){
+        casFailures.increment();
+    }
+
+    public void recordStuck(){
+        stuckEntries.increment();
+    }
+
+    public void recordRecovery(){
+        recoveries.increment();
+    }
+
+    /**
+     * Records counts of the whole pass over the monsters at once, so the pass over millions of monsters
+     * doesn't update the shared counters on each move.
+     * @param moves - successful moves.
+     * @param casFailures - failed CAS.
+     * @param stuckEntries - monsters which got stuck.
+     * @param recoveries - monsters which acquired previously failed cell.
+     */
+    public void record(long moves, long casFailures, long stuckEntries, long recoveries){
+        this.moves.add(moves);
+        this.casFailures.add(casFailures);
+        this.stuckEntries.add(stuckEntries);
+        this.recoveries.add(recoveries);
+    }
+
+    /**
+     * Records duration of the monster phase of the tick and counts overrun.
+     * @param duration - duration in nanoseconds.
+     */
+    public void recordMonsterTick(long duration){
+        monsterTick.record(duration);
+        recordOverrun(duration);
+    }
+
+    /**
+     * Records duration of the player phase of the tick and counts overrun.
+     * @param duration - duration in nanoseconds.
+     */
+    public void recordPlayerTick(long duration){
+        playerTick.record(duration);
+        recordOverrun(duration);
+    }
+
+    private void recordOverrun(long duration){
+        if(duration > period){
+            overruns.increment();
+        }
+    }
+
+    /**
+     * Returns immutable copy of the current metrics.
+     * @return - snapshot of the metrics.
+     */
+    public MetricsSnapshot snapshot(){
+        return new MetricsSnapshot(this);
+    }
+
+    @Override
+    public long getMoves () {
+        return moves.sum();
+    }
+
+    @Override
+    public long getCasFailures () {
+        return casFailures.sum();
+    }
+
+    @Override
+    public long getStuckEntries () {
+        return stuckEntries.sum();
+    }
+
+    @Override
+    public long getRecoveries () {
+        return recoveries.sum();
+    }
+
+    @Override
+    public long getOverruns () {
+        return overruns.sum();
+    }
+
+    @Override
+    public long getMonsterTicks () {
+        return monsterTick.getCount();
+    }
+
+    @Override
+    public long getMonsterTickMean () {
+        return monsterTick.getMean();
+    }
+
+    @Override
+    public long getMonsterTickP99 () {
+        return monsterTick.getPercentile(99);
+    }
+
+    @Override
+    public long getMonsterTickMax () {
+        return monsterTick.getMax();
+    }
+
+    @Override
+    public long getPlayerTicks () {
+        return playerTick.getCount();
+    }
+
+    @Override
+    public long getPlayerTickMean () {
+        return playerTick.getMean();
+    }
+
+    @Override
+    public long getPlayerTickP99 () {
+        return playerTick.getPercentile(99);
+    }
+
+    @Override
+    public long getPlayerTickMax () {
+        return playerTick.getMax();
+    }
+}
@@ -0,0 +1,20 @@
+package com.sapashev.metrics;
+
+/**
+ * Describes metrics of the game engine exposed over JMX. Durations are in nanoseconds.
+ */
+public interface EngineMetricsMXBean {
+    long getMoves();
+    long getCasFailures();
+    long getStuckEntries();
+    long getRecoveries();
+    long getOverruns();
+    long getMonsterTicks();
+    long getMonsterTickMean();
+    long getMonsterTickP99();
+    long getMonsterTickMax();
+    long getPlayerTicks();
+    long getPlayerTickMean();
+    long getPlayerTickP99();
+    long getPlayerTickMax();
+}
@@ -0,0 +1,78 @@
+package com.sapashev.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Describes histogram of the durations with power of two buckets: bucket i counts values in [2^(i-1), 2^i),
+ * bucket 0 counts zeros.
+ * Each bucket is the LongAdder, so player, monster and agent threads record their durations without contention.
+ * Percentiles are estimated by the upper bound of the bucket, so they are accurate within factor of two.
+ */
+public class Histogram {
+    private static final int BUCKETS = 64;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public Histogram(){
+        for (int i = 0; i < BUCKETS; i++){
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the value.
+     * @param value - value equal or greater than zero.
+     */
+    public void record(long value){
+        buckets[BUCKETS - Long.numberOfLeadingZeros(Math.max(value, 0))].increment();
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Returns quantity of recorded values.
+     * @return - quantity of values.
+     */
+    public long getCount(){
+        return count.sum();
+    }
+
+    /**
+     * Returns mean of recorded values.
+     * @return - mean, zero if nothing has been recorded.
+     */
+    public long getMean(){
+        long count = this.count.sum();
+        return count == 0 ? 0 : total.sum() / count;
+    }
+
+    /**
+     * Returns maximum of recorded values.
+     * @return - maximum value.
+     */
+    public long getMax(){
+        return max.get();
+    }
+
+    /**
+     * Estimates percentile of recorded values.
+     * @param percentile - percentile from 0 to 100.
+     * @return - upper bound of the bucket containing the percentile, but not greater than maximum.
+     */
+    public long getPercentile(double percentile){
+        long count = this.count.sum();
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            seen += buckets[i].sum();
+            if(seen >= rank && seen > 0){
+                return Math.min(i == 0 ? 0 : (1L << i) - 1, getMax());
+            }
+        }
+        return getMax();
+    }
+}
@@ -0,0 +1,104 @@
+package com.sapashev.metrics;
+
+/**
+ * Describes immutable copy of the engine metrics taken at some moment. Durations are in nanoseconds.
+ */
+public class MetricsSnapshot {
+    private final long time;
+    private final long moves;
+    private final long casFailures;
+    private final long stuckEntries;
+    private final long recoveries;
+    private final long overruns;
+    private final long monsterTicks;
+    private final long monsterTickMean;
+    private final long monsterTickP99;
+    private final long monsterTickMax;
+    private final long playerTicks;
+    private final long playerTickMean;
+    private final long playerTickP99;
+    private final long playerTickMax;
+
+    MetricsSnapshot(EngineMetricsMXBean metrics){
+        this.time = System.currentTimeMillis();
+        this.moves = metrics.getMoves();
+        this.casFailures = metrics.getCasFailures();
+        this.stuckEntries = metrics.getStuckEntries();
+        this.recoveries = metrics.getRecoveries();
+        this.overruns = metrics.getOverruns();
+        this.monsterTicks = metrics.getMonsterTicks();
+        this.monsterTickMean = metrics.getMonsterTickMean();
+        this.monsterTickP99 = metrics.getMonsterTickP99();
+        this.monsterTickMax = metrics.getMonsterTickMax();
+        this.playerTicks = metrics.getPlayerTicks();
+        this.playerTickMean = metrics.getPlayerTickMean();
+        this.playerTickP99 = metrics.getPlayerTickP99();
+        this.playerTickMax = metrics.getPlayerTickMax();
+    }
+
+    public long getTime () {
+        return time;
+    }
+
+    public long getMoves () {
+        return moves;
+    }
+
+    public long getCasFailures () {
+        return casFailures;
+    }
+
+    public long getStuckEntries () {
+        return stuckEntries;
+    }
+
+    public long getRecoveries () {
+        return recoveries;
+    }
+
+    public long getOverruns () {
+        return overruns;
+    }
+
+    public long getMonsterTicks () {
+        return monsterTicks;
+    }
+
+    public long getMonsterTickMean () {
+        return monsterTickMean;
+    }
+
+    public long getMonsterTickP99 () {
+        return monsterTickP99;
+    }
+
+    public long getMonsterTickMax () {
+        return monsterTickMax;
+    }
+
+    public long getPlayerTicks () {
+        return playerTicks;
+    }
+
+    public long getPlayerTickMean () {
+        return playerTickMean;
+    }
+
+    public long getPlayerTickP99 () {
+        return playerTickP99;
+    }
+
+    public long getPlayerTickMax () {
+        return playerTickMax;
+    }
+
+    @Override
+    public String toString () {
+        return String.format("moves: %s, CAS failures: %s, stuck: %s, recovered: %s, overruns: %s, "
+                        + "monster ticks: %s (mean %s us, p99 %s us, max %s us), "
+                        + "player ticks: %s (mean %s us, p99 %s us, max %s us)",
+                moves, casFailures, stuckEntries, recoveries, overruns,
+                monsterTicks, monsterTickMean / 1000, monsterTickP99 / 1000, monsterTickMax / 1000,
+                playerTicks, playerTickMean / 1000, playerTickP99 / 1000, playerTickMax / 1000);
+    }
+}
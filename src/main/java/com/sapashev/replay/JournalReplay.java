@@ -0,0 +1,279 @@
+package com.sapashev.replay;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.sapashev.Player;
+import com.sapashev.board.Board;
+import com.sapashev.events.EventSink;
+import com.sapashev.events.Outcome;
+
+/**
+ * Plays back the journal written by JournalWriter. The journal is memory-mapped and read in place,
+ * state of the board is kept in two int arrays: entity of each cell and cell of each entity,
+ * so playback allocates nothing per event and runs as fast as the arrays are updated.
+ * On open the journal is scanned once to index it's keyframes and the lowest tick of the events after each of them,
+ * then seek to any tick restores the keyframe before the last event of the tick and applies only the events after it.
+ * Player and monsters count their ticks independently, so ticks of the journal aren't ordered globally:
+ * an event of the lagging thread could follow the events of the next ticks, even after the next keyframe.
+ * Journal could be truncated (e.g. game crashed), playback ends at the last complete record.
+ * Journal should be less than 2 GB and the board less than Integer.MAX_VALUE cells.
+ * Usage: java com.sapashev.replay.JournalReplay journal.bin [tick]
+ */
+public class JournalReplay {
+    /**
+     * Entity of the free cell.
+     */
+    public static final int FREE = -1;
+    /**
+     * Entity of the block cell.
+     */
+    public static final int BLOCK = -2;
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private final MappedByteBuffer journal;
+    private final int rows;
+    private final int columns;
+    private final int interval;
+    private final int[] blocks;
+    private final int[] cells;
+    private final int monsters;
+    private final int[] positions;
+    private long[] keyframeTicks = new long[16];
+    private int[] keyframeOffsets = new int[16];
+    private long[] minimumTicks = new long[16];
+    private int keyframes;
+    private int end;
+    private int offset;
+    private long tick;
+
+    /**
+     * Maps the journal, reads it's header and indexes keyframes. State is set to the initial placement.
+     * @param file - path to the journal.
+     * @throws IOException - if journal can't be read, it's not a journal or it's too large.
+     */
+    public JournalReplay(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE){
+                throw new IOException(String.format("Journal %s is larger than 2 GB", file));
+            }
+            this.journal = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if(journal.limit() < 4 + 2 + 4 * 6 || journal.getInt(0) != JournalWriter.MAGIC
+                || journal.getShort(4) != JournalWriter.VERSION){
+            throw new IOException(String.format("%s is not a journal", file));
+        }
+        this.rows = journal.getInt(6);
+        this.columns = journal.getInt(10);
+        this.monsters = journal.getInt(14);
+        this.positions = new int[monsters + journal.getInt(18)];
+        this.blocks = new int[journal.getInt(22)];
+        this.interval = journal.getInt(26);
+        int position = 30;
+        for (int i = 0; i < blocks.length; i++){
+            blocks[i] = journal.getInt(position);
+            position += 4;
+        }
+        this.cells = new int[rows * columns];
+        index(position);
+        if(keyframes == 0){
+            throw new IOException(String.format("Journal %s has no initial placement", file));
+        }
+        restore(0);
+    }
+
+    public static void main (String[] args) throws IOException {
+        long start = System.nanoTime();
+        JournalReplay replay = new JournalReplay(Paths.get(args[0]));
+        long events = 0;
+        if(args.length > 1){
+            replay.seek(Long.parseLong(args[1]));
+        } else {
+            while (replay.next(null)){
+                events++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int player = replay.getPosition(Player.ID);
+        System.out.println(String.format("Board %sx%s, %s monsters, %s players, %s blocks, %s keyframes",
+                replay.rows, replay.columns, replay.monsters, replay.getPlayers(), replay.blocks.length, replay.keyframes));
+        System.out.println(String.format("Tick %s: player at r:%s c:%s", replay.getTick(),
+                player / replay.columns, player % replay.columns));
+        if(events > 0){
+            System.out.println(String.format("%s events replayed in %.3f s, %.0f events/sec", events, seconds, events / seconds));
+        }
+    }
+
+    /**
+     * Applies the next event of the journal and passes it to the sink.
+     * @param sink - sink of the event or null.
+     * @return - true - event applied, false - end of the journal.
+     */
+    public boolean next (EventSink sink) {
+        if(skipKeyframes() >= end){
+            return false;
+        }
+        int entity = journal.getInt(offset + 1);
+        int from = journal.getInt(offset + 5);
+        int to = journal.getInt(offset + 9);
+        tick = journal.getLong(offset + 13);
+        Outcome outcome = OUTCOMES[journal.get(offset + 21)];
+        offset += JournalWriter.EVENT_SIZE;
+        if(outcome != Outcome.STUCK){
+            if(cells[from] == entity){
+                cells[from] = FREE;
+            }
+            if(to != Board.NONE){
+                cells[to] = entity;
+            }
+            positions[entity] = to;
+        }
+        if(sink != null){
+            sink.onEvent(entity, from, to, tick, outcome);
+        }
+        return true;
+    }
+
+    /**
+     * Sets state of the board to the tick: applies events of the journal up to the last event of the tick or earlier.
+     * Events of the later ticks, which have been recorded before it (the other thread was ahead), are applied as well,
+     * so the state is always the one recorded by the journal. Restores the last keyframe followed by such event
+     * and applies the events after it.
+     * @param target - tick.
+     */
+    public void seek (long target) {
+        int keyframe = keyframes - 1;
+        while (keyframe > 0 && minimumTicks[keyframe] > target){
+            keyframe--;
+        }
+        restore(keyframe);
+        int limit = keyframe + 1 < keyframes ? keyframeOffsets[keyframe + 1] : end;
+        int last = offset;
+        for (int position = offset; position < limit; position += JournalWriter.EVENT_SIZE){
+            if(journal.getLong(position + 13) <= target){
+                last = position + JournalWriter.EVENT_SIZE;
+            }
+        }
+        while (offset < last){
+            next(null);
+        }
+        tick = target;
+    }
+
+    /**
+     * Returns entity which occupies the cell.
+     * @param cell - index of the cell (row * columns + column).
+     * @return - id of the monster or of the player, FREE or BLOCK.
+     */
+    public int getEntity (int cell) {
+        return cells[cell];
+    }
+
+    /**
+     * Returns cell occupied by the entity.
+     * @param entity - id of the monster or of the player.
+     * @return - index of the cell, Board.NONE if monster has been killed.
+     */
+    public int getPosition (int entity) {
+        return positions[entity];
+    }
+
+    /**
+     * Returns tick of the last applied event or of the last seek.
+     * @return - tick.
+     */
+    public long getTick () {
+        return tick;
+    }
+
+    public int getRows () {
+        return rows;
+    }
+
+    public int getColumns () {
+        return columns;
+    }
+
+    public int getMonsters () {
+        return monsters;
+    }
+
+    /**
+     * Returns quantity of players: the first one has id Player.ID, the rest are numbered after the monsters.
+     * @return - quantity of players.
+     */
+    public int getPlayers () {
+        return positions.length - monsters;
+    }
+
+    public int getKeyframeInterval () {
+        return interval;
+    }
+
+    /**
+     * Moves offset past the keyframes, the state already includes them.
+     * @return - offset of the next event or the end of the journal.
+     */
+    private int skipKeyframes () {
+        while (offset < end && journal.get(offset) == JournalWriter.KEYFRAME){
+            offset += 1 + 8 + 4 * positions.length;
+        }
+        return offset;
+    }
+
+    /**
+     * Remembers tick and offset of each keyframe, the lowest tick of the events after it up to the next one,
+     * and the end of the last complete record.
+     * @param position - offset of the first record.
+     */
+    private void index (int position) {
+        int keyframeSize = 1 + 8 + 4 * positions.length;
+        int limit = journal.limit();
+        while (position < limit){
+            byte tag = journal.get(position);
+            if(tag == JournalWriter.EVENT && keyframes > 0 && position + JournalWriter.EVENT_SIZE <= limit){
+                minimumTicks[keyframes - 1] = Math.min(minimumTicks[keyframes - 1], journal.getLong(position + 13));
+                position += JournalWriter.EVENT_SIZE;
+            } else if(tag == JournalWriter.KEYFRAME && position + keyframeSize <= limit){
+                if(keyframes == keyframeTicks.length){
+                    keyframeTicks = Arrays.copyOf(keyframeTicks, keyframes * 2);
+                    keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframes * 2);
+                    minimumTicks = Arrays.copyOf(minimumTicks, keyframes * 2);
+                }
+                keyframeTicks[keyframes] = journal.getLong(position + 1);
+                minimumTicks[keyframes] = Long.MAX_VALUE;
+                keyframeOffsets[keyframes++] = position;
+                position += keyframeSize;
+            } else {
+                break;
+            }
+        }
+        this.end = position;
+    }
+
+    /**
+     * Sets state of the board to the keyframe.
+     * @param keyframe - number of the keyframe.
+     */
+    private void restore (int keyframe) {
+        int position = keyframeOffsets[keyframe];
+        tick = keyframeTicks[keyframe];
+        Arrays.fill(cells, FREE);
+        for (int block : blocks){
+            cells[block] = BLOCK;
+        }
+        position += 1 + 8;
+        for (int entity = 0; entity < positions.length; entity++){
+            positions[entity] = journal.getInt(position);
+            if(positions[entity] != Board.NONE){
+                cells[positions[entity]] = entity;
+            }
+            position += 4;
+        }
+        offset = position;
+    }
+}
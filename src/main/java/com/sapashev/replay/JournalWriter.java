@@ -0,0 +1,143 @@
+package com.sapashev.replay;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.sapashev.Block;
+import com.sapashev.GameEngine;
+import com.sapashev.Player;
+import com.sapashev.events.Backpressure;
+import com.sapashev.events.EventSink;
+import com.sapashev.events.Outcome;
+
+/**
+ * Records the game to the append-only binary journal. Layout of the journal (big-endian):
+ * header - MAGIC, VERSION, rows, columns, quantity of monsters, quantity of players, quantity of blocks,
+ * keyframe interval,
+ * cells of the blocks, then records one after another:
+ * EVENT - tag, entity, from, to, tick, outcome of the move (see EventSink);
+ * KEYFRAME - tag, tick, cells of the players and of the monsters in order of id, Board.NONE for killed monsters.
+ * Bombs aren't recorded, killed monster is recorded by the event with target Board.NONE (Outcome.KILLED).
+ * The first keyframe (tick 0) is the initial placement. Next keyframe is written before the first event
+ * of each keyframeInterval ticks and holds positions after all previous events of the journal,
+ * so playback could seek to any tick without replaying the whole game (see JournalReplay).
+ * Writer is the sink of the EventDrainer, so records are collected into the direct buffer
+ * and written by FileChannel in batches in the thread of the drainer, never in the simulation threads.
+ * Journal should be created before the first tick of the engine, whose ring of events waits for the readers
+ * instead of dropping events (GameConfig.setBackpressure), otherwise dropped moves would be silently lost.
+ */
+public class JournalWriter implements EventSink, AutoCloseable {
+    static final int MAGIC = 0x424D524A;
+    static final short VERSION = 2;
+    static final byte EVENT = 1;
+    static final byte KEYFRAME = 2;
+    static final int EVENT_SIZE = 1 + 4 + 4 + 4 + 8 + 1;
+    private static final int BUFFER = 1 << 16;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER);
+    private final int[] positions;
+    private final int interval;
+    private long nextKeyframe;
+
+    /**
+     * Creates the journal and writes header and initial placement of the game.
+     * @param file - path to the journal, existing file is overwritten.
+     * @param engine - engine of the game, which hasn't made any tick yet.
+     * @param interval - quantity of ticks between keyframes.
+     * @throws IOException - if journal can't be written.
+     * @throws IllegalArgumentException - if ring of events of the engine drops events.
+     */
+    public JournalWriter(Path file, GameEngine engine, int interval) throws IOException {
+        if(engine.getEvents().getBackpressure() != Backpressure.WAIT){
+            throw new IllegalArgumentException("Journal requires the ring of events which waits for the readers");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.interval = interval;
+        int[] monsters = engine.getMonsterCells();
+        List<Block> blocks = engine.getBlocks();
+        List<Player> players = engine.getPlayers();
+        this.positions = new int[monsters.length + players.size()];
+        for (Player player : players){
+            positions[player.getId()] = player.getHostCell();
+        }
+        System.arraycopy(monsters, 0, positions, 1, monsters.length);
+        ensure(4 + 2 + 4 * 6);
+        buffer.putInt(MAGIC).putShort(VERSION)
+                .putInt(engine.getConfig().getRows()).putInt(engine.getConfig().getColumns())
+                .putInt(monsters.length).putInt(players.size()).putInt(blocks.size()).putInt(interval);
+        for (Block block : blocks){
+            ensure(4);
+            buffer.putInt(block.getHostCell());
+        }
+        writeKeyframe(0);
+        nextKeyframe = interval;
+    }
+
+    @Override
+    public void onEvent (int entity, int from, int to, long tick, Outcome outcome) {
+        if(tick >= nextKeyframe){
+            writeKeyframe(tick - tick % interval);
+            nextKeyframe = tick - tick % interval + interval;
+        }
+        ensure(EVENT_SIZE);
+        buffer.put(EVENT).putInt(entity).putInt(from).putInt(to).putLong(tick).put((byte) outcome.ordinal());
+        if(outcome != Outcome.STUCK){
+            positions[entity] = to;
+        }
+    }
+
+    /**
+     * Writes buffered records to the file.
+     * @throws IOException - if journal can't be written.
+     */
+    public void flush () throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes buffered records and closes the journal.
+     * Should be invoked after the drainer of the journal has stopped.
+     * @throws IOException - if journal can't be written.
+     */
+    @Override
+    public void close () throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeKeyframe (long tick) {
+        ensure(1 + 8);
+        buffer.put(KEYFRAME).putLong(tick);
+        for (int position : positions){
+            ensure(4);
+            buffer.putInt(position);
+        }
+    }
+
+    /**
+     * Flushes the buffer if it hasn't enough room for the next record.
+     * @param size - size of the record in bytes.
+     */
+    private void ensure (int size) {
+        if(buffer.remaining() < size){
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.sapashev.spectator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Describes encoded delta of the tick. Frames are preallocated and passed between the simulation thread,
+ * which encodes them, and the thread of the server, which writes them to the clients and returns them to the pool.
+ * pins - quantity of clients in the middle of the frame, changed by the thread of the server only.
+ */
+class Frame {
+    final ByteBuffer buffer;
+    long sequence;
+    boolean resync;
+    int pins;
+
+    /**
+     * @param capacity - maximum size of the encoded delta in bytes.
+     */
+    Frame(int capacity){
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+    }
+}
@@ -0,0 +1,12 @@
+package com.sapashev.spectator;
+
+/**
+ * Describes what the spectator server does with the client which falls behind the game by more than allowed lag.
+ * RESYNC - client skips the deltas it hasn't received and gets the new snapshot of the board.
+ * Client in the middle of the frame can't skip the rest of it, so it finishes the frame first,
+ * unless it's behind by twice more frames, then it's disconnected.
+ * DROP - client is disconnected.
+ */
+public enum SlowClientPolicy {
+    RESYNC, DROP
+}
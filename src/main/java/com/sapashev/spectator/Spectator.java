@@ -0,0 +1,20 @@
+package com.sapashev.spectator;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Describes state of the connected client: last frame sent to it and the rest of the buffer being written.
+ * Accessed by the thread of the server only.
+ */
+class Spectator {
+    final SocketChannel channel;
+    long sequence;
+    boolean needsSnapshot = true;
+    ByteBuffer pending;
+    Frame pendingFrame;
+
+    Spectator(SocketChannel channel){
+        this.channel = channel;
+    }
+}
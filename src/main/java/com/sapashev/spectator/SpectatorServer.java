@@ -0,0 +1,392 @@
+package com.sapashev.spectator;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sapashev.GameEngine;
+import com.sapashev.board.Board;
+import com.sapashev.delta.DeltaListener;
+import com.sapashev.delta.TickDelta;
+
+/**
+ * Describes non-blocking server which lets many spectators watch the game.
+ * Client receives full snapshot of the board when it connects, then delta of each tick. Frames (big-endian):
+ * SNAPSHOT - tag 2, sequence, tick, rows, columns, then Type ordinal of each cell as a byte;
+ * DELTA - tag 1, sequence, tick, quantity of cells, then index and Type ordinal of each changed cell.
+ * Sequence of the delta follows the sequence of the previous frame by one, snapshot holds the sequence
+ * of the last delta it includes.
+ *
+ * Simulation thread encodes each delta once (it's the listener of the changed cells of the engine)
+ * into the preallocated direct buffer of the frame and hands the frame over to the server thread.
+ * It never blocks: if there is no free frame, delta is skipped and all clients get new snapshot instead.
+ * Server thread multiplexes all clients by the single Selector and writes the same frame buffer
+ * to every client without copying. Last maxLag frames are kept, client which falls further behind
+ * is handled according to the SlowClientPolicy. Frame returns to the pool after no client is in the middle of it.
+ * Send buffer of each client is limited, so slow client is noticed after a few frames,
+ * rather than after megabytes buffered by the kernel.
+ * Usage: create server for the engine which tracks changes (GameConfig.setTrackChanges), start() and close().
+ */
+public class SpectatorServer implements DeltaListener, Runnable, AutoCloseable {
+    static final byte DELTA = 1;
+    static final byte SNAPSHOT = 2;
+    private static final int DELTA_HEADER = 1 + 8 + 8 + 4;
+    private static final int SNAPSHOT_HEADER = 1 + 8 + 8 + 4 + 4;
+    private static final int CELL_SIZE = 4 + 1;
+    private static final long SELECT_TIMEOUT = 100;
+    private static final int SEND_BUFFER = 1 << 16;
+    private final GameEngine engine;
+    private final Board board;
+    private final int maxLag;
+    private final SlowClientPolicy policy;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final ConcurrentLinkedQueue<Frame> free = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Frame> published = new ConcurrentLinkedQueue<>();
+    private final Frame[] window;
+    private final List<Frame> retired = new ArrayList<>();
+    private final List<Spectator> spectators = new ArrayList<>();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder snapshotsSent = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final Logger LOG = LoggerFactory.getLogger(SpectatorServer.class);
+    private volatile boolean running;
+    private volatile int clients;
+    private Thread thread;
+    private long sequence;
+    private boolean gap;
+    private long latest;
+    private ByteBuffer snapshot;
+    private long snapshotSequence = -1;
+
+    /**
+     * Binds the server and subscribes it to the changed cells of the engine.
+     * @param engine - engine of the game, which tracks changes of the cells.
+     * @param address - address to listen, port 0 selects any free port.
+     * @param maxLag - quantity of the last frames kept for the clients which are behind.
+     * @param policy - what to do with the client which is behind by more than maxLag frames.
+     * @throws IOException - if server can't be bound.
+     * @throws IllegalStateException - if engine doesn't track changes.
+     */
+    public SpectatorServer(GameEngine engine, SocketAddress address, int maxLag, SlowClientPolicy policy) throws IOException {
+        this.engine = engine;
+        this.board = engine.getBoard();
+        this.maxLag = maxLag;
+        this.policy = policy;
+        this.window = new Frame[maxLag];
+        int capacity = DELTA_HEADER + CELL_SIZE * 2 * (engine.getConfig().getMonsters() + engine.getPlayers().size());
+        for (int i = 0; i < 2 * maxLag; i++){
+            free.offer(new Frame(capacity));
+        }
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.configureBlocking(false);
+        server.bind(address, 1024);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        engine.addDeltaListener(this);
+    }
+
+    /**
+     * Starts the thread of the server.
+     */
+    public void start () {
+        running = true;
+        thread = new Thread(this, "spectator-server");
+        thread.start();
+    }
+
+    /**
+     * Encodes changed cells into the free frame and passes it to the server thread.
+     * Invoked by the simulation thread at the end of the tick, never blocks.
+     * @param delta - changed cells.
+     */
+    @Override
+    public void onDelta (TickDelta delta) {
+        Frame frame = free.poll();
+        if(frame == null || delta.isOverflow()){
+            if(frame != null){
+                free.offer(frame);
+            }
+            gap = true;
+            skipped.increment();
+            return;
+        }
+        ByteBuffer buffer = frame.buffer;
+        buffer.clear();
+        buffer.put(DELTA).putLong(++sequence).putLong(delta.getTick()).putInt(delta.size());
+        for (int i = 0; i < delta.size(); i++){
+            int cell = delta.getCell(i);
+            buffer.putInt(cell).put((byte) board.getActor(cell).getType().ordinal());
+        }
+        buffer.flip();
+        frame.sequence = sequence;
+        frame.resync = gap;
+        gap = false;
+        published.offer(frame);
+        selector.wakeup();
+    }
+
+    /**
+     * Loop of the server thread: accepts clients, receives encoded frames and writes them to the clients.
+     */
+    @Override
+    public void run () {
+        try {
+            while (running){
+                selector.select(SELECT_TIMEOUT);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()){
+                    if(keys.next().isAcceptable()){
+                        accept();
+                    }
+                    keys.remove();
+                }
+                receive();
+                for (int i = spectators.size() - 1; i >= 0; i--){
+                    if(!write(spectators.get(i))){
+                        Spectator last = spectators.remove(spectators.size() - 1);
+                        if(i < spectators.size()){
+                            spectators.set(i, last);
+                        }
+                    }
+                }
+                clients = spectators.size();
+                recycle();
+            }
+        } catch (IOException e) {
+            LOG.error("Spectator server failed", e);
+        }
+    }
+
+    /**
+     * Stops the server, disconnects all clients and unsubscribes from the engine.
+     * Waits for the server thread even if interrupted, because clients are owned by it until it ends,
+     * interrupt status is restored then.
+     */
+    @Override
+    public void close () {
+        engine.removeDeltaListener(this);
+        running = false;
+        selector.wakeup();
+        boolean interrupted = false;
+        while (thread != null && thread.isAlive()){
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+        for (Spectator spectator : spectators){
+            closeQuietly(spectator);
+        }
+        spectators.clear();
+        clients = 0;
+        try {
+            server.close();
+            selector.close();
+        } catch (IOException e) {
+            LOG.warn("Spectator server isn't closed", e);
+        }
+    }
+
+    /**
+     * Returns address the server listens to.
+     * @return - address.
+     * @throws IOException - if server is closed.
+     */
+    public InetSocketAddress getAddress () throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    public int getClients () {
+        return clients;
+    }
+
+    public long getFramesSent () {
+        return framesSent.sum();
+    }
+
+    public long getSnapshotsSent () {
+        return snapshotsSent.sum();
+    }
+
+    /**
+     * Returns quantity of times clients skipped deltas and got new snapshot, because they were behind.
+     * @return - quantity of resyncs.
+     */
+    public long getResyncs () {
+        return resyncs.sum();
+    }
+
+    /**
+     * Returns quantity of clients disconnected, because they were behind or their connection failed.
+     * @return - quantity of dropped clients.
+     */
+    public long getDropped () {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns quantity of deltas which simulation thread didn't encode, because all frames were busy.
+     * @return - quantity of skipped deltas.
+     */
+    public long getSkipped () {
+        return skipped.sum();
+    }
+
+    private void accept () throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null){
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, SEND_BUFFER);
+            Spectator spectator = new Spectator(channel);
+            channel.register(selector, 0, spectator);
+            spectators.add(spectator);
+        }
+    }
+
+    /**
+     * Moves frames published by the simulation thread to the window of the last frames.
+     */
+    private void receive () {
+        Frame frame;
+        while ((frame = published.poll()) != null){
+            int slot = (int) (frame.sequence % maxLag);
+            if(window[slot] != null){
+                retired.add(window[slot]);
+            }
+            window[slot] = frame;
+            latest = frame.sequence;
+            if(frame.resync){
+                for (Spectator spectator : spectators){
+                    spectator.needsSnapshot = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes to the client as much as it can take without blocking.
+     * @param spectator - client.
+     * @return - true - client is still connected, false - client has been disconnected.
+     */
+    private boolean write (Spectator spectator) {
+        try {
+            while (true){
+                if(spectator.pending == null){
+                    if(spectator.needsSnapshot){
+                        spectator.pending = getSnapshot().duplicate();
+                        spectator.pendingFrame = null;
+                        spectator.sequence = snapshotSequence;
+                        spectator.needsSnapshot = false;
+                        snapshotsSent.increment();
+                    } else if(spectator.sequence < latest){
+                        Frame frame = window[(int) ((spectator.sequence + 1) % maxLag)];
+                        if(frame == null || frame.sequence != spectator.sequence + 1){
+                            if(policy == SlowClientPolicy.DROP){
+                                return drop(spectator);
+                            }
+                            resyncs.increment();
+                            spectator.needsSnapshot = true;
+                            continue;
+                        }
+                        spectator.pending = frame.buffer.duplicate();
+                        spectator.pendingFrame = frame;
+                        frame.pins++;
+                        spectator.sequence = frame.sequence;
+                    } else {
+                        spectator.channel.keyFor(selector).interestOps(0);
+                        return true;
+                    }
+                } else if(spectator.pendingFrame != null
+                        && latest - spectator.sequence >= (policy == SlowClientPolicy.DROP ? maxLag : 2 * maxLag)){
+                    return drop(spectator);
+                }
+                spectator.channel.write(spectator.pending);
+                if(spectator.pending.hasRemaining()){
+                    spectator.channel.keyFor(selector).interestOps(SelectionKey.OP_WRITE);
+                    return true;
+                }
+                if(spectator.pendingFrame != null){
+                    spectator.pendingFrame.pins--;
+                    framesSent.increment();
+                }
+                spectator.pending = null;
+                spectator.pendingFrame = null;
+            }
+        } catch (IOException e) {
+            return drop(spectator);
+        }
+    }
+
+    /**
+     * Encodes snapshot of the board, if there are new deltas since the last one.
+     * New buffer is created each time, because previous snapshot could be still written to some clients.
+     * @return - snapshot.
+     */
+    private ByteBuffer getSnapshot () {
+        if(snapshotSequence != latest || snapshot == null){
+            int size = board.size();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_HEADER + size);
+            buffer.put(SNAPSHOT).putLong(latest).putLong(engine.getTick())
+                    .putInt(board.getRows()).putInt(board.getColumns());
+            for (int cell = 0; cell < size; cell++){
+                buffer.put((byte) board.getActor(cell).getType().ordinal());
+            }
+            buffer.flip();
+            snapshot = buffer;
+            snapshotSequence = latest;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns retired frames, which no client is writing anymore, to the pool.
+     */
+    private void recycle () {
+        for (int i = retired.size() - 1; i >= 0; i--){
+            Frame frame = retired.get(i);
+            if(frame.pins == 0){
+                retired.remove(i);
+                free.offer(frame);
+            }
+        }
+    }
+
+    private boolean drop (Spectator spectator) {
+        if(spectator.pendingFrame != null){
+            spectator.pendingFrame.pins--;
+        }
+        dropped.increment();
+        closeQuietly(spectator);
+        return false;
+    }
+
+    private void closeQuietly (Spectator spectator) {
+        try {
+            spectator.channel.close();
+        } catch (IOException e) {
+            LOG.warn("Client isn't closed", e);
+        }
+    }
+}
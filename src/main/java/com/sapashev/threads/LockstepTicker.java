@@ -0,0 +1,24 @@
+package com.sapashev.threads;
+
+/**
+ * Drives the game in the calling thread, tick by tick: player phase first, then monster phase.
+ * Ticks are counted, not timed, so with seeded placement and sequential monsters the same parameters
+ * always produce the same history of the board, however fast or slow the machine is.
+ */
+public class LockstepTicker {
+    private final ThreadPlayer player;
+    private final ThreadMonster monster;
+
+    public LockstepTicker(ThreadPlayer player, ThreadMonster monster){
+        this.player = player;
+        this.monster = monster;
+    }
+
+    /**
+     * Makes next tick.
+     */
+    public void step(){
+        player.run();
+        monster.run();
+    }
+}
@@ -0,0 +1,130 @@
+package com.sapashev.threads;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ObjLongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sapashev.Monster;
+
+/**
+ * Describes mode in which each monster is an independent agent with it's own timing loop.
+ * Agents contend with each other through CAS on the actor of the cell only.
+ * If JVM supports virtual threads (Java 21+), each monster runs in it's own virtual thread,
+ * otherwise each monster is a separate periodic task of the scheduler with one thread per core.
+ * Start times of the agents are spread evenly over the period, so they don't wake up all at once.
+ * All agents share the same tick, counted by periods elapsed since start.
+ */
+public class MonsterAgents {
+    private final ObjLongConsumer<Monster> mover;
+    private final List<Monster> monsters;
+    private final long period;
+    private final Logger LOG = LoggerFactory.getLogger(MonsterAgents.class);
+    private volatile boolean running;
+    private volatile long start;
+    private ExecutorService executor;
+
+    /**
+     * @param mover - moves monster on each tick of the agent.
+     * @param monsters - list of monsters.
+     * @param period - period of the agent timing loop in milliseconds.
+     */
+    public MonsterAgents (ThreadMonster mover, List<Monster> monsters, long period){
+        this(mover::makeAgentMove, monsters, period);
+    }
+
+    /**
+     * @param mover - moves monster on the tick of the agent, e.g. ThreadMonster.makeAgentMove.
+     * @param monsters - list of monsters.
+     * @param period - period of the agent timing loop in milliseconds.
+     */
+    MonsterAgents (ObjLongConsumer<Monster> mover, List<Monster> monsters, long period){
+        this.mover = mover;
+        this.monsters = monsters;
+        this.period = TimeUnit.MILLISECONDS.toNanos(period);
+    }
+
+    /**
+     * Starts agent for each monster.
+     */
+    public void start () {
+        start = System.nanoTime();
+        running = true;
+        ExecutorService virtual = newVirtualThreadExecutor();
+        if(virtual != null){
+            executor = virtual;
+            for (int i = 0; i < monsters.size(); i++){
+                Monster monster = monsters.get(i);
+                long offset = getOffset(i);
+                virtual.execute(() -> runLoop(monster, offset));
+            }
+        } else {
+            ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+            executor = scheduler;
+            for (int i = 0; i < monsters.size(); i++){
+                Monster monster = monsters.get(i);
+                scheduler.scheduleAtFixedRate(() -> move(monster), getOffset(i), period, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Stops all agents and waits until the current moves are finished.
+     * @param timeout - maximum time to wait in milliseconds.
+     * @return - true - all agents stopped, false - timeout elapsed.
+     * @throws InterruptedException - if interrupted while waiting.
+     */
+    public boolean stop (long timeout) throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        return executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Timing loop of the virtual thread agent.
+     * @param monster - monster to move.
+     * @param offset - delay before the first move in nanoseconds.
+     */
+    private void runLoop (Monster monster, long offset) {
+        long next = System.nanoTime() + offset;
+        while (running){
+            LockSupport.parkNanos(next - System.nanoTime());
+            if(running){
+                move(monster);
+                next += period;
+            }
+        }
+    }
+
+    private void move (Monster monster) {
+        try {
+            mover.accept(monster, (System.nanoTime() - start) / period);
+        } catch (Exception e) {
+            LOG.error("Exception", e);
+        }
+    }
+
+    private long getOffset (int index) {
+        return period * index / monsters.size();
+    }
+
+    /**
+     * Creates executor which starts new virtual thread for each task.
+     * @return - executor or null, if JVM doesn't support virtual threads.
+     */
+    private ExecutorService newVirtualThreadExecutor () {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
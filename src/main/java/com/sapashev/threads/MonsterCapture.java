@@ -0,0 +1,52 @@
+package com.sapashev.threads;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.sapashev.Player;
+import com.sapashev.board.Board;
+
+/**
+ * Detects capture of the player by the move of the monster: the cell acquired by the monster is compared
+ * with the current cells of the players, so the check reads nothing around the cell and does nothing
+ * after the capture. Cells are read on each check, because agents move monsters without the common
+ * start of the tick and the player moves in it's own thread.
+ */
+class MonsterCapture {
+    private final int columns;
+    private CompletableFuture<Long> capture;
+    private Player[] players = new Player[0];
+
+    MonsterCapture(int columns){
+        this.columns = columns;
+    }
+
+    /**
+     * @param capture - future of the capture, null if capture isn't detected.
+     * @param players - players of the game.
+     */
+    void set(CompletableFuture<Long> capture, List<Player> players){
+        this.capture = capture;
+        this.players = players.toArray(new Player[0]);
+    }
+
+    /**
+     * Completes the future of the capture, if the cell just acquired by the monster is next to the player.
+     * @param cell - cell acquired by the monster.
+     * @param tick - tick of the move.
+     */
+    void check(int cell, long tick){
+        if(capture == null || capture.isDone()){
+            return;
+        }
+        for (Player each : players){
+            int player = each.getHostCell();
+            int distance = cell - player;
+            if(player != Board.NONE && (distance == columns || distance == -columns
+                    || (distance == 1 && cell % columns != 0) || (distance == -1 && player % columns != 0))){
+                capture.complete(tick);
+                return;
+            }
+        }
+    }
+}
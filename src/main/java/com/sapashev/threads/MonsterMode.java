@@ -0,0 +1,14 @@
+package com.sapashev.threads;
+
+/**
+ * Describes how monsters are moved on each tick.
+ * SEQUENTIAL - all monsters are moved one by one by the single thread.
+ * PARALLEL - list of monsters is split among workers of the fork/join pool.
+ * AGENTS - each monster moves independently in it's own timing loop (see MonsterAgents).
+ * PLANNED - cells are assigned to all monsters first, then monsters move one by one (see MovePlanner).
+ * COMPACT - monsters are kept in primitive arrays without objects (see MonsterStore) and moved one by one
+ * by the linear pass over them, as in SEQUENTIAL mode. Requires BoardType.COMPACT.
+ */
+public enum MonsterMode {
+    SEQUENTIAL, PARALLEL, AGENTS, PLANNED, COMPACT
+}
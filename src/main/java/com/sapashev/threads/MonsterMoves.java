@@ -0,0 +1,67 @@
+package com.sapashev.threads;
+
+import com.sapashev.FreeCells;
+import com.sapashev.TimingWheel;
+import com.sapashev.board.Board;
+import com.sapashev.degree.DegreeField;
+import com.sapashev.delta.DirtyCells;
+import com.sapashev.events.EventRing;
+import com.sapashev.metrics.EngineMetrics;
+
+/**
+ * Describes the way monsters are moved during the monster phase of the tick (see MonsterMode).
+ * ThreadMonster advances the tick and the timing wheel, explodes bombs and then passes the phase to the moves.
+ * Holds what all the ways share: board, heat map, index of free cells, events, metrics and tracker of changes.
+ */
+abstract class MonsterMoves {
+    final Board board;
+    final DegreeField degree;
+    final FreeCells freeCells;
+    final TimingWheel wheel;
+    final EventRing events;
+    final EngineMetrics metrics;
+    final DirtyCells dirtyCells;
+    final MonsterCapture capture;
+    final int repeatPeriod;
+
+    /**
+     * @param builder - configuration of the thread.
+     * @param wheel - timing wheel of the parked monsters.
+     * @param capture - detector of the capture.
+     * @param repeatPeriod - repeat period in ticks.
+     */
+    MonsterMoves(ThreadMonster.Builder builder, TimingWheel wheel, MonsterCapture capture, int repeatPeriod){
+        this.board = builder.board;
+        this.degree = builder.degree;
+        this.freeCells = builder.freeCells;
+        this.events = builder.events;
+        this.metrics = builder.metrics;
+        this.dirtyCells = builder.dirtyCells;
+        this.wheel = wheel;
+        this.capture = capture;
+        this.repeatPeriod = repeatPeriod;
+    }
+
+    /**
+     * Prepares monsters for the tick before any bomb explodes.
+     * @param tick - current tick.
+     */
+    void prepare(long tick){
+    }
+
+    /**
+     * Moves all monsters which could move at the tick.
+     * @param tick - current tick.
+     */
+    abstract void move(long tick);
+
+    /**
+     * Marks both cells of the move as changed, if changes are tracked.
+     */
+    void markChanged(int from, int to){
+        if(dirtyCells != null){
+            dirtyCells.mark(from);
+            dirtyCells.mark(to);
+        }
+    }
+}
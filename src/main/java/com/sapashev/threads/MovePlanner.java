@@ -0,0 +1,198 @@
+package com.sapashev.threads;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.sapashev.Monster;
+import com.sapashev.Type;
+import com.sapashev.board.Board;
+import com.sapashev.degree.DegreeField;
+
+/**
+ * Describes first phase of the two-phase monster tick: plans moves of all monsters before any of them is made,
+ * so monsters which want the same cell don't race for it by CAS.
+ * Each monster which is not parked and doesn't repeat it's failed move ranks free nearby cells by degree (ties by direction, as chooseNextMove does).
+ * Then in rounds each unresolved monster claims it's best cell not taken yet, the claim with the highest priority
+ * wins the cell and the losers claim their next-best cell in the next round. Priority rotates with the tick:
+ * the lower (id - tick) modulo quantity of monsters, the higher the priority, so the plan is deterministic,
+ * but the same monster doesn't win every conflict.
+ * Monster without free nearby cell waits for the next tick instead of being parked, killed monster plans nothing.
+ * Only cells free at the time of planning are claimed, so monster never follows the monster which moves away
+ * during the same tick. Claims are kept in the open addressing table sized by the quantity of monsters,
+ * so planning allocates nothing and doesn't depend on the area of the board.
+ * Should be used by the single thread.
+ */
+public class MovePlanner {
+    private static final int CANDIDATES = 4;
+    private static final int EMPTY = -1;
+    private final Board board;
+    private final DegreeField degree;
+    private final List<Monster> monsters;
+    private final int[] candidates;
+    private final int[] counts;
+    private final int[] next;
+    private final int[] targets;
+    private final int[] keys;
+    private final int[] claimants;
+    private final boolean[] taken;
+    private final int[] used;
+    private final int mask;
+    private int usedCount;
+    private int unresolved;
+
+    /**
+     * @param board - board with cells.
+     * @param degree - heat map shared by all monsters.
+     * @param monsters - list of monsters, index of the monster in the list identifies it's plan.
+     */
+    public MovePlanner(Board board, DegreeField degree, List<Monster> monsters){
+        this.board = board;
+        this.degree = degree;
+        this.monsters = monsters;
+        int size = monsters.size();
+        this.candidates = new int[size * CANDIDATES];
+        this.counts = new int[size];
+        this.next = new int[size];
+        this.targets = new int[size];
+        int capacity = Integer.highestOneBit(Math.max(size * CANDIDATES, 1)) << 2;
+        this.keys = new int[capacity];
+        this.claimants = new int[capacity];
+        this.taken = new boolean[capacity];
+        this.used = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Plans moves of the tick. After that getTarget returns cell won by each monster.
+     * @param tick - current tick, rotates priority of the monsters.
+     */
+    public void plan(long tick){
+        int size = monsters.size();
+        unresolved = 0;
+        for (int i = 0; i < size; i++){
+            targets[i] = Board.NONE;
+            next[i] = 0;
+            Monster monster = monsters.get(i);
+            boolean repeats = monster.getFailedCell() != Board.NONE && tick < monster.getStuckTime();
+            boolean killed = monster.getHostCell() == Board.NONE;
+            counts[i] = monster.isParked() || repeats || killed ? 0 : rank(monster, i * CANDIDATES);
+            if(counts[i] > 0){
+                unresolved++;
+            }
+        }
+        int shift = (int) Math.floorMod(tick, (long) Math.max(size, 1));
+        for (int round = 0; round < CANDIDATES && unresolved > 0; round++){
+            for (int i = 0; i < size; i++){
+                if(targets[i] == Board.NONE && next[i] < counts[i]){
+                    claim(i, shift, size);
+                }
+            }
+            for (int u = 0; u < usedCount; u++){
+                int slot = used[u];
+                if(!taken[slot] && claimants[slot] != EMPTY){
+                    taken[slot] = true;
+                    targets[claimants[slot]] = keys[slot];
+                    unresolved--;
+                }
+            }
+            for (int i = 0; i < size; i++){
+                if(targets[i] == Board.NONE && next[i] < counts[i]){
+                    next[i]++;
+                    if(next[i] == counts[i]){
+                        unresolved--;
+                    }
+                }
+            }
+        }
+        clear();
+    }
+
+    /**
+     * Returns cell won by the monster in the last plan.
+     * @param index - index of the monster in the list.
+     * @return - index of the cell, Board.NONE if monster has no move.
+     */
+    public int getTarget(int index){
+        return targets[index];
+    }
+
+    /**
+     * Claims the best cell of the monster which isn't taken in the previous rounds.
+     * Monster whose remaining cells are all taken is resolved without a move.
+     * @param index - index of the monster.
+     * @param shift - rotation of the priority.
+     * @param size - quantity of monsters.
+     */
+    private void claim(int index, int shift, int size){
+        while (next[index] < counts[index]){
+            int cell = candidates[index * CANDIDATES + next[index]];
+            int slot = find(cell);
+            if(!taken[slot]){
+                int current = claimants[slot];
+                if(current == EMPTY || priority(index, shift, size) < priority(current, shift, size)){
+                    claimants[slot] = index;
+                }
+                return;
+            }
+            next[index]++;
+        }
+        unresolved--;
+    }
+
+    private int priority(int index, int shift, int size){
+        int priority = index - shift;
+        return priority < 0 ? priority + size : priority;
+    }
+
+    /**
+     * Writes free nearby cells of the monster ordered by degree, ties in order of directions.
+     * @param monster - monster.
+     * @param offset - position of the first candidate of the monster.
+     * @return - quantity of candidates.
+     */
+    private int rank(Monster monster, int offset){
+        int host = monster.getHostCell();
+        int count = 0;
+        for (int direction = 0; direction < 4; direction++){
+            int cell = board.getNearbyCell(host, direction);
+            if(cell != Board.NONE && board.getActor(cell).getType() == Type.FREECELL){
+                int cellDegree = degree.getDegree(cell);
+                int position = offset + count;
+                while (position > offset && degree.getDegree(candidates[position - 1]) > cellDegree){
+                    candidates[position] = candidates[position - 1];
+                    position--;
+                }
+                candidates[position] = cell;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds slot of the cell in the table of claims, adding it if it's absent.
+     * @param cell - index of the cell.
+     * @return - slot.
+     */
+    private int find(int cell){
+        int slot = (cell * 0x9E3779B9) >>> 7 & mask;
+        while (keys[slot] != EMPTY && keys[slot] != cell){
+            slot = (slot + 1) & mask;
+        }
+        if(keys[slot] == EMPTY){
+            keys[slot] = cell;
+            claimants[slot] = EMPTY;
+            taken[slot] = false;
+            used[usedCount++] = slot;
+        }
+        return slot;
+    }
+
+    private void clear(){
+        for (int u = 0; u < usedCount; u++){
+            keys[used[u]] = EMPTY;
+        }
+        usedCount = 0;
+    }
+}
@@ -0,0 +1,54 @@
+package com.sapashev.threads;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.sapashev.TimingWheel;
+
+/**
+ * Moves monster objects in parallel (MonsterMode.PARALLEL): list of monsters is split among the workers of the pool.
+ * Conflicts between monsters are resolved by CAS on the actor of the cell, exactly as in sequential mode,
+ * because each monster is moved by one worker only.
+ */
+class ParallelMoves extends SequentialMoves {
+    private static final int SPLIT_THRESHOLD = 1024;
+    private final ForkJoinPool pool;
+
+    ParallelMoves(ThreadMonster.Builder builder, TimingWheel wheel, MonsterCapture capture, int repeatPeriod){
+        super(builder, wheel, capture, repeatPeriod);
+        this.pool = builder.pool;
+    }
+
+    @Override
+    void move(long tick){
+        pool.invoke(new MonsterPhase(0, monsters.size(), tick));
+    }
+
+    /**
+     * Moves monsters from the range of the list, splitting the range in halves until it's small enough.
+     */
+    private class MonsterPhase extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final long tick;
+
+        MonsterPhase (int from, int to, long tick) {
+            this.from = from;
+            this.to = to;
+            this.tick = tick;
+        }
+
+        @Override
+        protected void compute () {
+            if(to - from <= SPLIT_THRESHOLD){
+                for (int i = from; i < to; i++){
+                    makeMove(monsters.get(i), tick);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new MonsterPhase(from, middle, tick), new MonsterPhase(middle, to, tick));
+            }
+        }
+    }
+}
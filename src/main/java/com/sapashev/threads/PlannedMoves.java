@@ -0,0 +1,46 @@
+package com.sapashev.threads;
+
+import com.sapashev.Monster;
+import com.sapashev.TimingWheel;
+import com.sapashev.board.Board;
+
+/**
+ * Moves monster objects in two phases (MonsterMode.PLANNED): planner assigns cells to the monsters first
+ * (see MovePlanner), then monsters move to their cells one by one. CAS still guards each move, but it fails only
+ * if the cell is taken by the player or by the monster which repeats it's failed move.
+ */
+class PlannedMoves extends SequentialMoves {
+    private final MovePlanner planner;
+
+    PlannedMoves(ThreadMonster.Builder builder, TimingWheel wheel, MonsterCapture capture, int repeatPeriod){
+        super(builder, wheel, capture, repeatPeriod);
+        this.planner = builder.planner;
+    }
+
+    @Override
+    void move(long tick){
+        planner.plan(tick);
+        for (int i = 0; i < monsters.size(); i++){
+            makePlannedMove(monsters.get(i), planner.getTarget(i), tick);
+        }
+    }
+
+    /**
+     * Makes move of the monster to the cell assigned by the planner.
+     * Monster which repeats it's failed move ignores the plan (planner skips it too),
+     * monster without assigned cell waits for the next tick.
+     * @param monster - monster that should make move.
+     * @param target - cell assigned by the planner or Board.NONE.
+     * @param tick - current tick.
+     */
+    private void makePlannedMove (Monster monster, int target, long tick) {
+        if(monster.isParked()){
+            return;
+        }
+        if(monster.getFailedCell() != Board.NONE && tick < monster.getStuckTime()){
+            repeatFailedMove(monster, tick);
+        } else if(target != Board.NONE){
+            moveTo(monster, target, tick);
+        }
+    }
+}
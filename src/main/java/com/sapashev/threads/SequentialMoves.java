@@ -0,0 +1,159 @@
+package com.sapashev.threads;
+
+import java.util.List;
+
+import com.sapashev.Actor;
+import com.sapashev.Monster;
+import com.sapashev.TimingWheel;
+import com.sapashev.Type;
+import com.sapashev.board.Board;
+import com.sapashev.events.Outcome;
+
+/**
+ * Moves monster objects one by one in the calling thread (MonsterMode.SEQUENTIAL).
+ * Moves of the single monster are shared by the other modes of monster objects, which differ
+ * only in the way they walk the list (see ParallelMoves, PlannedMoves, MonsterAgents).
+ */
+class SequentialMoves extends MonsterMoves {
+    final List<Monster> monsters;
+    final Actor freecell;
+
+    SequentialMoves(ThreadMonster.Builder builder, TimingWheel wheel, MonsterCapture capture, int repeatPeriod){
+        super(builder, wheel, capture, repeatPeriod);
+        this.monsters = builder.monsters;
+        this.freecell = builder.freecell;
+    }
+
+    @Override
+    void move(long tick){
+        for (int i = 0; i < monsters.size(); i++){
+            makeMove(monsters.get(i), tick);
+        }
+    }
+
+    /**
+     * Tries to make next move, chasing the player.
+     * Degree field describes proximity of each cell to the player current location.
+     * If monster has failed cell, it's stuckTime field indicates tick when monster tried to move,
+     * but failed + repeatPeriod. Until that tick monster repeats attempts to get previously failed cell,
+     * after that it can move to the new cell. Between attempts monster is parked in the timing wheel
+     * and skips it's moves, until the failed cell is released. Killed monster doesn't move.
+     * The whole move allocates no objects, so it doesn't produce garbage however many monsters are on the board.
+     * Outcome of the move is published to the ring of game events, never logged by this thread.
+     * @param monster - monster that should make move.
+     * @param tick - current tick.
+     */
+    void makeMove(Monster monster, long tick){
+        if(monster.isParked() || monster.getHostCell() == Board.NONE){
+            return;
+        }
+        if(monster.getFailedCell() == Board.NONE || tick >= monster.getStuckTime()){   //If repeat period exceeded, choose next cell.
+            makeNewMove(monster, tick);
+        } else {
+            repeatFailedMove(monster, tick);                          //If repeat period wasn't exceeded, try it again.
+        }
+    }
+
+    /**
+     * Selects cell with minimum degree among nearby cells (see Board.getNearbyCell), skipping Type.BLOCK cells,
+     * because of monster can't move to the Type.BLOCK cell.
+     * In case of two or more cells have the same degree,
+     * first occurrence with minimum degree will be chosen.
+     * @param monster - monster which should decide where to go next.
+     * @return - index of the cell with minimum degree, Board.NONE if monster is surrounded by blocks.
+     */
+    int chooseNextMove (Monster monster){
+        int host = monster.getHostCell();
+        int next = Board.NONE;
+        int nextDegree = 0;
+        for (int direction = 0; direction < 4; direction++){
+            int cell = board.getNearbyCell(host, direction);
+            if(cell != Board.NONE && board.getActor(cell).getType() != Type.BLOCK){
+                int cellDegree = degree.getDegree(cell);
+                if(next == Board.NONE || cellDegree < nextDegree){
+                    next = cell;
+                    nextDegree = cellDegree;
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Tries to move monster to the cell. If succeeded swaps the cells, otherwise sets monster's stuckTime,
+     * cell to which it has tried to move as failed cell and parks the monster.
+     * @param monster - monster to move
+     * @param target - index of the cell.
+     * @param tick - current tick.
+     */
+    void moveTo (Monster monster, int target, long tick) {
+        if(monster.move(board, target, freecell, monster)){
+            events.publish(monster.getId(), monster.getHostCell(), target, tick, Outcome.MOVED);
+            swapCells(monster, target, tick);
+            monster.setFailedCell(Board.NONE);
+            metrics.recordMove();
+        } else{
+            metrics.recordCasFailure();
+            metrics.recordStuck();
+            monster.setStuckTime(tick + repeatPeriod);
+            monster.setFailedCell(target);
+            if(repeatPeriod > 0){
+                wheel.park(monster);
+            }
+            events.publish(monster.getId(), monster.getHostCell(), target, tick, Outcome.STUCK);
+        }
+    }
+
+    /**
+     * Conducts another attempt to move to the same cell.
+     * If move succeeds it swaps the cells and erases failed cell reference.
+     * If move wasn't succeed parks the monster again until the same stuck time.
+     * @param monster - monster who is failed to get the cell at the last time.
+     * @param tick - current tick.
+     */
+    void repeatFailedMove (Monster monster, long tick) {
+        if(!monster.move(board, monster.getFailedCell(), freecell, monster)){
+            metrics.recordCasFailure();
+            wheel.park(monster);
+        } else {
+            metrics.recordRecovery();
+            metrics.recordMove();
+            events.publish(monster.getId(), monster.getHostCell(), monster.getFailedCell(), tick, Outcome.RECOVERED);
+            swapCells(monster, monster.getFailedCell(), tick);
+            monster.setFailedCell(Board.NONE);
+        }
+    }
+
+    /**
+     * Tries to move monster to the new cell chosen by chooseNextMove.
+     * If monster is surrounded by blocks, it stays at place.
+     * @param monster - monster to move
+     * @param tick - current tick.
+     */
+    private void makeNewMove (Monster monster, long tick) {
+        int target = chooseNextMove(monster);
+        if(target != Board.NONE){
+            moveTo(monster, target, tick);
+        }
+    }
+
+    /**
+     * Swaps the new and previous cells of the monster. Should be invoked if only move of monster succeeds.
+     * It should be done to allow another monsters and actors to make move to the released cell.
+     * First it assigns to the previous cell, occupied by monster, status free cell.
+     * Second it assigns to the hostCell field of the monster reference to the just occupied cell.
+     * Index of free cells is updated accordingly and monsters waiting for the previous cell are woken up.
+     * Both cells are marked as changed, if changes are tracked, and capture of the player is checked.
+     * @param monster - monster, that done move.
+     * @param target - new cell to which monster has been moved.
+     * @param tick - current tick.
+     */
+    private void swapCells (Monster monster, int target, long tick) {
+        board.compareAndSet(monster.getHostCell(), monster, freecell);
+        markChanged(monster.getHostCell(), target);
+        freeCells.move(monster.getHostCell(), target);
+        wheel.wake(monster.getHostCell());
+        monster.setHostCell(target);
+        capture.check(target, tick);
+    }
+}
@@ -0,0 +1,150 @@
+package com.sapashev.threads;
+
+import com.sapashev.MonsterStore;
+import com.sapashev.TimingWheel;
+import com.sapashev.board.Board;
+import com.sapashev.board.CompactBoard;
+import com.sapashev.events.Outcome;
+
+/**
+ * Moves monsters of the MonsterStore, which have no objects (MonsterMode.COMPACT): their state is read and written
+ * in the arrays of the store, which are ordered by cells before the tick and walked one slot after another.
+ * Cell is acquired by CAS on the code of the CompactBoard, but only if it's free, and released by the ordered write.
+ * Counts of the pass are recorded to the metrics once, at the end of the pass, and moves are passed
+ * to the index of free cells by batches.
+ * Parked monster checks it's failed cell instead of waiting in the timing wheel.
+ */
+class StoredMoves extends MonsterMoves {
+    private static final int FREE_CELLS_BATCH = 4096;
+    private final MonsterStore store;
+    private final CompactBoard compactBoard;
+    private final int[] releasedCells = new int[FREE_CELLS_BATCH];
+    private final int[] acquiredCells = new int[FREE_CELLS_BATCH];
+    private int swaps;
+    private long moves;
+    private long casFailures;
+    private long stuckEntries;
+    private long recoveries;
+
+    StoredMoves(ThreadMonster.Builder builder, TimingWheel wheel, MonsterCapture capture, int repeatPeriod){
+        super(builder, wheel, capture, repeatPeriod);
+        this.store = builder.store;
+        this.compactBoard = (CompactBoard) builder.board;
+    }
+
+    /**
+     * Orders the store by cells, so the pass and explosions of the bombs walk the board forward.
+     * @param tick - current tick.
+     */
+    @Override
+    void prepare(long tick){
+        store.sort(board);
+    }
+
+    @Override
+    void move(long tick){
+        for (int i = 0; i < store.getLiveSlots(); i++){
+            if(store.getHostCell(i) != Board.NONE){
+                makeMove(i, tick);
+            }
+        }
+        freeCells.move(releasedCells, acquiredCells, swaps);
+        swaps = 0;
+        metrics.record(moves, casFailures, stuckEntries, recoveries);
+        moves = casFailures = stuckEntries = recoveries = 0;
+    }
+
+    /**
+     * Makes move of the monster of the store, as SequentialMoves.makeMove does for the monster object.
+     * Monster which failed cell is still occupied stays at place, until the cell is released or stuck time comes.
+     * @param monster - slot of the monster in the store.
+     * @param tick - current tick.
+     */
+    private void makeMove (int monster, long tick) {
+        int failed = store.getFailedCell(monster);
+        if(failed == Board.NONE || tick >= store.getStuckTime(monster)){
+            int target = chooseNextMove(monster);
+            if(target != Board.NONE){
+                moveTo(monster, target, tick);
+            }
+        } else if(compactBoard.getCode(failed) == CompactBoard.FREE){
+            int id = store.getId(monster);
+            if(compactBoard.compareAndSetCode(failed, CompactBoard.FREE, CompactBoard.getEntityCode(id))){
+                recoveries++;
+                moves++;
+                events.publish(id, store.getHostCell(monster), failed, tick, Outcome.RECOVERED);
+                swapCells(monster, failed, tick);
+                store.setFailedCell(monster, Board.NONE);
+            } else {
+                casFailures++;
+            }
+        }
+    }
+
+    /**
+     * Tries to move monster of the store to the cell, see SequentialMoves.moveTo. Occupied cell isn't even tried by CAS.
+     * @param monster - slot of the monster in the store.
+     * @param target - index of the cell.
+     * @param tick - current tick.
+     */
+    private void moveTo (int monster, int target, long tick) {
+        int id = store.getId(monster);
+        if(compactBoard.getCode(target) == CompactBoard.FREE
+                && compactBoard.compareAndSetCode(target, CompactBoard.FREE, CompactBoard.getEntityCode(id))){
+            events.publish(id, store.getHostCell(monster), target, tick, Outcome.MOVED);
+            swapCells(monster, target, tick);
+            store.setFailedCell(monster, Board.NONE);
+            moves++;
+        } else {
+            casFailures++;
+            stuckEntries++;
+            store.setStuckTime(monster, tick + repeatPeriod);
+            store.setFailedCell(monster, target);
+            events.publish(id, store.getHostCell(monster), target, tick, Outcome.STUCK);
+        }
+    }
+
+    /**
+     * Releases the previous cell of the monster of the store and makes the target cell it's host,
+     * see SequentialMoves.swapCells. Monsters of the store aren't parked in the timing wheel, so nobody is woken up.
+     * Move is added to the batch of the index of free cells, which is passed to the index when it's full.
+     * @param monster - slot of the monster in the store.
+     * @param target - new cell to which monster has been moved.
+     * @param tick - current tick.
+     */
+    private void swapCells (int monster, int target, long tick) {
+        int host = store.getHostCell(monster);
+        compactBoard.release(host);
+        markChanged(host, target);
+        if(swaps == FREE_CELLS_BATCH){
+            freeCells.move(releasedCells, acquiredCells, swaps);
+            swaps = 0;
+        }
+        releasedCells[swaps] = host;
+        acquiredCells[swaps++] = target;
+        store.setHostCell(monster, target);
+        capture.check(target, tick);
+    }
+
+    /**
+     * Selects cell with minimum degree among nearby cells of the monster of the store, see SequentialMoves.chooseNextMove.
+     * @param monster - slot of the monster in the store.
+     * @return - index of the cell with minimum degree, Board.NONE if monster is surrounded by blocks.
+     */
+    private int chooseNextMove (int monster){
+        int host = store.getHostCell(monster);
+        int next = Board.NONE;
+        int nextDegree = 0;
+        for (int direction = 0; direction < 4; direction++){
+            int cell = board.getNearbyCell(host, direction);
+            if(cell != Board.NONE && compactBoard.getCode(cell) != CompactBoard.BLOCK){
+                int cellDegree = degree.getDegree(cell);
+                if(next == Board.NONE || cellDegree < nextDegree){
+                    next = cell;
+                    nextDegree = cellDegree;
+                }
+            }
+        }
+        return next;
+    }
+}
@@ -1,160 +1,273 @@
 package com.sapashev.threads;
 
-import java.time.LocalTime;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.sapashev.*;
+import com.sapashev.board.Board;
+import com.sapashev.board.CompactBoard;
+import com.sapashev.degree.DegreeField;
+import com.sapashev.delta.DirtyCells;
+import com.sapashev.events.EventRing;
+import com.sapashev.metrics.EngineMetrics;
 
 /**
- * Describes Thread which manipulating monsters on the board.
+ * Describes Thread which manipulating monsters on the board. Each tick it advances the timing wheel,
+ * explodes bombs, if detonator is set, and then moves the monsters in the way chosen by the Builder:
+ * one by one (SequentialMoves), by workers of the pool (ParallelMoves), by the plan (PlannedMoves)
+ * or from the arrays of the store (StoredMoves). Monsters could be moved by agents as well (see MonsterAgents).
+ * Bombs explode before any monster moves, and killed monsters don't move anymore.
+ * Monster which moves next to the player captures it: the acquired cell is compared with the cells of the players
+ * after each move (see MonsterCapture), so capture is detected without scan of the board and the future
+ * of the capture is completed with the tick of the move, the tick of the agent as well.
+ * Duration of each tick, moves, CAS failures, stuck monsters and their recoveries are recorded to the metrics.
  * @author Arslan Sapashev
  * @since 15.12.2016
  * @version 1.0
  */
 public class ThreadMonster implements Runnable{
-    private final Cell[][] board;
-    private final List<Monster> monsters;
-    private Actor freecell;
-    private int repeatPeriod = 5;
+    /**
+     * Period of the tick in milliseconds.
+     */
+    public static final long TICK_PERIOD = 100;
+    private final MonsterMoves moves;
+    private final TimingWheel wheel;
+    private final EngineMetrics metrics;
+    private final MonsterCapture capture;
+    private Detonator detonator;
+    private long tick;
     private final Logger LOG = LoggerFactory.getLogger(ThreadMonster.class);
 
-
-    public ThreadMonster (Cell[][] board, List<Monster> monsters, int repeatPeriod, Actor freecell){
-        this.board = board;
-        this.monsters = monsters;
-        if(repeatPeriod >= 0){
-            this.repeatPeriod = repeatPeriod;
+    private ThreadMonster (Builder builder){
+        int repeatPeriod = (int) (TimeUnit.SECONDS.toMillis(builder.repeatPeriod) / TICK_PERIOD);
+        this.metrics = builder.metrics;
+        this.wheel = new TimingWheel(builder.board, repeatPeriod);
+        this.capture = new MonsterCapture(builder.board.getColumns());
+        if(builder.store != null){
+            this.moves = new StoredMoves(builder, wheel, capture, repeatPeriod);
+        } else if(builder.planner != null){
+            this.moves = new PlannedMoves(builder, wheel, capture, repeatPeriod);
+        } else if(builder.pool != null){
+            this.moves = new ParallelMoves(builder, wheel, capture, repeatPeriod);
+        } else {
+            this.moves = new SequentialMoves(builder, wheel, capture, repeatPeriod);
         }
-        this.freecell = freecell;
     }
 
-    @Override
-    public void run () {
-        try {
-            monsters.forEach(m -> makeMove(m));
-        } catch (Exception e) {
-            LOG.error("Exception", e);
-        }
+    /**
+     * Returns timing wheel in which stuck monsters are parked.
+     * Player should wake up monsters waiting for the cell it releases.
+     * @return - timing wheel.
+     */
+    public TimingWheel getTimingWheel () {
+        return this.wheel;
     }
 
+    /**
+     * Returns quantity of ticks made by the monsters.
+     * @return - current tick.
+     */
+    public long getTick () {
+        return this.tick;
+    }
 
     /**
-     * Tries to make next move, chasing the player.
-     * Each cell has degree field which describes proximity to the player current location.
-     * Each monster has a stuckTime field - if monster hasn't been stuck, it's value = LocalTime.MIN,
-     * otherwise this field indicates time when monster tried to move, but failed + repeatPeriod.
-     * If current time is after (greater than) stuckTime, this mean that monster can move to the new cell
-     * otherwise it repeat attempts to get previously failed cell.
-     * @param monster - monster that should make move.
+     * Sets current tick of the monsters and of the timing wheel. Used to continue the game restored from the snapshot,
+     * should be invoked before any monster is parked.
+     * @param tick - current tick.
      */
-    void makeMove(Monster monster){
-        if(LocalTime.now().isAfter(monster.getStuckTime())){          //If repeat period exceeded, choose next cell.
-            makeNewMove(monster);
-        } else {
-            repeatFailedMove(monster);                                //If repeat period wasn't exceeded, try it again.
-        }
+    public void setTick (long tick) {
+        this.tick = tick;
+        wheel.advance(tick);
     }
 
     /**
-     * Tries to move monster to the new cell. If succeeded swaps the cells, otherwise sets monster's stuckTime and
-     * cell to which it has tried to move as failed cell.
-     * @param monster - monster to move
+     * Sets detonator of the bombs, which explodes them at the start of each tick.
+     * @param detonator - detonator, null if there are no bombs.
      */
-    private void makeNewMove (Monster monster) {
-        Cell target = chooseNextMove(monster);
-        if(monster.move(target,freecell,monster)){
-            LOG.info(String.format("Monster %s moved successfully to the cell r:%s c:%s at %s",
-                    monster,target.getRow(),target.getColumn(), LocalTime.now().toString()));
-            swapCells(monster, target);
-        } else{
-            monster.setStuckTime(LocalTime.now().plusSeconds(repeatPeriod));
-            monster.setFailedCell(target);
-            LOG.info(String.format("Monster %s stuck trying to move to cell r:%s c:%s at %s",
-                    monster, target.getRow(), target.getColumn(), LocalTime.now().toString()));
-        }
+    public void setDetonator (Detonator detonator) {
+        this.detonator = detonator;
     }
 
     /**
-     * Swaps the new and previous cells of the monster. Should be invoked if only move of monster succeeds.
-     * It should be done to allow another monsters and actors to make move to the released cell.
-     * First it assigns to the previous cell, occupied by monster, status free cell.
-     * Second it assigns to the hostCell field of the monster reference to the just occupied cell.
-     * @param monster - monster, that done move.
-     * @param target - new cell to which monster has been moved.
+     * Sets future of the capture, which is completed with the tick, when some monster moves next to the player.
+     * @param capture - future of the capture, null if capture isn't detected.
+     * @param players - players of the game, their cells are read on each move of the monster.
      */
-    private void swapCells (Monster monster, Cell target) {
-        monster.getHostCell().actor.compareAndSet(monster,freecell);
-        monster.setHostCell(target);
+    public void setCapture (CompletableFuture<Long> capture, List<Player> players) {
+        this.capture.set(capture, players);
     }
 
     /**
-     * Conducts another attempt to move to the same cell.
-     * If move succeeds it swaps the cells, sets stuck time to 00:00 and erases failed cell reference.
-     * If move wasn't succeed does nothing.
-     * @param monster - monster who is failed to get the cell at the last time.
+     * Makes next tick: wakes up monsters which stuck time has come, explodes bombs
+     * and moves all monsters which are not parked.
      */
-    private void repeatFailedMove (Monster monster) {
-        if(monster.move(monster.getFailedCell(),freecell,monster)){
-            swapCells(monster,monster.getFailedCell());
-            monster.setFailedCell(null);
-            monster.setStuckTime(LocalTime.MIN);
-            LOG.info(String.format("Monster %s acquired cell after previous fail. Cell r:%s c:%s at %s",
-                    monster, monster.getHostCell().getRow(), monster.getHostCell().getColumn(), LocalTime.now().toString()));
+    @Override
+    public void run () {
+        long start = System.nanoTime();
+        try {
+            tick++;
+            wheel.advance(tick);
+            moves.prepare(tick);
+            if(detonator != null){
+                detonator.explode(tick);
+            }
+            moves.move(tick);
+        } catch (Exception e) {
+            LOG.error("Exception", e);
         }
+        metrics.recordMonsterTick(System.nanoTime() - start);
     }
 
     /**
-     * Selects cell with minimum degree among nearby cells.
-     * In case of two or more cells in the list have the same degree,
-     * first occurrence with minimum degree will be chosen.
-     * @param monster - monster which should decide where to go next.
-     * @return - cell with minimum degree.
+     * Makes move of the monster running in it's own timing loop (see MonsterAgents).
+     * Agents don't advance the timing wheel, so monster itself wakes up when it's stuck time has come.
+     * @param monster - monster that should make move.
+     * @param tick - current tick of the agent.
+     * @throws IllegalStateException - if monsters are kept in the store.
      */
-    Cell chooseNextMove (Monster monster){
-        List<Cell> cells = removeBlocks(getNearbyCells(monster));
-        return cells.stream().min(Comparator.comparing(Cell::getDegree)).get();
+    void makeAgentMove(Monster monster, long tick){
+        if(!(moves instanceof SequentialMoves)){
+            throw new IllegalStateException("Monsters of the store can't be agents");
+        }
+        if(monster.isParked() && tick >= monster.getStuckTime()){
+            wheel.expire(monster);
+        }
+        ((SequentialMoves) moves).makeMove(monster, tick);
     }
 
     /**
-     * Removes cells which have Type.BLOCK from the list .
-     * Because of monster can't move to the Type.BLOCK cell.
-     * @param cells - list of free cells
-     * @return - list of cells without blocks
+     * Selects cell with minimum degree among nearby cells of the monster object, see SequentialMoves.chooseNextMove.
+     * @param monster - monster which should decide where to go next.
+     * @return - index of the cell with minimum degree, Board.NONE if monster is surrounded by blocks.
      */
-    List<Cell> removeBlocks(List<Cell> cells){
-        cells.removeIf(cell -> cell.actor.get().getType()==Type.BLOCK);
-        return cells;
+    int chooseNextMove (Monster monster){
+        return ((SequentialMoves) moves).chooseNextMove(monster);
     }
 
     /**
-     * Creates list filled up with cells nearby to the argument.
-     * Cells above, below, to the right and to the left from monster.
-     * Among those cells after filtration, next cell will be chosen.
-     * @param monster - monster which nearby cells will be listed.
-     * @return - list of nearby cells.
+     * Describes configuration of the ThreadMonster. Board, heat map, index of free cells, events and metrics
+     * are required, the rest is optional and has defaults, which could be changed by setters returning the builder.
+     * Monsters are either objects (setMonsters), moved one by one, by the pool (setPool) or by the plan (setPlanner),
+     * or monsters of the store (setStore) on the CompactBoard.
      */
-    List<Cell> getNearbyCells(Monster monster){
-        int row = monster.getHostCell().getRow();
-        int column = monster.getHostCell().getColumn();
+    public static class Builder {
+        final Board board;
+        final DegreeField degree;
+        final FreeCells freeCells;
+        final EventRing events;
+        final EngineMetrics metrics;
+        List<Monster> monsters = Collections.emptyList();
+        Actor freecell;
+        MonsterStore store;
+        ForkJoinPool pool;
+        MovePlanner planner;
+        DirtyCells dirtyCells;
+        int repeatPeriod = 5;
+
+        /**
+         * @param board - board of the game.
+         * @param degree - heat map shared by all monsters.
+         * @param freeCells - index of free cells of the board.
+         * @param events - ring of the game events.
+         * @param metrics - metrics of the engine.
+         */
+        public Builder (Board board, DegreeField degree, FreeCells freeCells, EventRing events, EngineMetrics metrics){
+            this.board = board;
+            this.degree = degree;
+            this.freeCells = freeCells;
+            this.events = events;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Sets monster objects.
+         * @param monsters - list of monsters.
+         * @param freecell - actor of the free cells.
+         * @return - builder.
+         */
+        public Builder setMonsters (List<Monster> monsters, Actor freecell) {
+            this.monsters = monsters;
+            this.freecell = freecell;
+            return this;
+        }
+
+        /**
+         * Sets store of the monsters, which have no objects.
+         * @param store - monsters.
+         * @return - builder.
+         * @throws IllegalArgumentException - if the board is not compact.
+         */
+        public Builder setStore (MonsterStore store) {
+            if(!(board instanceof CompactBoard)){
+                throw new IllegalArgumentException("Monsters of the store require compact board");
+            }
+            this.store = store;
+            return this;
+        }
 
-        List<Cell> cells = new ArrayList<>(4);
-        if(column - 1 >= 0){
-            cells.add(board[row][column - 1]);
+        /**
+         * Sets pool, which workers move monsters in parallel.
+         * @param pool - pool, null if monsters are moved by the calling thread.
+         * @return - builder.
+         */
+        public Builder setPool (ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
         }
-        if(column + 1 < board[0].length) {
-            cells.add(board[row][column + 1]);
+
+        /**
+         * Sets planner of the moves.
+         * @param planner - planner, null if monsters compete for the cells by CAS only.
+         * @return - builder.
+         */
+        public Builder setPlanner (MovePlanner planner) {
+            this.planner = planner;
+            return this;
         }
-        if(row - 1 >= 0) {
-            cells.add(board[row - 1][column]);
+
+        /**
+         * Sets tracker of the changed cells.
+         * @param dirtyCells - tracker, null if changes aren't tracked.
+         * @return - builder.
+         */
+        public Builder setDirtyCells (DirtyCells dirtyCells) {
+            this.dirtyCells = dirtyCells;
+            return this;
         }
-        if(row + 1 < board.length){
-            cells.add(board[row + 1][column]);
+
+        /**
+         * Sets period during which monster repeats attempts to get the failed cell, 5 seconds by default.
+         * @param repeatPeriod - repeat period in seconds, negative one leaves the default.
+         * @return - builder.
+         */
+        public Builder setRepeatPeriod (int repeatPeriod) {
+            if(repeatPeriod >= 0){
+                this.repeatPeriod = repeatPeriod;
+            }
+            return this;
+        }
+
+        /**
+         * Creates thread of the monsters.
+         * @return - thread.
+         * @throws IllegalStateException - if monsters are set together with the store,
+         * or the pool together with the planner.
+         */
+        public ThreadMonster build () {
+            if(store != null && !monsters.isEmpty()){
+                throw new IllegalStateException("Monsters are either objects or monsters of the store");
+            }
+            if(pool != null && planner != null){
+                throw new IllegalStateException("Planned monsters are moved by the single thread");
+            }
+            return new ThreadMonster(this);
         }
-        return cells;
     }
 }
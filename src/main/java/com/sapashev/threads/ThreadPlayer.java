@@ -1,49 +1,129 @@
 package com.sapashev.threads;
 
-import com.sapashev.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-import java.time.LocalTime;
+import com.sapashev.*;
+import com.sapashev.board.Board;
+import com.sapashev.degree.DegreeField;
+import com.sapashev.delta.DirtyCells;
+import com.sapashev.events.EventRing;
+import com.sapashev.events.Outcome;
+import com.sapashev.metrics.EngineMetrics;
 
 /**
- * Describes Thread which manipulating player on the board.
+ * Describes Thread which manipulating players on the board. Players move one after another,
+ * index of the player in the list identifies it in the heat map.
+ * Player which moves next to the monster is captured: the cells nearby to the acquired cell are checked after each move
+ * and the future of the capture is completed with the tick.
  * @author Arslan Sapashev
  * @since 15.12.2016
  * @version 1.0
  */
 public class ThreadPlayer implements Runnable {
-    private final Player player;
-    private final Cell[][] board;
+    private final List<Player> players;
+    private final Board board;
     private final Actor freecell;
-    private final Logger LOG = LoggerFactory.getLogger(ThreadPlayer.class);
+    private final DegreeField degree;
+    private final FreeCells freeCells;
+    private final TimingWheel wheel;
+    private final EventRing events;
+    private final EngineMetrics metrics;
+    private final DirtyCells dirtyCells;
+    private volatile long tick;
+    private CompletableFuture<Long> capture;
+
+    public ThreadPlayer(Player player, Board board, Actor freecell, DegreeField degree, FreeCells freeCells,
+                        TimingWheel wheel, EventRing events, EngineMetrics metrics){
+        this(player, board, freecell, degree, freeCells, wheel, events, metrics, null);
+    }
+
+    /**
+     * @param dirtyCells - tracker of the changed cells, null if changes aren't tracked.
+     */
+    public ThreadPlayer(Player player, Board board, Actor freecell, DegreeField degree, FreeCells freeCells,
+                        TimingWheel wheel, EventRing events, EngineMetrics metrics, DirtyCells dirtyCells){
+        this(Collections.singletonList(player), board, freecell, degree, freeCells, wheel, events, metrics, dirtyCells);
+    }
 
-    public ThreadPlayer(Player player, Cell[][] board, Actor freecell){
-        this.player = player;
+    /**
+     * @param players - players, heat map should be created for the same players in the same order.
+     * @param dirtyCells - tracker of the changed cells, null if changes aren't tracked.
+     */
+    public ThreadPlayer(List<Player> players, Board board, Actor freecell, DegreeField degree, FreeCells freeCells,
+                        TimingWheel wheel, EventRing events, EngineMetrics metrics, DirtyCells dirtyCells){
+        this.players = players;
+        this.dirtyCells = dirtyCells;
         this.board = board;
         this.freecell = freecell;
+        this.degree = degree;
+        this.freeCells = freeCells;
+        this.wheel = wheel;
+        this.events = events;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns quantity of ticks made by the player.
+     * @return - current tick.
+     */
+    public long getTick () {
+        return this.tick;
+    }
+
+    /**
+     * Sets quantity of ticks made by the player. Used to continue the game restored from the snapshot.
+     * @param tick - current tick.
+     */
+    public void setTick (long tick) {
+        this.tick = tick;
+    }
+
+    /**
+     * Sets future of the capture, which is completed with the tick, when some player moves next to the monster.
+     * @param capture - future of the capture, null if capture isn't detected.
+     */
+    public void setCapture (CompletableFuture<Long> capture) {
+        this.capture = capture;
     }
 
     @Override
     public void run () {
-        LOG.info(String.format("ThreadPlayer started at %s", LocalTime.now().toString()));
-        Cell target = new Cell(0,0, freecell);
-        makeMove(target);
+        long start = System.nanoTime();
+        tick++;
+        for (int i = 0; i < players.size(); i++){
+            makeMove(i, board.index(0, 0));
+        }
+        metrics.recordPlayerTick(System.nanoTime() - start);
     }
 
     /**
-     * Makes move to the target cell. If move done it swaps cells, set degree of player cell to zero and
-     * updates degree of all cells on the board accordingly to proximity to the player cell.
-     * @param target - cell to which player tries to go.
+     * Makes move of the first player to the target cell.
+     * @param target - index of the cell to which player tries to go.
      * @return true - move done, false - move failed, due to target cell is not free.
      */
-    boolean makeMove(Cell target){
-        boolean isMoveDone = player.move(target, freecell, player);
+    boolean makeMove(int target){
+        return makeMove(0, target);
+    }
+
+    /**
+     * Makes move to the target cell. If move done it swaps cells and moves the player in the heat map.
+     * Move is published to the ring of game events and counted in the metrics.
+     * @param index - index of the player.
+     * @param target - index of the cell to which player tries to go.
+     * @return true - move done, false - move failed, due to target cell is not free.
+     */
+    boolean makeMove(int index, int target){
+        Player player = players.get(index);
+        boolean isMoveDone = player.move(board, target, freecell, player);
         if(isMoveDone){
-            swapCells(target);
-            player.getHostCell().setDegree(0);
-            updateBoardDegree();
-            LOG.info(String.format("Player has been moved successfully to the cell r:%s c:%", target.getRow()),target.getColumn());
+            events.publish(player.getId(), player.getHostCell(), target, tick, Outcome.PLAYER_MOVED);
+            swapCells(player, target);
+            degree.update(index, target);
+            metrics.recordMove();
+        } else {
+            metrics.recordCasFailure();
         }
         return isMoveDone;
     }
@@ -53,28 +133,36 @@ public class ThreadPlayer implements Runnable {
      * It should be done to allow another monsters and actors to make move to the released cell.
      * First it assigns to the previous cell, occupied by player, status free cell.
      * Second it assigns to the hostCell field of the player reference to the just occupied cell.
-     * @param target - new cell to which player has been moved.
+     * Index of free cells is updated accordingly and monsters waiting for the previous cell are woken up.
+     * Both cells are marked as changed, if changes are tracked, and capture of the player is checked.
+     * @param player - player, that done move.
+     * @param target - index of the new cell to which player has been moved.
      */
-    private void swapCells (Cell target) {
-        player.getHostCell().actor.compareAndSet(player, freecell);
+    private void swapCells (Player player, int target) {
+        board.compareAndSet(player.getHostCell(), player, freecell);
+        if(dirtyCells != null){
+            dirtyCells.mark(player.getHostCell());
+            dirtyCells.mark(target);
+        }
+        freeCells.move(player.getHostCell(), target);
+        wheel.wake(player.getHostCell());
         player.setHostCell(target);
-        LOG.info(String.format("Swap of player cells succeeded"));
+        checkCapture(target);
     }
 
     /**
-     * Calculates and updates degree value of each cell on the board, according to proximity to the player cell.
+     * Completes the future of the capture, if the cell just acquired by the player is next to the monster.
+     * @param cell - cell acquired by the player.
      */
-    private void updateBoardDegree (){
-        int row = board.length;
-        int column = board[0].length;
-        for(int x = 0; x < row; x++){
-            for (int y = 0; y < column; y++){
-                Cell cell = board[x][y];
-                int degree = Math.max(
-                        Math.abs(cell.getRow() - player.getHostCell().getRow()),
-                        Math.abs(cell.getColumn() - player.getHostCell().getColumn())
-                );
-                cell.setDegree(degree);
+    private void checkCapture (int cell) {
+        if(capture == null || capture.isDone()){
+            return;
+        }
+        for (int direction = 0; direction < 4; direction++){
+            int nearby = board.getNearbyCell(cell, direction);
+            if(nearby != Board.NONE && board.getActor(nearby).getType() == Type.MONSTER){
+                capture.complete(tick);
+                return;
             }
         }
     }
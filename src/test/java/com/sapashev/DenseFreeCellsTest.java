@@ -0,0 +1,136 @@
+package com.sapashev;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+
+/**
+ * Checks that the index of free cells follows the board: placement, release, ordered batches of moves,
+ * moves made between reads and moves made by several threads at once.
+ */
+public class DenseFreeCellsTest {
+    private final Actor freecell = new Freecell();
+    private final Board board = BoardType.CELLS.create(30, 40, freecell);
+
+    @Test
+    public void placedActorsLeaveTheIndex () {
+        DenseFreeCells index = new DenseFreeCells(board, new Random(1));
+        for (int i = 0; i < 1000; i++){
+            Block block = new Block();
+            assertSame(block, board.getActor(index.occupyRandomCell(freecell, block)));
+        }
+        assertEquals(board.size() - 1000, index.size());
+        assertIndexFollowsBoard(index);
+    }
+
+    @Test
+    public void releasedCellReturnsToTheIndex () {
+        DenseFreeCells index = new DenseFreeCells(board, new Random(1));
+        Block block = new Block();
+        int cell = index.occupyRandomCell(freecell, block);
+        board.compareAndSet(cell, block, freecell);
+        index.release(cell);
+        assertEquals(board.size(), index.size());
+    }
+
+    @Test
+    public void orderedBatchOfMovesIsApplied () {
+        Monster monster = new Monster(1);
+        board.compareAndSet(0, freecell, monster);
+        DenseFreeCells index = new DenseFreeCells(board, new Random(1));
+        int[] from = new int[board.size() - 1];
+        int[] to = new int[board.size() - 1];
+        for (int cell = 0; cell + 1 < board.size(); cell++){
+            board.compareAndSet(cell + 1, freecell, monster);
+            board.compareAndSet(cell, monster, freecell);
+            from[cell] = cell;
+            to[cell] = cell + 1;
+        }
+        index.move(from, to, from.length);
+        assertEquals(board.size() - 1, index.size());
+        assertIndexFollowsBoard(index);
+    }
+
+    @Test
+    public void movesBetweenReadsAreAppliedByNextRead () {
+        Monster monster = new Monster(1);
+        board.compareAndSet(0, freecell, monster);
+        DenseFreeCells index = new DenseFreeCells(board, new Random(1));
+        Random random = new Random(2);
+        int host = 0;
+        for (int read = 0; read < 500; read++){
+            for (int step = random.nextInt(3); step > 0; step--){
+                int target = random.nextInt(board.size());
+                if(board.compareAndSet(target, freecell, monster)){
+                    board.compareAndSet(host, monster, freecell);
+                    index.move(host, target);
+                    host = target;
+                }
+            }
+            assertEquals(board.size() - 1, index.size());
+            if(read % 50 == 0){
+                assertIndexFollowsBoard(index);
+            }
+        }
+    }
+
+    @Test
+    public void concurrentMovesAreAppliedOnRead () throws InterruptedException {
+        DenseFreeCells index = new DenseFreeCells(board, new Random(1));
+        List<Monster> monsters = new ArrayList<>();
+        for (int id = 1; id <= 300; id++){
+            Monster monster = new Monster(id);
+            monster.setHostCell(index.occupyRandomCell(freecell, monster));
+            monsters.add(monster);
+        }
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++){
+            List<Monster> own = monsters.subList(t * 75, (t + 1) * 75);
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                for (int step = 0; step < 20000; step++){
+                    Monster monster = own.get(random.nextInt(own.size()));
+                    int host = monster.getHostCell();
+                    int target = board.getNearbyCell(host, random.nextInt(4));
+                    if(target != Board.NONE && board.compareAndSet(target, freecell, monster)){
+                        board.compareAndSet(host, monster, freecell);
+                        monster.setHostCell(target);
+                        index.move(host, target);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads){
+            thread.start();
+        }
+        for (Thread thread : threads){
+            thread.join();
+        }
+        assertEquals(board.size() - monsters.size(), index.size());
+        assertIndexFollowsBoard(index);
+    }
+
+    /**
+     * Samples the index many times: every sampled cell should be free on the board.
+     */
+    private void assertIndexFollowsBoard (DenseFreeCells index) {
+        int free = 0;
+        for (int cell = 0; cell < board.size(); cell++){
+            if(board.getActor(cell) == freecell){
+                free++;
+            }
+        }
+        assertEquals(free, index.size());
+        for (int i = 0; i < 10000; i++){
+            assertSame(freecell, board.getActor(index.getRandomCell()));
+        }
+    }
+}
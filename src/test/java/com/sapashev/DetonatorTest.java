@@ -0,0 +1,144 @@
+package com.sapashev;
+
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+import com.sapashev.board.CompactBoard;
+import com.sapashev.events.Backpressure;
+import com.sapashev.events.EventReader;
+import com.sapashev.events.EventRing;
+import com.sapashev.events.Outcome;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks explosions of the Detonator: chain reaction of the bombs, blast stopped by the block,
+ * monsters killed on the board of objects and in the MonsterStore.
+ * Board 5x7, fuse 3 ticks, blast reaches 2 cells in each direction.
+ */
+public class DetonatorTest {
+    private static final int ROWS = 5;
+    private static final int COLUMNS = 7;
+    private static final int FUSE = 3;
+    private static final int RADIUS = 2;
+    private final Actor freecell = new Freecell();
+    private final EventRing events = new EventRing(64, Backpressure.DROP);
+    private final EventReader reader = events.newReader();
+
+    @Test
+    public void blastSetsOffBombWhichFuseIsStillBurning(){
+        Board board = BoardType.CELLS.create(ROWS, COLUMNS, freecell);
+        FreeCells freeCells = BoardType.CELLS.createFreeCells(board, new Random(1));
+        Detonator detonator = create(board, freeCells, null);
+        Monster monster = put(board, freeCells, 1, board.index(2, 5));
+        assertTrue(detonator.plant(board.index(2, 1)));
+        detonator.explode(1);
+        assertTrue(detonator.plant(board.index(2, 3)));
+        assertFalse(detonator.plant(board.index(2, 3)));
+
+        detonator.explode(FUSE);
+
+        assertTrue(detonator.getBombs().isEmpty());
+        assertEquals(Type.FREECELL, board.getActor(board.index(2, 1)).getType());
+        assertEquals(Type.FREECELL, board.getActor(board.index(2, 3)).getType());
+        assertEquals(Board.NONE, monster.getHostCell());
+        assertEquals(Type.FREECELL, board.getActor(board.index(2, 5)).getType());
+        assertEquals(Arrays.asList(killed(1, board.index(2, 5), FUSE)), drain());
+    }
+
+    @Test
+    public void blockStopsBlastAndBombBehindItKeepsBurning(){
+        Board board = BoardType.CELLS.create(ROWS, COLUMNS, freecell);
+        FreeCells freeCells = BoardType.CELLS.createFreeCells(board, new Random(1));
+        Detonator detonator = create(board, freeCells, null);
+        board.compareAndSet(board.index(2, 2), freecell, new Block());
+        freeCells.occupy(board.index(2, 2));
+        Monster above = put(board, freeCells, 1, board.index(0, 1));
+        Monster behind = put(board, freeCells, 2, board.index(2, 4));
+        assertTrue(detonator.plant(board.index(2, 1)));
+        detonator.explode(1);
+        assertTrue(detonator.plant(board.index(2, 3)));
+
+        detonator.explode(FUSE);
+
+        assertEquals(Board.NONE, above.getHostCell());
+        assertEquals(board.index(2, 4), behind.getHostCell());
+        assertEquals(Type.BLOCK, board.getActor(board.index(2, 2)).getType());
+        assertEquals(1, detonator.getBombs().size());
+        assertEquals(board.index(2, 3), detonator.getBombs().get(0).getHostCell());
+        assertEquals(Arrays.asList(killed(1, board.index(0, 1), FUSE)), drain());
+
+        detonator.explode(FUSE + 1);
+
+        assertEquals(Board.NONE, behind.getHostCell());
+        assertTrue(detonator.getBombs().isEmpty());
+    }
+
+    @Test
+    public void blastKillsMonstersOfStore(){
+        CompactBoard board = (CompactBoard) BoardType.COMPACT.create(ROWS, COLUMNS, freecell);
+        FreeCells freeCells = BoardType.COMPACT.createFreeCells(board, new Random(1));
+        MonsterStore store = new MonsterStore(3);
+        int[] cells = {board.index(3, 3), board.index(0, 0), board.index(2, 5)};
+        for (int slot = 0; slot < cells.length; slot++){
+            store.put(board, freeCells, slot, cells[slot]);
+        }
+        store.sort(board);
+        Detonator detonator = create(board, freeCells, store);
+        assertTrue(detonator.plant(board.index(2, 3)));
+
+        detonator.explode(FUSE);
+
+        assertEquals(CompactBoard.FREE, board.getCode(board.index(3, 3)));
+        assertEquals(CompactBoard.FREE, board.getCode(board.index(2, 5)));
+        assertEquals(CompactBoard.getEntityCode(2), board.getCode(board.index(0, 0)));
+        for (int slot = 0; slot < store.size(); slot++){
+            assertEquals(store.getId(slot) == 2 ? board.index(0, 0) : Board.NONE, store.getHostCell(slot));
+        }
+        List<String> events = drain();
+        assertEquals(2, events.size());
+        assertTrue(events.contains(killed(1, board.index(3, 3), FUSE)));
+        assertTrue(events.contains(killed(3, board.index(2, 5), FUSE)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void storeMovedSinceSortCantBeSearchedByBlast(){
+        CompactBoard board = (CompactBoard) BoardType.COMPACT.create(ROWS, COLUMNS, freecell);
+        FreeCells freeCells = BoardType.COMPACT.createFreeCells(board, new Random(1));
+        MonsterStore store = new MonsterStore(1);
+        store.put(board, freeCells, 0, board.index(1, 1));
+        store.sort(board);
+        Detonator detonator = create(board, freeCells, store);
+        store.setHostCell(0, board.index(1, 2));
+        detonator.explode(1);
+    }
+
+    private Detonator create(Board board, FreeCells freeCells, MonsterStore store){
+        return new Detonator(board, freecell, freeCells, new TimingWheel(board, FUSE), store, events, null,
+                FUSE, RADIUS);
+    }
+
+    private Monster put(Board board, FreeCells freeCells, int id, int cell){
+        Monster monster = new Monster(id);
+        board.compareAndSet(cell, freecell, monster);
+        freeCells.occupy(cell);
+        monster.setHostCell(cell);
+        return monster;
+    }
+
+    private String killed(int id, int cell, long tick){
+        return String.format("%d %d %d %d %s", id, cell, Board.NONE, tick, Outcome.KILLED);
+    }
+
+    private List<String> drain(){
+        List<String> result = new ArrayList<>();
+        reader.drain((entity, from, to, tick, outcome) ->
+                result.add(String.format("%d %d %d %d %s", entity, from, to, tick, outcome)), Integer.MAX_VALUE);
+        return result;
+    }
+}
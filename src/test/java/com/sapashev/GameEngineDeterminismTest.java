@@ -0,0 +1,65 @@
+package com.sapashev;
+
+import com.sapashev.board.BoardType;
+import com.sapashev.events.ChecksumSink;
+import com.sapashev.events.EventReader;
+import com.sapashev.threads.MonsterMode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that stepped engine with seeded placement repeats the same history of the board.
+ */
+public class GameEngineDeterminismTest {
+    private static final int TICKS = 300;
+
+    @Test
+    public void sameSeedGivesSameHistoryInSequentialMode(){
+        assertSameHistory(config(7L).setMonsterMode(MonsterMode.SEQUENTIAL));
+    }
+
+    @Test
+    public void sameSeedGivesSameHistoryInPlannedMode(){
+        assertSameHistory(config(7L).setMonsterMode(MonsterMode.PLANNED));
+    }
+
+    @Test
+    public void sameSeedGivesSameHistoryInCompactMode(){
+        assertSameHistory(config(7L).setMonsterMode(MonsterMode.COMPACT).setBoardType(BoardType.COMPACT));
+    }
+
+    @Test
+    public void differentSeedsGiveDifferentHistories(){
+        assertNotEquals(play(config(7L)).getChecksum(), play(config(8L)).getChecksum());
+    }
+
+    private void assertSameHistory(GameConfig config){
+        ChecksumSink first = play(config);
+        ChecksumSink second = play(config);
+        assertTrue(first.getCount() > TICKS);
+        assertEquals(first.getCount(), second.getCount());
+        assertEquals(first.getChecksum(), second.getChecksum());
+    }
+
+    private GameConfig config(long seed){
+        return new GameConfig(40, 40, 60, 1, 100).setSeed(seed);
+    }
+
+    /**
+     * Steps the engine and folds all it's events into the checksum. Events are drained after each tick,
+     * because ring of the seeded engine waits instead of dropping.
+     */
+    private ChecksumSink play(GameConfig config){
+        ChecksumSink checksum = new ChecksumSink();
+        try (GameEngine engine = new GameEngine(config)) {
+            EventReader reader = engine.getEvents().newReader();
+            for (int tick = 0; tick < TICKS; tick++){
+                engine.step();
+                reader.drain(checksum, Integer.MAX_VALUE);
+            }
+            assertEquals(0, engine.getEvents().getDropped());
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,143 @@
+package com.sapashev;
+
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+import com.sapashev.board.CompactBoard;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks order of the slots of the MonsterStore after the sort: merge of monsters which moved up, down
+ * and within their rows, radix sort of monsters which jumped, compaction of monsters killed in the middle
+ * of the slots. After each sort slots should be ordered by cells, each monster should keep it's cells
+ * and stuck time, and find should return the slot of each live monster.
+ * Board 20x20, 60 monsters.
+ */
+public class MonsterStoreTest {
+    private static final int ROWS = 20;
+    private static final int COLUMNS = 20;
+    private static final int MONSTERS = 60;
+    private final Actor freecell = new Freecell();
+    private final CompactBoard board = (CompactBoard) BoardType.COMPACT.create(ROWS, COLUMNS, freecell);
+    private final FreeCells freeCells = BoardType.COMPACT.createFreeCells(board, new Random(1));
+    private final Random random = new Random(3);
+
+    @Test
+    public void monstersMovedUpDownAndWithinRowsAreOrdered(){
+        MonsterStore store = new MonsterStore(MONSTERS);
+        store.put(board, freeCells);
+        Map<Integer, Integer> cells = remember(store);
+        for (int tick = 1; tick <= 200; tick++){
+            for (int slot = 0; slot < store.getLiveSlots(); slot++){
+                int host = store.getHostCell(slot);
+                int target = board.getNearbyCell(host, random.nextInt(4));
+                if(target != Board.NONE && board.compareAndSetCode(target, CompactBoard.FREE, board.getCode(host))){
+                    board.release(host);
+                    store.setHostCell(slot, target);
+                    cells.put(store.getId(slot), target);
+                }
+            }
+            store.sort(board);
+            assertOrdered(store, cells);
+        }
+    }
+
+    @Test
+    public void jumpedMonstersAreOrderedByRadixSort(){
+        MonsterStore store = new MonsterStore(MONSTERS);
+        for (int slot = 0; slot < MONSTERS; slot++){
+            store.put(board, freeCells, slot, board.size() - 1 - slot * 5);
+        }
+        store.sort(board);
+        Map<Integer, Integer> cells = remember(store);
+        assertOrdered(store, cells);
+        for (int round = 0; round < 20; round++){
+            for (int i = 0; i < 10; i++){
+                int slot = random.nextInt(MONSTERS);
+                int host = store.getHostCell(slot);
+                int target = random.nextInt(board.size());
+                if(board.compareAndSetCode(target, CompactBoard.FREE, board.getCode(host))){
+                    board.release(host);
+                    store.setHostCell(slot, target);
+                    cells.put(store.getId(slot), target);
+                }
+            }
+            store.sort(board);
+            assertOrdered(store, cells);
+        }
+    }
+
+    @Test
+    public void monstersKilledInTheMiddleFollowLiveOnes(){
+        MonsterStore store = new MonsterStore(MONSTERS);
+        store.put(board, freeCells);
+        Map<Integer, Integer> cells = remember(store);
+        int killed = 0;
+        for (int slot = 10; slot < 40; slot += 3){
+            int host = store.getHostCell(slot);
+            store.setFailedCell(slot, host);
+            store.kill(slot);
+            board.release(host);
+            cells.remove(store.getId(slot));
+            killed++;
+        }
+        int host = store.getHostCell(0);
+        int target = board.getNearbyCell(host, 1);
+        if(target != Board.NONE && board.compareAndSetCode(target, CompactBoard.FREE, board.getCode(host))){
+            board.release(host);
+            store.setHostCell(0, target);
+            cells.put(store.getId(0), target);
+        }
+        assertFalse(store.isSorted());
+        store.sort(board);
+        assertEquals(MONSTERS - killed, store.getLiveSlots());
+        assertOrdered(store, cells);
+        for (int slot = store.getLiveSlots(); slot < store.size(); slot++){
+            assertEquals(Board.NONE, store.getHostCell(slot));
+            assertEquals(Board.NONE, store.getFailedCell(slot));
+            assertFalse(cells.containsKey(store.getId(slot)));
+        }
+    }
+
+    /**
+     * Sets stuck time of each monster to it's id, so it could be checked that the time travels with the monster.
+     * @return - cells of the live monsters by their ids.
+     */
+    private Map<Integer, Integer> remember(MonsterStore store){
+        Map<Integer, Integer> cells = new HashMap<>();
+        for (int slot = 0; slot < store.getLiveSlots(); slot++){
+            cells.put(store.getId(slot), store.getHostCell(slot));
+            store.setStuckTime(slot, store.getId(slot));
+        }
+        return cells;
+    }
+
+    /**
+     * Live slots are ordered by cells and hold exactly the expected monsters with their stuck times,
+     * find returns slot of each of them and -1 for free cells.
+     */
+    private void assertOrdered(MonsterStore store, Map<Integer, Integer> cells){
+        assertTrue(store.isSorted());
+        assertEquals(cells.size(), store.getLiveSlots());
+        int previous = -1;
+        for (int slot = 0; slot < store.getLiveSlots(); slot++){
+            int host = store.getHostCell(slot);
+            assertTrue(host > previous);
+            previous = host;
+            assertEquals(cells.get(store.getId(slot)), Integer.valueOf(host));
+            assertEquals(CompactBoard.getEntityCode(store.getId(slot)), board.getCode(host));
+            assertEquals(store.getId(slot), store.getStuckTime(slot));
+            assertEquals(slot, store.find(host));
+        }
+        for (int cell = 0; cell < board.size(); cell++){
+            if(board.getCode(cell) == CompactBoard.FREE){
+                assertEquals(-1, store.find(cell));
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.sapashev;
+
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeType;
+import com.sapashev.events.ChecksumSink;
+import com.sapashev.events.EventReader;
+import com.sapashev.threads.MonsterMode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the game saved by GameEngine.save is restored to the same state and plays on the same way,
+ * and that damaged snapshots are rejected.
+ */
+public class SnapshotTest {
+    private static final int TICKS = 50;
+    //Cells of the player, of 100 blocks and of the monsters follow the header one after another
+    private static final int PLAYER_CELL = 4 * 13 + 8 * 4;
+    private static final int FIRST_BLOCK_CELL = PLAYER_CELL + 4;
+    private static final int FIRST_MONSTER_CELL = FIRST_BLOCK_CELL + 4 * 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void restoredGameOfMonsterObjectsPlaysOnTheSameWay() throws IOException {
+        assertRoundTrip(config().setMonsterMode(MonsterMode.SEQUENTIAL));
+    }
+
+    @Test
+    public void restoredGameOfStoredMonstersPlaysOnTheSameWay() throws IOException {
+        assertRoundTrip(config().setMonsterMode(MonsterMode.COMPACT).setBoardType(BoardType.COMPACT));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedSnapshotIsRejected() throws IOException {
+        Path file = saved();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+        GameEngine.restore(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownDegreeTypeIsRejected() throws IOException {
+        //Ordinal of the degree type follows magic, version and 6 parameters of the config
+        GameEngine.restore(damage(saved(), 4 * 8, 100));
+    }
+
+    @Test(expected = IOException.class)
+    public void illegalConfigIsRejected() throws IOException {
+        //Quantity of rows follows magic and version
+        GameEngine.restore(damage(saved(), 4 * 2, -1));
+    }
+
+    @Test(expected = IOException.class)
+    public void cellOutOfTheBoardIsRejected() throws IOException {
+        //Cell of the player is the first one after the header
+        GameEngine.restore(damage(saved(), PLAYER_CELL, 40 * 40));
+    }
+
+    @Test(expected = IOException.class)
+    public void sectionLongerThanTheFileIsRejected() throws IOException {
+        Path file = saved();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            //Quantity of the saved degrees precedes the degrees, which end the file
+            int degrees = 40 * 40;
+            damage(file, (int) channel.size() - 4 * degrees - 4, degrees + 1);
+        }
+        GameEngine.restore(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void shorterDegreesAreRejected() throws IOException {
+        Path file = saved();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int degrees = 40 * 40;
+            damage(file, (int) channel.size() - 4 * degrees - 4, degrees - 1);
+        }
+        GameEngine.restore(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void playerWithoutCellIsRejected() throws IOException {
+        GameEngine.restore(damage(saved(), PLAYER_CELL, Board.NONE));
+    }
+
+    @Test(expected = IOException.class)
+    public void blockInTheCellOfThePlayerIsRejected() throws IOException {
+        Path file = saved();
+        GameEngine.restore(damage(file, FIRST_BLOCK_CELL, read(file, PLAYER_CELL)));
+    }
+
+    @Test(expected = IOException.class)
+    public void monsterInTheCellOfTheBlockIsRejected() throws IOException {
+        Path file = saved();
+        GameEngine.restore(damage(file, FIRST_MONSTER_CELL, read(file, FIRST_BLOCK_CELL)));
+    }
+
+    @Test(expected = IOException.class)
+    public void storedMonsterInTheCellOfTheBlockIsRejected() throws IOException {
+        Path file = saved(config().setMonsterMode(MonsterMode.COMPACT).setBoardType(BoardType.COMPACT));
+        GameEngine.restore(damage(file, FIRST_MONSTER_CELL, read(file, FIRST_BLOCK_CELL)));
+    }
+
+    private void assertRoundTrip(GameConfig config) throws IOException {
+        Path file = folder.newFile().toPath();
+        ChecksumSink expected = new ChecksumSink();
+        try (GameEngine engine = new GameEngine(config)) {
+            EventReader reader = engine.getEvents().newReader();
+            step(engine, reader, new ChecksumSink());
+            int cell = freeCell(engine.getBoard());
+            assertTrue(engine.plantBomb(cell));
+            engine.save(file);
+            GameEngine restored = GameEngine.restore(file);
+            try {
+                assertEquals(engine.getTick(), restored.getTick());
+                assertArrayEquals(engine.getMonsterCells(), restored.getMonsterCells());
+                assertEquals(engine.getPlayer().getHostCell(), restored.getPlayer().getHostCell());
+                assertEquals(1, restored.getBombs().size());
+                assertEquals(cell, restored.getBombs().get(0).getHostCell());
+                assertEquals(engine.getBombs().get(0).getExplosionTick(), restored.getBombs().get(0).getExplosionTick());
+                assertArrayEquals(engine.getDegree().getDegrees(), restored.getDegree().getDegrees());
+                ChecksumSink actual = new ChecksumSink();
+                step(restored, restored.getEvents().newReader(), actual);
+                step(engine, reader, expected);
+                assertEquals(expected.getCount(), actual.getCount());
+                assertEquals(expected.getChecksum(), actual.getChecksum());
+            } finally {
+                restored.close();
+            }
+        }
+    }
+
+    private void step(GameEngine engine, EventReader reader, ChecksumSink checksum){
+        for (int tick = 0; tick < TICKS; tick++){
+            engine.step();
+            reader.drain(checksum, Integer.MAX_VALUE);
+        }
+    }
+
+    private int freeCell(Board board){
+        int cell = board.size() - 1;
+        while (board.getActor(cell).getType() != Type.FREECELL){
+            cell--;
+        }
+        return cell;
+    }
+
+    private GameConfig config(){
+        return new GameConfig(40, 40, 60, 1, 100).setSeed(5L).setDegreeType(DegreeType.FLOW_FIELD);
+    }
+
+    private Path saved() throws IOException {
+        return saved(config());
+    }
+
+    private Path saved(GameConfig config) throws IOException {
+        Path file = folder.newFile().toPath();
+        try (GameEngine engine = new GameEngine(config)) {
+            engine.save(file);
+        }
+        return file;
+    }
+
+    private int read(Path file, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            channel.read(buffer, position);
+            return buffer.getInt(0);
+        }
+    }
+
+    private Path damage(Path file, int position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4).putInt(0, value);
+            channel.write(buffer, position);
+        }
+        return file;
+    }
+}
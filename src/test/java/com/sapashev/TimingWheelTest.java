@@ -0,0 +1,118 @@
+package com.sapashev;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+
+/**
+ * Checks parking of stuck monsters: wake up by release of the failed cell, expiration by stuck time
+ * and unlinking from the middle of the lists.
+ */
+public class TimingWheelTest {
+    private final Actor freecell = new Freecell();
+    private final Actor block = new Block();
+    private Board board;
+    private TimingWheel wheel;
+
+    @Before
+    public void setUp () {
+        board = BoardType.CELLS.create(4, 4, freecell);
+        board.compareAndSet(5, freecell, block);
+        board.compareAndSet(6, freecell, block);
+        wheel = new TimingWheel(board, 5);
+    }
+
+    @Test
+    public void monsterIsNotParkedIfFailedCellIsFree () {
+        Monster monster = stuck(1, 0, 3);
+        wheel.park(monster);
+        assertFalse(monster.isParked());
+        assertNull(board.getWaiters(0));
+    }
+
+    @Test
+    public void releaseOfFailedCellWakesUpAllWaiters () {
+        Monster first = stuck(1, 5, 3);
+        Monster second = stuck(2, 5, 4);
+        wheel.park(first);
+        wheel.park(second);
+        assertTrue(first.isParked());
+        assertTrue(second.isParked());
+        wheel.wake(6);
+        assertTrue(first.isParked());
+        wheel.wake(5);
+        assertFalse(first.isParked());
+        assertFalse(second.isParked());
+        assertEquals(5, first.getFailedCell());
+        assertNull(board.getWaiters(5));
+    }
+
+    @Test
+    public void stuckTimeExpiresMonsterAndClearsFailedCell () {
+        Monster monster = stuck(1, 5, 3);
+        wheel.park(monster);
+        wheel.advance(2);
+        assertTrue(monster.isParked());
+        wheel.advance(3);
+        assertFalse(monster.isParked());
+        assertEquals(Board.NONE, monster.getFailedCell());
+        assertNull(board.getWaiters(5));
+    }
+
+    @Test
+    public void advanceOverManyTicksExpiresEveryDueMonster () {
+        Monster early = stuck(1, 5, 2);
+        Monster late = stuck(2, 6, 7);
+        wheel.park(early);
+        wheel.park(late);
+        wheel.advance(100);
+        assertFalse(early.isParked());
+        assertFalse(late.isParked());
+    }
+
+    @Test
+    public void monsterSharingSlotWithLaterOneExpiresAlone () {
+        Monster due = stuck(1, 5, 3);
+        Monster later = stuck(2, 6, 11);
+        wheel.park(due);
+        wheel.park(later);
+        wheel.advance(3);
+        assertFalse(due.isParked());
+        assertTrue(later.isParked());
+        wheel.advance(11);
+        assertFalse(later.isParked());
+    }
+
+    @Test
+    public void expiredMonsterInTheMiddleKeepsOthersLinked () {
+        Monster first = stuck(1, 5, 3);
+        Monster middle = stuck(2, 5, 3);
+        Monster last = stuck(3, 5, 3);
+        wheel.park(first);
+        wheel.park(middle);
+        wheel.park(last);
+        wheel.expire(middle);
+        assertFalse(middle.isParked());
+        assertEquals(Board.NONE, middle.getFailedCell());
+        wheel.wake(5);
+        assertFalse(first.isParked());
+        assertFalse(last.isParked());
+        wheel.park(stuck(4, 5, 4));
+        wheel.advance(3);
+        assertTrue(board.getWaiters(5) != null);
+    }
+
+    private Monster stuck (int id, int failedCell, long stuckTime) {
+        Monster monster = new Monster(id);
+        monster.setFailedCell(failedCell);
+        monster.setStuckTime(stuckTime);
+        return monster;
+    }
+}
@@ -0,0 +1,83 @@
+package com.sapashev.degree;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assume.assumeNotNull;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the vector kernel gives exactly the same results as the scalar one. Widths of the boards
+ * aren't multiples of the vector length, so the tails of the rows are processed by the scalar code,
+ * degrees are taken from a small range with blocked (Integer.MAX_VALUE) cells, so nearby cells often tie.
+ * Runs only if the vector kernel is available (vector profile, JVM started with --add-modules jdk.incubator.vector).
+ */
+public class DegreeKernelTest {
+    private static final int[] COLUMNS = {1, 2, 3, 5, 7, 9, 15, 17, 31, 33, 63, 67};
+    private static final int ROWS = 7;
+    private final DegreeKernel scalar = DegreeKernels.scalar();
+    private DegreeKernel vector;
+
+    @Before
+    public void loadVectorKernel () {
+        vector = DegreeKernels.vector();
+        assumeNotNull(vector);
+    }
+
+    @Test
+    public void chebyshevFieldsOfVectorAndScalarKernelsAreEqual () {
+        Random random = new Random(3);
+        for (int columns : COLUMNS){
+            int size = ROWS * columns;
+            int[] players = {0, size - 1, columns - 1, size - columns, random.nextInt(size)};
+            for (int first : players){
+                int[] expected = new int[size];
+                int[] actual = new int[size];
+                scalar.fillChebyshev(expected, columns, first);
+                vector.fillChebyshev(actual, columns, first);
+                assertArrayEquals("fill " + columns + " " + first, expected, actual);
+                for (int second : players){
+                    scalar.mergeChebyshev(expected, columns, second);
+                    vector.mergeChebyshev(actual, columns, second);
+                    assertArrayEquals("merge " + columns + " " + first + " " + second, expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void nearbyCellsChosenByVectorAndScalarKernelsAreEqual () {
+        Random random = new Random(5);
+        for (int columns : COLUMNS){
+            int size = ROWS * columns;
+            for (int round = 0; round < 20; round++){
+                int[] field = blocked(random, size);
+                int[] expected = new int[size];
+                int[] actual = new int[size];
+                scalar.fillNearest(field, columns, expected);
+                vector.fillNearest(field, columns, actual);
+                assertArrayEquals("nearest " + columns + " " + round, expected, actual);
+                int[] hosts = new int[size];
+                for (int i = 0; i < size; i++){
+                    hosts[i] = random.nextInt(size);
+                }
+                scalar.argminNearby(field, columns, hosts, expected, size);
+                vector.argminNearby(field, columns, hosts, actual, size);
+                assertArrayEquals("argmin " + columns + " " + round, expected, actual);
+            }
+        }
+    }
+
+    /**
+     * Degrees from 0 to 3, so the neighbours tie often, and about a quarter of the cells blocked.
+     */
+    private int[] blocked (Random random, int size) {
+        int[] field = new int[size];
+        for (int cell = 0; cell < size; cell++){
+            field[cell] = random.nextInt(4) == 0 ? Integer.MAX_VALUE : random.nextInt(4);
+        }
+        return field;
+    }
+}
@@ -0,0 +1,72 @@
+package com.sapashev.degree;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.sapashev.Actor;
+import com.sapashev.Block;
+import com.sapashev.Freecell;
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+
+/**
+ * Checks incremental repair of the flow field (lower and raise passes) against the field built from scratch.
+ */
+public class FlowFieldDegreeTest {
+    private final Actor freecell = new Freecell();
+
+    @Test
+    public void routesAroundBlocks () {
+        Board board = BoardType.CELLS.create(3, 3, freecell);
+        board.compareAndSet(board.index(0, 1), freecell, new Block());
+        board.compareAndSet(board.index(1, 1), freecell, new Block());
+        FlowFieldDegree field = new FlowFieldDegree(board, board.index(0, 0));
+        assertEquals(6, field.getDegree(board.index(0, 2)));
+        assertEquals(FlowFieldDegree.UNREACHABLE, field.getDegree(board.index(1, 1)));
+    }
+
+    @Test
+    public void unreachableCellsStayUnreachable () {
+        Board board = BoardType.CELLS.create(3, 3, freecell);
+        board.compareAndSet(board.index(1, 2), freecell, new Block());
+        board.compareAndSet(board.index(2, 1), freecell, new Block());
+        FlowFieldDegree field = new FlowFieldDegree(board, board.index(0, 0));
+        field.update(board.index(0, 1));
+        assertEquals(FlowFieldDegree.UNREACHABLE, field.getDegree(board.index(2, 2)));
+        assertEquals(1, field.getDegree(board.index(0, 0)));
+    }
+
+    @Test
+    public void repairedFieldEqualsRebuiltFieldAlongRandomWalk () {
+        Random random = new Random(7);
+        Board board = BoardType.CELLS.create(40, 50, freecell);
+        for (int i = 0; i < 500; i++){
+            board.compareAndSet(random.nextInt(board.size()), freecell, new Block());
+        }
+        int player = firstFree(board, 0);
+        FlowFieldDegree field = new FlowFieldDegree(board, player);
+        for (int step = 0; step < 2000; step++){
+            int next = step % 300 == 299
+                    ? firstFree(board, random.nextInt(board.size()))
+                    : board.getNearbyCell(player, random.nextInt(4));
+            if(next == Board.NONE || board.getActor(next) != freecell){
+                continue;
+            }
+            player = next;
+            field.update(player);
+            assertArrayEquals("step " + step, new FlowFieldDegree(board, player).getDegrees(), field.getDegrees());
+        }
+    }
+
+    private int firstFree (Board board, int from) {
+        int cell = from;
+        while (board.getActor(cell) != freecell){
+            cell = (cell + 1) % board.size();
+        }
+        return cell;
+    }
+}
@@ -0,0 +1,83 @@
+package com.sapashev.degree;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.sapashev.Actor;
+import com.sapashev.Block;
+import com.sapashev.Freecell;
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+
+/**
+ * Checks incremental update of the field of several players (reset of the region of the moved player
+ * and it's fill up from the border) against the field built from scratch.
+ */
+public class NearestFlowFieldDegreeTest {
+    private final Actor freecell = new Freecell();
+
+    @Test
+    public void updatedFieldOfThreePlayersEqualsRebuiltField () {
+        assertUpdatedFieldEqualsRebuiltField(3, 11);
+    }
+
+    @Test
+    public void updatedFieldOfFivePlayersEqualsRebuiltField () {
+        assertUpdatedFieldEqualsRebuiltField(5, 13);
+    }
+
+    /**
+     * Moves random players by single steps and, from time to time, jumps to random cells,
+     * and compares every degree of the field with the field built for the same player cells after each move.
+     */
+    private void assertUpdatedFieldEqualsRebuiltField (int players, long seed) {
+        Random random = new Random(seed);
+        Board board = BoardType.CELLS.create(40, 50, freecell);
+        for (int i = 0; i < 500; i++){
+            board.compareAndSet(random.nextInt(board.size()), freecell, new Block());
+        }
+        int[] cells = new int[players];
+        for (int player = 0; player < players; player++){
+            cells[player] = firstFree(board, random.nextInt(board.size()), cells, player);
+        }
+        NearestFlowFieldDegree field = new NearestFlowFieldDegree(board, cells);
+        for (int step = 0; step < 1500; step++){
+            int player = random.nextInt(players);
+            int next = step % 50 == 49
+                    ? firstFree(board, random.nextInt(board.size()), cells, players)
+                    : board.getNearbyCell(cells[player], random.nextInt(4));
+            if(next == Board.NONE || board.getActor(next) != freecell || taken(cells, players, next)){
+                continue;
+            }
+            cells[player] = next;
+            field.update(player, next);
+            NearestFlowFieldDegree rebuilt = new NearestFlowFieldDegree(board, cells);
+            for (int cell = 0; cell < board.size(); cell++){
+                assertEquals("step " + step + " cell " + cell, rebuilt.getDegree(cell), field.getDegree(cell));
+            }
+            for (int i = 0; i < players; i++){
+                assertEquals(i, field.getNearestPlayer(cells[i]));
+            }
+        }
+    }
+
+    private int firstFree (Board board, int from, int[] cells, int players) {
+        int cell = from;
+        while (board.getActor(cell) != freecell || taken(cells, players, cell)){
+            cell = (cell + 1) % board.size();
+        }
+        return cell;
+    }
+
+    private boolean taken (int[] cells, int players, int cell) {
+        for (int i = 0; i < players; i++){
+            if(cells[i] == cell){
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,144 @@
+package com.sapashev.delta;
+
+import com.sapashev.Actor;
+import com.sapashev.GameConfig;
+import com.sapashev.GameEngine;
+import com.sapashev.board.Board;
+import com.sapashev.threads.MonsterMode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that DirtyCells publishes each changed cell once per tick, from one writer, from several ones
+ * and from the running engine.
+ */
+public class DirtyCellsTest {
+
+    @Test
+    public void changedCellsArePublishedOnceInOrderOfTheFirstChange(){
+        DirtyCells dirtyCells = new DirtyCells(200, 8);
+        List<String> deltas = new ArrayList<>();
+        dirtyCells.addListener(delta -> deltas.add(describe(delta)));
+        dirtyCells.mark(130);
+        dirtyCells.mark(5);
+        dirtyCells.mark(130);
+        dirtyCells.mark(64);
+        dirtyCells.publish(1);
+        dirtyCells.publish(2);
+        dirtyCells.mark(5);
+        dirtyCells.publish(3);
+        assertEquals("[1:[130, 5, 64], 2:[], 3:[5]]", deltas.toString());
+    }
+
+    @Test
+    public void overflowedDeltaKeepsBitsOfAllChangedCells(){
+        DirtyCells dirtyCells = new DirtyCells(100, 2);
+        List<String> deltas = new ArrayList<>();
+        dirtyCells.addListener(delta -> {
+            deltas.add(describe(delta) + delta.isOverflow());
+            for (int cell = 0; cell < 100; cell++){
+                assertEquals(delta.getTick() == 1 && (cell == 1 || cell == 2 || cell == 99), delta.isChanged(cell));
+            }
+        });
+        dirtyCells.mark(1);
+        dirtyCells.mark(2);
+        dirtyCells.mark(99);
+        dirtyCells.publish(1);
+        dirtyCells.publish(2);
+        dirtyCells.publish(3);
+        assertEquals("[1:[1, 2]true]", deltas.subList(0, 1).toString());
+        assertEquals("3:[]false", deltas.get(2));
+    }
+
+    @Test
+    public void marksOfSeveralWritersArePublishedExactlyOnce() throws InterruptedException {
+        int writers = 4;
+        int cellsPerWriter = 20_000;
+        DirtyCells dirtyCells = new DirtyCells(writers * cellsPerWriter, writers * cellsPerWriter);
+        BitSet published = new BitSet();
+        int[] duplicates = new int[1];
+        dirtyCells.addListener(delta -> {
+            for (int position = 0; position < delta.size(); position++){
+                int cell = delta.getCell(position);
+                if(published.get(cell)){
+                    duplicates[0]++;
+                }
+                published.set(cell);
+            }
+        });
+        Thread[] threads = new Thread[writers];
+        for (int w = 0; w < writers; w++){
+            int first = w * cellsPerWriter;
+            threads[w] = new Thread(() -> {
+                for (int cell = first; cell < first + cellsPerWriter; cell++){
+                    dirtyCells.mark(cell);
+                }
+            });
+            threads[w].start();
+        }
+        long tick = 0;
+        while (isAlive(threads)){
+            dirtyCells.publish(tick++);
+        }
+        dirtyCells.publish(tick);
+        assertEquals(0, duplicates[0]);
+        assertEquals(writers * cellsPerWriter, published.cardinality());
+    }
+
+    @Test
+    public void deltaOfTheEngineListsEveryCellChangedDuringTheTick(){
+        GameConfig config = new GameConfig(30, 30, 80, 1, 50).setSeed(3L).setMonsterMode(MonsterMode.PLANNED)
+                .setTrackChanges(true);
+        try (GameEngine engine = new GameEngine(config)) {
+            Board board = engine.getBoard();
+            Actor[] before = actors(board);
+            int[] changed = new int[1];
+            engine.addDeltaListener(delta -> {
+                Actor[] after = actors(board);
+                for (int cell = 0; cell < after.length; cell++){
+                    if(after[cell] != before[cell]){
+                        assertTrue(delta.isChanged(cell));
+                        changed[0]++;
+                    }
+                }
+                assertFalse(delta.isOverflow());
+                for (int position = 0; position < delta.size(); position++){
+                    assertTrue(delta.isChanged(delta.getCell(position)));
+                }
+                System.arraycopy(after, 0, before, 0, after.length);
+            });
+            engine.step(50);
+            assertTrue(changed[0] > 0);
+        }
+    }
+
+    private static String describe(TickDelta delta){
+        List<Integer> cells = new ArrayList<>();
+        for (int position = 0; position < delta.size(); position++){
+            cells.add(delta.getCell(position));
+        }
+        return delta.getTick() + ":" + cells;
+    }
+
+    private static Actor[] actors(Board board){
+        Actor[] actors = new Actor[board.size()];
+        for (int cell = 0; cell < actors.length; cell++){
+            actors[cell] = board.getActor(cell);
+        }
+        return actors;
+    }
+
+    private static boolean isAlive(Thread[] threads){
+        for (Thread thread : threads){
+            if(thread.isAlive()){
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package com.sapashev.events;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks claim, publishing and gating of the EventRing with one and with several writers,
+ * and that the reader of the failed drainer stops gating the writers.
+ */
+public class EventRingTest {
+    private static final int WRITERS = 4;
+    private static final int EVENTS = 20_000;
+
+    @Test
+    public void readerReceivesEventsInPublishingOrder(){
+        EventRing ring = new EventRing(8, Backpressure.DROP);
+        EventReader reader = ring.newReader();
+        ring.publish(1, 10, 11, 0, Outcome.MOVED);
+        ring.publish(2, 20, 20, 0, Outcome.STUCK);
+        ring.publish(0, 5, 6, 1, Outcome.PLAYER_MOVED);
+        List<String> events = new ArrayList<>();
+        assertEquals(3, reader.drain((entity, from, to, tick, outcome) ->
+                events.add(entity + ":" + from + ":" + to + ":" + tick + ":" + outcome), 10));
+        assertEquals("[1:10:11:0:MOVED, 2:20:20:0:STUCK, 0:5:6:1:PLAYER_MOVED]", events.toString());
+        assertEquals(0, reader.drain((entity, from, to, tick, outcome) -> fail(), 10));
+    }
+
+    @Test
+    public void readerCreatedLaterSkipsEarlierEvents(){
+        EventRing ring = new EventRing(8, Backpressure.DROP);
+        ring.publish(1, 0, 1, 0, Outcome.MOVED);
+        EventReader reader = ring.newReader();
+        ring.publish(2, 1, 2, 1, Outcome.MOVED);
+        List<Integer> entities = new ArrayList<>();
+        reader.drain((entity, from, to, tick, outcome) -> entities.add(entity), 10);
+        assertEquals("[2]", entities.toString());
+    }
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo(){
+        EventRing ring = new EventRing(5, Backpressure.DROP);
+        ring.newReader();
+        int published = 0;
+        while (ring.publish(1, 0, 1, 0, Outcome.MOVED)){
+            published++;
+        }
+        assertEquals(8, published);
+    }
+
+    @Test
+    public void fullRingDropsAndCountsEventsUntilSlowestReaderFreesSlots(){
+        EventRing ring = new EventRing(4, Backpressure.DROP);
+        EventReader fast = ring.newReader();
+        EventReader slow = ring.newReader();
+        for (int i = 0; i < 4; i++){
+            assertTrue(ring.publish(1, i, i + 1, i, Outcome.MOVED));
+        }
+        assertFalse(ring.publish(1, 4, 5, 4, Outcome.MOVED));
+        assertEquals(4, fast.drain((entity, from, to, tick, outcome) -> {}, 10));
+        assertFalse(ring.publish(1, 4, 5, 4, Outcome.MOVED));
+        assertEquals(2, ring.getDropped());
+        assertEquals(4, ring.getCursor());
+
+        assertEquals(1, slow.drain((entity, from, to, tick, outcome) -> {}, 1));
+        assertTrue(ring.publish(1, 4, 5, 4, Outcome.MOVED));
+        assertFalse(ring.publish(1, 5, 6, 5, Outcome.MOVED));
+        assertEquals(3, ring.getDropped());
+        List<Long> ticks = new ArrayList<>();
+        slow.drain((entity, from, to, tick, outcome) -> ticks.add(tick), 10);
+        assertEquals("[1, 2, 3, 4]", ticks.toString());
+    }
+
+    @Test
+    public void severalWritersLoseNothingWhenWaiting() throws InterruptedException {
+        EventRing ring = new EventRing(64, Backpressure.WAIT);
+        EventReader reader = ring.newReader();
+        Thread[] writers = new Thread[WRITERS];
+        for (int w = 0; w < WRITERS; w++){
+            int entity = w;
+            writers[w] = new Thread(() -> {
+                for (int i = 0; i < EVENTS; i++){
+                    ring.publish(entity, i, i + 1, i, Outcome.MOVED);
+                }
+            });
+            writers[w].start();
+        }
+        long[] next = new long[WRITERS];
+        int total = 0;
+        while (total < WRITERS * EVENTS){
+            total += reader.drain((entity, from, to, tick, outcome) -> {
+                assertEquals(next[entity], tick);
+                assertEquals(tick, from);
+                next[entity]++;
+            }, 128);
+        }
+        for (Thread writer : writers){
+            writer.join();
+        }
+        for (long count : next){
+            assertEquals(EVENTS, count);
+        }
+        assertEquals(0, ring.getDropped());
+        assertEquals(WRITERS * EVENTS, ring.getCursor());
+        assertEquals(0, reader.drain((entity, from, to, tick, outcome) -> fail(), 10));
+    }
+
+    @Test(timeout = 10_000)
+    public void failedSinkDoesNotBlockWaitingWriters() throws InterruptedException {
+        EventRing ring = new EventRing(4, Backpressure.WAIT);
+        EventDrainer drainer = new EventDrainer(ring.newReader(), (entity, from, to, tick, outcome) -> {
+            throw new IllegalStateException("Disk is full");
+        });
+        for (int i = 0; i < 4; i++){
+            ring.publish(1, i, i + 1, i, Outcome.MOVED);
+        }
+        Thread thread = new Thread(drainer);
+        thread.start();
+        thread.join();
+        for (int i = 4; i < 100; i++){
+            assertTrue(ring.publish(1, i, i + 1, i, Outcome.MOVED));
+        }
+        assertEquals(100, ring.getCursor());
+    }
+}
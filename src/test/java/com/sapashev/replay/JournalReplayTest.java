@@ -0,0 +1,128 @@
+package com.sapashev.replay;
+
+import com.sapashev.GameConfig;
+import com.sapashev.GameEngine;
+import com.sapashev.Player;
+import com.sapashev.Type;
+import com.sapashev.board.Board;
+import com.sapashev.events.Backpressure;
+import com.sapashev.events.EventReader;
+import com.sapashev.events.Outcome;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the game recorded by JournalWriter is played back and sought by JournalReplay to the recorded states.
+ */
+public class JournalReplayTest {
+    private static final int TICKS = 100;
+    private static final int INTERVAL = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void seekRestoresStateRecordedAtEachTick() throws IOException {
+        Path file = folder.newFile().toPath();
+        List<int[]> states = new ArrayList<>();
+        try (GameEngine engine = new GameEngine(config())) {
+            EventReader reader = engine.getEvents().newReader();
+            try (JournalWriter journal = new JournalWriter(file, engine, INTERVAL)) {
+                states.add(positions(engine));
+                for (int tick = 0; tick < TICKS; tick++){
+                    engine.step();
+                    reader.drain(journal, Integer.MAX_VALUE);
+                    states.add(positions(engine));
+                }
+            }
+        }
+        JournalReplay replay = new JournalReplay(file);
+        assertEquals(40, replay.getRows());
+        assertEquals(60, replay.getMonsters());
+        for (int tick = TICKS; tick >= 0; tick -= 7){
+            replay.seek(tick);
+            assertPositions(states.get(tick), replay);
+        }
+        replay.seek(0);
+        int events = 0;
+        while (replay.next(null)){
+            events++;
+        }
+        assertTrue(events > TICKS);
+        assertPositions(states.get(TICKS), replay);
+    }
+
+    @Test
+    public void seekAppliesLateEventsOfTheLaggingThread() throws IOException {
+        Path file = folder.newFile().toPath();
+        int player;
+        int target;
+        try (GameEngine engine = new GameEngine(config())) {
+            Board board = engine.getBoard();
+            player = engine.getPlayer().getHostCell();
+            target = Board.NONE;
+            for (int direction = 0; direction < 4 && target == Board.NONE; direction++){
+                int cell = board.getNearbyCell(player, direction);
+                if(cell != Board.NONE && board.getActor(cell).getType() == Type.FREECELL){
+                    target = cell;
+                }
+            }
+            assertNotEquals(Board.NONE, target);
+            int monster = engine.getMonsterCells()[0];
+            try (JournalWriter journal = new JournalWriter(file, engine, INTERVAL)) {
+                //Monster thread is ahead by several keyframes, when the player's move of the tick 5 is recorded
+                for (int tick = 0; tick < 3 * INTERVAL; tick++){
+                    journal.onEvent(1, monster, monster, tick, Outcome.STUCK);
+                }
+                journal.onEvent(Player.ID, player, target, 5, Outcome.PLAYER_MOVED);
+                journal.onEvent(1, monster, monster, 3 * INTERVAL, Outcome.STUCK);
+            }
+        }
+        JournalReplay replay = new JournalReplay(file);
+        replay.seek(4);
+        assertEquals(player, replay.getPosition(Player.ID));
+        assertEquals(Player.ID, replay.getEntity(player));
+        replay.seek(5);
+        assertEquals(target, replay.getPosition(Player.ID));
+        assertEquals(JournalReplay.FREE, replay.getEntity(player));
+        assertEquals(Player.ID, replay.getEntity(target));
+        replay.seek(2 * INTERVAL + 5);
+        assertEquals(target, replay.getPosition(Player.ID));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void journalRejectsRingWhichDropsEvents() throws IOException {
+        try (GameEngine engine = new GameEngine(config().setBackpressure(Backpressure.DROP))) {
+            new JournalWriter(folder.newFile().toPath(), engine, INTERVAL).close();
+        }
+    }
+
+    private GameConfig config(){
+        return new GameConfig(40, 40, 60, 1, 100).setSeed(11L);
+    }
+
+    private int[] positions(GameEngine engine){
+        int[] monsters = engine.getMonsterCells();
+        int[] positions = new int[monsters.length + 1];
+        positions[Player.ID] = engine.getPlayer().getHostCell();
+        System.arraycopy(monsters, 0, positions, 1, monsters.length);
+        return positions;
+    }
+
+    private void assertPositions(int[] expected, JournalReplay replay){
+        for (int entity = 0; entity < expected.length; entity++){
+            assertEquals(expected[entity], replay.getPosition(entity));
+            if(expected[entity] != Board.NONE){
+                assertEquals(entity, replay.getEntity(expected[entity]));
+            }
+        }
+    }
+}
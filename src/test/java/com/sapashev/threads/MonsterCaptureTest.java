@@ -0,0 +1,153 @@
+package com.sapashev.threads;
+
+import com.sapashev.Actor;
+import com.sapashev.FreeCells;
+import com.sapashev.Freecell;
+import com.sapashev.Monster;
+import com.sapashev.MonsterStore;
+import com.sapashev.Player;
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+import com.sapashev.board.CompactBoard;
+import com.sapashev.degree.DegreeType;
+import com.sapashev.events.Backpressure;
+import com.sapashev.events.EventRing;
+import com.sapashev.metrics.EngineMetrics;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks capture of the player by the monster in each monster mode. Board 3x7, the player stays in the cell 14
+ * (row 2, column 0), the monster starts in the cell 2 and chases the player by Chebyshev distance:
+ * it moves to the cell 1, then to 8, and captures the player at the third move, reaching the cell 7.
+ * The first move takes the cell next to the cell 0, so the capture is detected by the real cell of the player only.
+ */
+public class MonsterCaptureTest {
+    private static final int ROWS = 3;
+    private static final int COLUMNS = 7;
+    private static final int PLAYER = 14;
+    private static final int START = 2;
+    private static final int CAPTURE = 7;
+    private final Actor freecell = new Freecell();
+    private final Player player = new Player();
+    private final CompletableFuture<Long> capture = new CompletableFuture<>();
+
+    @Test
+    public void sequentialMonsterCapturesPlayer(){
+        Board board = BoardType.CELLS.create(ROWS, COLUMNS, freecell);
+        List<Monster> monsters = put(board);
+        assertCapturedAtThirdTick(builder(board).setMonsters(monsters, freecell).build(), monsters.get(0));
+    }
+
+    @Test
+    public void parallelMonsterCapturesPlayer(){
+        Board board = BoardType.CELLS.create(ROWS, COLUMNS, freecell);
+        List<Monster> monsters = put(board);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertCapturedAtThirdTick(builder(board).setMonsters(monsters, freecell).setPool(pool).build(),
+                    monsters.get(0));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void plannedMonsterCapturesPlayer(){
+        Board board = BoardType.CELLS.create(ROWS, COLUMNS, freecell);
+        List<Monster> monsters = put(board);
+        MovePlanner planner = new MovePlanner(board, DegreeType.CHEBYSHEV.create(board, PLAYER), monsters);
+        assertCapturedAtThirdTick(builder(board).setMonsters(monsters, freecell).setPlanner(planner).build(),
+                monsters.get(0));
+    }
+
+    @Test
+    public void monsterOfStoreCapturesPlayer(){
+        CompactBoard board = (CompactBoard) BoardType.COMPACT.create(ROWS, COLUMNS, freecell);
+        FreeCells freeCells = BoardType.COMPACT.createFreeCells(board, new Random(1));
+        putPlayer(board);
+        MonsterStore store = new MonsterStore(1);
+        store.put(board, freeCells, 0, START);
+        store.sort(board);
+        ThreadMonster threadMonster = builder(board, freeCells).setStore(store).build();
+        threadMonster.setCapture(capture, Collections.singletonList(player));
+        threadMonster.run();
+        threadMonster.run();
+        assertFalse(capture.isDone());
+        threadMonster.run();
+        assertEquals(CAPTURE, store.getHostCell(0));
+        assertEquals(Long.valueOf(3), capture.getNow(null));
+    }
+
+    @Test
+    public void agentCapturesPlayerAtTickOfItsMove() throws Exception {
+        Board board = BoardType.CELLS.create(ROWS, COLUMNS, freecell);
+        List<Monster> monsters = put(board);
+        Monster monster = monsters.get(0);
+        ThreadMonster threadMonster = builder(board).setMonsters(monsters, freecell).build();
+        threadMonster.setCapture(capture, Collections.singletonList(player));
+        AtomicLong captureTick = new AtomicLong(-1);
+        MonsterAgents agents = new MonsterAgents((agent, tick) -> {
+            threadMonster.makeAgentMove(agent, tick);
+            if(agent.getHostCell() == CAPTURE){
+                captureTick.compareAndSet(-1, tick);
+            }
+        }, monsters, 10);
+        agents.start();
+        long tick;
+        try {
+            tick = capture.get(5, TimeUnit.SECONDS);
+        } finally {
+            assertTrue(agents.stop(1000));
+        }
+        assertEquals(CAPTURE, monster.getHostCell());
+        assertEquals(captureTick.get(), tick);
+    }
+
+    private void assertCapturedAtThirdTick(ThreadMonster threadMonster, Monster monster){
+        threadMonster.setCapture(capture, Collections.singletonList(player));
+        threadMonster.run();
+        assertEquals(1, monster.getHostCell());
+        threadMonster.run();
+        assertEquals(8, monster.getHostCell());
+        assertFalse(capture.isDone());
+        threadMonster.run();
+        assertEquals(CAPTURE, monster.getHostCell());
+        assertEquals(Long.valueOf(3), capture.getNow(null));
+    }
+
+    private ThreadMonster.Builder builder(Board board){
+        FreeCells freeCells = BoardType.CELLS.createFreeCells(board, new Random(1));
+        return builder(board, freeCells);
+    }
+
+    private ThreadMonster.Builder builder(Board board, FreeCells freeCells){
+        return new ThreadMonster.Builder(board, DegreeType.CHEBYSHEV.create(board, PLAYER), freeCells,
+                new EventRing(64, Backpressure.DROP), new EngineMetrics(ThreadMonster.TICK_PERIOD));
+    }
+
+    /**
+     * Puts the player and the monster object to their cells.
+     */
+    private List<Monster> put(Board board){
+        putPlayer(board);
+        Monster monster = new Monster(1);
+        board.compareAndSet(START, freecell, monster);
+        monster.setHostCell(START);
+        return Collections.singletonList(monster);
+    }
+
+    private void putPlayer(Board board){
+        board.compareAndSet(PLAYER, freecell, player);
+        player.setHostCell(PLAYER);
+    }
+}
@@ -0,0 +1,94 @@
+package com.sapashev.threads;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.sapashev.Actor;
+import com.sapashev.Block;
+import com.sapashev.FreeCells;
+import com.sapashev.Freecell;
+import com.sapashev.Monster;
+import com.sapashev.Player;
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeField;
+import com.sapashev.degree.DegreeType;
+import com.sapashev.events.Backpressure;
+import com.sapashev.events.EventRing;
+import com.sapashev.metrics.EngineMetrics;
+
+/**
+ * Checks that the monster tick (makeMove, makeNewMove, repeatFailedMove, swapCells) allocates nothing
+ * in steady state for each kind of the board and of the heat map: all kinds are warmed up in turns first,
+ * so the code is compiled for all of them and isn't deoptimized during the measurement,
+ * then bytes allocated by the current thread during the measured ticks of each kind are counted.
+ */
+public class MonsterTickAllocationTest {
+    private static final int SIZE = 128;
+    private static final int WARMUP_TICKS = 1000;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_TICKS = 200;
+
+    @Test
+    public void monsterTickAllocatesNothing () {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Map<String, ThreadMonster> threadMonsters = new LinkedHashMap<>();
+        for (BoardType boardType : BoardType.values()){
+            for (DegreeType type : DegreeType.values()){
+                threadMonsters.put(boardType + ", " + type, createThreadMonster(boardType, type));
+            }
+        }
+        for (int round = 0; round < WARMUP_ROUNDS; round++){
+            for (ThreadMonster threadMonster : threadMonsters.values()){
+                for (int i = 0; i < WARMUP_TICKS; i++){
+                    threadMonster.run();
+                }
+            }
+        }
+        for (Map.Entry<String, ThreadMonster> entry : threadMonsters.entrySet()){
+            ThreadMonster threadMonster = entry.getValue();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_TICKS; i++){
+                threadMonster.run();
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            assertEquals(entry.getKey(), 0, allocated);
+        }
+    }
+
+    /**
+     * Creates board with 5% of blocks, 10% of monsters and the player, all placed with fixed seed.
+     */
+    private ThreadMonster createThreadMonster (BoardType boardType, DegreeType type) {
+        Actor freecell = new Freecell();
+        Board board = boardType.create(SIZE, SIZE, freecell);
+        FreeCells freeCells = boardType.createFreeCells(board, new Random(42));
+        for (int i = 0; i < SIZE * SIZE / 20; i++){
+            Block block = new Block();
+            block.setHostCell(freeCells.occupyRandomCell(freecell, block));
+        }
+        List<Monster> monsters = new ArrayList<>();
+        for (int id = 1; id <= SIZE * SIZE / 10; id++){
+            Monster monster = new Monster(id);
+            monster.setHostCell(freeCells.occupyRandomCell(freecell, monster));
+            monsters.add(monster);
+        }
+        Player player = new Player();
+        player.setHostCell(freeCells.occupyRandomCell(freecell, player));
+        DegreeField degree = type.create(board, player.getHostCell());
+        return new ThreadMonster.Builder(board, degree, freeCells, new EventRing(1 << 16, Backpressure.DROP),
+                new EngineMetrics(ThreadMonster.TICK_PERIOD))
+                .setMonsters(monsters, freecell)
+                .setRepeatPeriod(1)
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+package com.sapashev.threads;
+
+import com.sapashev.Actor;
+import com.sapashev.Block;
+import com.sapashev.Freecell;
+import com.sapashev.Monster;
+import com.sapashev.Type;
+import com.sapashev.board.Board;
+import com.sapashev.board.BoardType;
+import com.sapashev.degree.DegreeField;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks resolution of the conflicting moves by MovePlanner: priority rotating with the tick,
+ * fallback of the losers to their next-best cells and monsters which plan nothing.
+ * Board 3x3 (cells 0..8), the center has the lowest degree.
+ */
+public class MovePlannerTest {
+    private static final int[] DEGREES = {5, 9, 7, 9, 0, 9, 5, 9, 3};
+    private final Actor freecell = new Freecell();
+    private final Board board = BoardType.CELLS.create(3, 3, freecell);
+    private final DegreeField degree = new FixedDegree(DEGREES);
+
+    @Test
+    public void conflictIsWonByMonsterWithHighestPriorityAndLoserTakesNextBestCell(){
+        List<Monster> monsters = put(3, 5);
+        MovePlanner planner = new MovePlanner(board, degree, monsters);
+        planner.plan(0);
+        assertEquals(4, planner.getTarget(0));
+        assertEquals(8, planner.getTarget(1));
+    }
+
+    @Test
+    public void priorityRotatesWithTick(){
+        List<Monster> monsters = put(3, 5);
+        MovePlanner planner = new MovePlanner(board, degree, monsters);
+        planner.plan(1);
+        assertEquals(4, planner.getTarget(1));
+        //Cells 0 and 6 have equal degrees, the one above goes first
+        assertEquals(0, planner.getTarget(0));
+        planner.plan(2);
+        assertEquals(4, planner.getTarget(0));
+        assertEquals(8, planner.getTarget(1));
+    }
+
+    @Test
+    public void monsterWithoutFreeNearbyCellHasNoMove(){
+        List<Monster> monsters = put(0, 1, 3);
+        board.compareAndSet(4, freecell, new Block());
+        MovePlanner planner = new MovePlanner(board, degree, monsters);
+        planner.plan(0);
+        assertEquals(Board.NONE, planner.getTarget(0));
+        assertEquals(2, planner.getTarget(1));
+        assertEquals(6, planner.getTarget(2));
+    }
+
+    @Test
+    public void repeatingAndKilledMonstersPlanNothing(){
+        List<Monster> monsters = put(3, 5);
+        monsters.get(0).setFailedCell(4);
+        monsters.get(0).setStuckTime(10);
+        MovePlanner planner = new MovePlanner(board, degree, monsters);
+        planner.plan(0);
+        assertEquals(Board.NONE, planner.getTarget(0));
+        assertEquals(4, planner.getTarget(1));
+        planner.plan(10);
+        assertEquals(4, planner.getTarget(0));
+
+        board.compareAndSet(3, monsters.get(0), freecell);
+        monsters.get(0).setHostCell(Board.NONE);
+        planner.plan(10);
+        assertEquals(Board.NONE, planner.getTarget(0));
+        assertEquals(4, planner.getTarget(1));
+    }
+
+    @Test
+    public void crowdWinsEachFreeCellOnceAndMovesToNearbyCellsOnly(){
+        Random random = new Random(1);
+        Board crowded = BoardType.CELLS.create(30, 30, freecell);
+        List<Monster> monsters = new ArrayList<>();
+        for (int cell = 0; cell < crowded.size(); cell++){
+            if(random.nextInt(3) == 0){
+                Monster monster = new Monster(monsters.size() + 1);
+                monster.setHostCell(cell);
+                crowded.compareAndSet(cell, freecell, monster);
+                monsters.add(monster);
+            }
+        }
+        int[] degrees = random.ints(crowded.size(), 0, 4).toArray();
+        MovePlanner planner = new MovePlanner(crowded, new FixedDegree(degrees), monsters);
+        for (long tick = 0; tick < 20; tick++){
+            planner.plan(tick);
+            Set<Integer> won = new HashSet<>();
+            for (int i = 0; i < monsters.size(); i++){
+                int target = planner.getTarget(i);
+                int host = monsters.get(i).getHostCell();
+                if(target != Board.NONE){
+                    assertTrue(won.add(target));
+                    assertEquals(Type.FREECELL, crowded.getActor(target).getType());
+                    assertTrue(Math.abs(target - host) == 1 || Math.abs(target - host) == 30);
+                }
+            }
+            //Monster is left without move only if all it's free nearby cells are won by others
+            for (int i = 0; i < monsters.size(); i++){
+                for (int direction = 0; direction < 4 && planner.getTarget(i) == Board.NONE; direction++){
+                    int cell = crowded.getNearbyCell(monsters.get(i).getHostCell(), direction);
+                    if(cell != Board.NONE && crowded.getActor(cell).getType() == Type.FREECELL){
+                        assertTrue(won.contains(cell));
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Monster> put(int... cells){
+        List<Monster> monsters = new ArrayList<>();
+        for (int cell : cells){
+            Monster monster = new Monster(monsters.size() + 1);
+            monster.setHostCell(cell);
+            board.compareAndSet(cell, freecell, monster);
+            monsters.add(monster);
+        }
+        assertEquals(cells.length, Arrays.stream(cells).distinct().count());
+        return monsters;
+    }
+
+    /**
+     * Heat map which doesn't follow the player.
+     */
+    private static class FixedDegree implements DegreeField {
+        private final int[] degrees;
+
+        FixedDegree(int[] degrees){
+            this.degrees = degrees;
+        }
+
+        @Override
+        public int getDegree(int cell){
+            return degrees[cell];
+        }
+
+        @Override
+        public void update(int playerCell){
+        }
+    }
+}